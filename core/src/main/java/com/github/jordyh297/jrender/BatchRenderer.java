@@ -0,0 +1,300 @@
+package com.github.jordyh297.jrender;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Renders sequences of frames off screen on several threads, for
+ * animations and thumbnails. Each worker thread draws with its own
+ * {@link Renderer3D}, kept in a pool between batches, so frames never
+ * share render targets or scratch state and need no locking. Camera,
+ * lights and options come from one shared {@link RenderState}.
+ * <p>
+ * Finished frames are handed to a {@link FrameSink} in frame order, one at
+ * a time, whichever worker finished them. Only a few frames per worker are
+ * rendered ahead of the sink, so a slow sink holds back rendering instead
+ * of filling memory.
+ * <p>
+ * Workers read the scene concurrently. Objects shared between frames
+ * must not change during a batch; animate by passing per-frame transforms
+ * to {@link Renderer3D#renderInstanced} or by building per-frame objects
+ * around shared {@link MeshData}. An {@link LODMesh} gets the level for
+ * its projected size in each frame, without hysteresis, so a frame looks
+ * the same whichever frames were rendered before it.
+ */
+public class BatchRenderer {
+    /**
+     * Draws one frame, from clear() to endFrame(), with a worker's
+     * renderer. Called on worker threads, several at a time.
+     */
+    public interface FrameRenderer {
+        void renderFrame(Renderer3D renderer, int frame);
+    }
+    
+    /**
+     * Submits the scene as it is at a point in time, between beginFrame()
+     * and endFrame(). Called on worker threads, several at a time.
+     */
+    public interface AnimatedScene {
+        void submitAt(Renderer3D renderer, double time);
+    }
+    
+    /**
+     * Receives finished frames in order. Calls never overlap, and the
+     * image is reused once accept() returns, so copy it to keep it.
+     */
+    public interface FrameSink {
+        void accept(int frame, BufferedImage image) throws IOException;
+    }
+    
+    // Frames rendered ahead of the sink, per worker
+    private static final int FRAMES_AHEAD_PER_THREAD = 2;
+    
+    private final int width;
+    private final int height;
+    private final int threads;
+    
+    // Background for renderViews() and renderTimes()
+    public Color background = Color.BLACK;
+    
+    // Renderers not in use by a worker
+    private final ArrayDeque<Renderer3D> contexts = new ArrayDeque<>();
+    private volatile RenderState state;
+    
+    // Render frames of the given size on one thread per available processor
+    public BatchRenderer(int width, int height) {
+        this(width, height, Runtime.getRuntime().availableProcessors());
+    }
+    
+    public BatchRenderer(int width, int height, int threads) {
+        if (width <= 0 || height <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("width, height and threads must be positive");
+        }
+        this.width = width;
+        this.height = height;
+        this.threads = threads;
+    }
+    
+    /**
+     * Camera, lights and options every frame starts from, typically
+     * {@link Renderer3D#getRenderState()} of an interactive renderer.
+     * renderViews() and renderTimes() replace the camera. Without a state,
+     * frame renderers must configure the renderer they are given.
+     */
+    public void setRenderState(RenderState state) {
+        this.state = state;
+    }
+    
+    public RenderState getRenderState() {
+        return state;
+    }
+    
+    public int getThreadCount() {
+        return threads;
+    }
+    
+    /**
+     * Render frames 0 to frameCount - 1 and pass them to the sink in
+     * order. Returns once the last frame has been accepted; the first
+     * exception from a frame or the sink stops the batch and is rethrown,
+     * wrapped in an IOException if it is of a checked type not declared
+     * here.
+     */
+    public void render(int frameCount, FrameRenderer frames, FrameSink sink)
+            throws IOException, InterruptedException {
+        if (frameCount <= 0) return;
+        Batch batch = new Batch(frameCount, frames, sink, state, threads * FRAMES_AHEAD_PER_THREAD);
+        
+        int workerCount = Math.min(threads, frameCount);
+        List<Thread> workers = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(() -> work(batch), "jrender-batch-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            batch.fail(e);
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            throw e;
+        }
+        
+        Throwable failure = batch.failure;
+        if (failure instanceof IOException) throw (IOException) failure;
+        if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+        if (failure instanceof Error) throw (Error) failure;
+        if (failure instanceof InterruptedException) throw (InterruptedException) failure;
+        if (failure != null) throw new IOException("frame rendering failed", failure);
+    }
+    
+    /**
+     * Render a static scene once per camera. Frame i is seen through a
+     * copy of cameras.get(i), so the cameras are only read.
+     */
+    public void renderViews(List<? extends Renderable> scene, List<Camera> cameras, FrameSink sink)
+            throws IOException, InterruptedException {
+        // Fill the objects' lazy caches here so workers do not race to build them
+        for (Renderable renderable : scene) {
+            renderable.getTransformMatrix();
+            renderable.getBoundingBox();
+            renderable.getBoundingSphere();
+        }
+        Color clearColor = background;
+        render(cameras.size(), (renderer, frame) -> {
+            renderer.setCamera(new Camera(cameras.get(frame)));
+            renderer.clear(clearColor);
+            renderer.beginFrame();
+            renderer.submitAll(scene);
+            renderer.endFrame();
+        }, sink);
+    }
+    
+    /**
+     * Render an animated scene at each of the given times, all through
+     * copies of one camera.
+     */
+    public void renderTimes(double[] times, Camera camera, AnimatedScene scene, FrameSink sink)
+            throws IOException, InterruptedException {
+        Camera source = new Camera(camera);
+        Color clearColor = background;
+        render(times.length, (renderer, frame) -> {
+            renderer.setCamera(new Camera(source));
+            renderer.clear(clearColor);
+            renderer.beginFrame();
+            scene.submitAt(renderer, times[frame]);
+            renderer.endFrame();
+        }, sink);
+    }
+    
+    // One worker: take frames in order, render them and help deliver
+    private void work(Batch batch) {
+        Renderer3D renderer = acquireContext();
+        try {
+            while (true) {
+                int frame = batch.nextFrame();
+                if (frame < 0) break;
+                if (batch.state != null) {
+                    renderer.setRenderState(batch.state);
+                }
+                batch.frames.renderFrame(renderer, frame);
+                BufferedImage image = renderer.swapBuffer(batch.takeImage(width, height));
+                batch.finish(frame, image);
+            }
+            releaseContext(renderer);
+        } catch (Throwable t) {
+            // The renderer may be left mid-frame, so it is not pooled again
+            batch.fail(t);
+        }
+    }
+    
+    private Renderer3D acquireContext() {
+        synchronized (this) {
+            Renderer3D pooled = contexts.poll();
+            if (pooled != null) return pooled;
+        }
+        Renderer3D renderer = new Renderer3D(width, height);
+        renderer.setLevelHysteresis(false);
+        return renderer;
+    }
+    
+    private synchronized void releaseContext(Renderer3D renderer) {
+        contexts.push(renderer);
+    }
+    
+    // Frame issue, reordering and delivery state shared by one batch's workers
+    private static final class Batch {
+        final int frameCount;
+        final FrameRenderer frames;
+        final FrameSink sink;
+        final RenderState state;
+        final int window;
+        
+        // Finished frames waiting for the sink, indexed by frame % window
+        final BufferedImage[] ready;
+        final ArrayDeque<BufferedImage> freeImages = new ArrayDeque<>();
+        int nextIssue;
+        int nextDelivery;
+        boolean delivering;
+        volatile Throwable failure;
+        
+        Batch(int frameCount, FrameRenderer frames, FrameSink sink, RenderState state, int window) {
+            this.frameCount = frameCount;
+            this.frames = frames;
+            this.sink = sink;
+            this.state = state;
+            this.window = window;
+            this.ready = new BufferedImage[window];
+        }
+        
+        // Next frame to render, waiting while too many are ahead of the sink; -1 when done
+        synchronized int nextFrame() throws InterruptedException {
+            while (failure == null && nextIssue < frameCount && nextIssue - nextDelivery >= window) {
+                wait();
+            }
+            if (failure != null || nextIssue >= frameCount) return -1;
+            return nextIssue++;
+        }
+        
+        synchronized BufferedImage takeImage(int width, int height) {
+            BufferedImage image = freeImages.poll();
+            return image != null ? image : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        }
+        
+        /**
+         * Queue a finished frame. Unless another worker is already feeding
+         * the sink, keep passing it frames until the next one in order is
+         * not finished yet.
+         */
+        void finish(int frame, BufferedImage image) throws IOException {
+            synchronized (this) {
+                ready[frame % window] = image;
+                if (delivering) return;
+                delivering = true;
+            }
+            while (true) {
+                int next;
+                BufferedImage nextImage;
+                synchronized (this) {
+                    next = nextDelivery;
+                    nextImage = next < frameCount ? ready[next % window] : null;
+                    if (nextImage == null || failure != null) {
+                        delivering = false;
+                        return;
+                    }
+                    ready[next % window] = null;
+                }
+                try {
+                    sink.accept(next, nextImage);
+                } catch (IOException | RuntimeException | Error e) {
+                    synchronized (this) {
+                        delivering = false;
+                    }
+                    throw e;
+                }
+                synchronized (this) {
+                    nextDelivery++;
+                    freeImages.push(nextImage);
+                    notifyAll();
+                }
+            }
+        }
+        
+        // Record the first failure and wake waiting workers so they stop
+        synchronized void fail(Throwable t) {
+            if (failure == null) {
+                failure = t;
+            }
+            notifyAll();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.jordyh297.jrender;
+
+/**
+ * Axis-aligned bounding box in object or world space.
+ */
+public class BoundingBox {
+    public Vector3D min;
+    public Vector3D max;
+    
+    // Create an empty box that grows with include()
+    public BoundingBox() {
+        min = new Vector3D(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+        max = new Vector3D(Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
+    }
+    
+    public BoundingBox(Vector3D min, Vector3D max) {
+        this.min = min;
+        this.max = max;
+    }
+    
+    // Grow the box to contain a point
+    public void include(Vector3D p) {
+        if (p.x < min.x) min.x = p.x;
+        if (p.y < min.y) min.y = p.y;
+        if (p.z < min.z) min.z = p.z;
+        if (p.x > max.x) max.x = p.x;
+        if (p.y > max.y) max.y = p.y;
+        if (p.z > max.z) max.z = p.z;
+    }
+    
+    public boolean isEmpty() {
+        return min.x > max.x || min.y > max.y || min.z > max.z;
+    }
+    
+    public Vector3D getCenter() {
+        return new Vector3D(
+            (min.x + max.x) * 0.5,
+            (min.y + max.y) * 0.5,
+            (min.z + max.z) * 0.5
+        );
+    }
+    
+    // Corner i of 8: bit 0 picks max x, bit 1 max y, bit 2 max z
+    public void getCorner(int i, Vector3D out) {
+        out.x = (i & 1) == 0 ? min.x : max.x;
+        out.y = (i & 2) == 0 ? min.y : max.y;
+        out.z = (i & 4) == 0 ? min.z : max.z;
+    }
+    
+    /**
+     * World-space box around this box under a model matrix, written to
+     * out[offset..offset + 6) as min x, y, z then max x, y, z. Transforms
+     * the center and sums the absolute matrix terms over the half extents,
+     * so it is exact for the eight corners without transforming them.
+     */
+    public void transform(Matrix4x4 model, double[] out, int offset) {
+        double[] m = model.m;
+        double cx = (min.x + max.x) * 0.5;
+        double cy = (min.y + max.y) * 0.5;
+        double cz = (min.z + max.z) * 0.5;
+        double ex = (max.x - min.x) * 0.5;
+        double ey = (max.y - min.y) * 0.5;
+        double ez = (max.z - min.z) * 0.5;
+        double wx = m[0] * cx + m[1] * cy + m[2] * cz + m[3];
+        double wy = m[4] * cx + m[5] * cy + m[6] * cz + m[7];
+        double wz = m[8] * cx + m[9] * cy + m[10] * cz + m[11];
+        double hx = Math.abs(m[0]) * ex + Math.abs(m[1]) * ey + Math.abs(m[2]) * ez;
+        double hy = Math.abs(m[4]) * ex + Math.abs(m[5]) * ey + Math.abs(m[6]) * ez;
+        double hz = Math.abs(m[8]) * ex + Math.abs(m[9]) * ey + Math.abs(m[10]) * ez;
+        out[offset] = wx - hx;
+        out[offset + 1] = wy - hy;
+        out[offset + 2] = wz - hz;
+        out[offset + 3] = wx + hx;
+        out[offset + 4] = wy + hy;
+        out[offset + 5] = wz + hz;
+    }
+}
@@ -0,0 +1,41 @@
+package com.github.jordyh297.jrender;
+
+/**
+ * Bounding sphere in object or world space. A negative radius means empty.
+ */
+public class BoundingSphere {
+    public Vector3D center;
+    public double radius;
+    
+    // Create an empty sphere at the origin
+    public BoundingSphere() {
+        this(new Vector3D(0, 0, 0), -1);
+    }
+    
+    public BoundingSphere(Vector3D center, double radius) {
+        this.center = center;
+        this.radius = radius;
+    }
+    
+    // Sphere around the center of a box, grown with include() to fit the points
+    public static BoundingSphere around(BoundingBox box) {
+        return box.isEmpty() ? new BoundingSphere() : new BoundingSphere(box.getCenter(), -1);
+    }
+    
+    // Grow the radius, keeping the center, to contain a point
+    public void include(double x, double y, double z) {
+        double dx = x - center.x;
+        double dy = y - center.y;
+        double dz = z - center.z;
+        double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        if (distance > radius) radius = distance;
+    }
+    
+    public void include(Vector3D p) {
+        include(p.x, p.y, p.z);
+    }
+    
+    public boolean isEmpty() {
+        return radius < 0;
+    }
+}
@@ -14,6 +14,17 @@ public class Camera {
     public double nearPlane;
     public double farPlane;
     
+    // Matrix cache, rebuilt when any field above changes
+    private final Matrix4x4 viewMatrix = new Matrix4x4();
+    private final Matrix4x4 projectionMatrix = new Matrix4x4();
+    private final Matrix4x4 viewProjectionMatrix = new Matrix4x4();
+    private final double[] frustumPlanes = new double[24];
+    private final double[] viewState = new double[9];
+    private final double[] projectionState = new double[4];
+    private boolean viewValid;
+    private boolean projectionValid;
+    private long version;
+    
     public Camera() {
         position = new Vector3D(0, 0, -5);
         target = new Vector3D(0, 0, 0);
@@ -31,14 +42,161 @@ public class Camera {
         this.target = target;
     }
     
-    // Get view matrix
+    // Copy of another camera's placement and projection, with its own matrix cache
+    public Camera(Camera other) {
+        set(other);
+    }
+    
+    // Take another camera's placement and projection; the vectors are copied, not shared
+    public Camera set(Camera other) {
+        this.position = new Vector3D(other.position);
+        this.target = new Vector3D(other.target);
+        this.up = new Vector3D(other.up);
+        this.fov = other.fov;
+        this.aspectRatio = other.aspectRatio;
+        this.nearPlane = other.nearPlane;
+        this.farPlane = other.farPlane;
+        return this;
+    }
+    
+    // Get view matrix; cached, so the returned matrix must not be modified
     public Matrix4x4 getViewMatrix() {
-        return Matrix4x4.lookAt(position, target, up);
+        update();
+        return viewMatrix;
     }
     
-    // Get projection matrix
+    // Get projection matrix; cached, so the returned matrix must not be modified
     public Matrix4x4 getProjectionMatrix() {
-        return Matrix4x4.perspective(fov, aspectRatio, nearPlane, farPlane);
+        update();
+        return projectionMatrix;
+    }
+    
+    // Projection * view, cached along with the other two
+    public Matrix4x4 getViewProjectionMatrix() {
+        update();
+        return viewProjectionMatrix;
+    }
+    
+    /**
+     * The six view frustum planes in world space (left, right, bottom, top,
+     * near, far), each as four values a, b, c, d with a unit normal
+     * pointing inward: a point is inside a plane when a*x + b*y + c*z + d >= 0.
+     * Cached with the matrices; the returned array must not be modified.
+     */
+    public double[] getFrustumPlanes() {
+        update();
+        return frustumPlanes;
+    }
+    
+    // False only if the sphere is entirely outside one frustum plane
+    public boolean intersectsFrustum(Vector3D center, double radius) {
+        update();
+        double[] p = frustumPlanes;
+        for (int i = 0; i < 24; i += 4) {
+            if (p[i] * center.x + p[i + 1] * center.y + p[i + 2] * center.z + p[i + 3] < -radius) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    // False only if the world-space box is entirely outside one frustum plane
+    public boolean intersectsFrustum(double minX, double minY, double minZ,
+                                     double maxX, double maxY, double maxZ) {
+        update();
+        double[] p = frustumPlanes;
+        for (int i = 0; i < 24; i += 4) {
+            // Test the corner furthest along the plane normal
+            double x = p[i] >= 0 ? maxX : minX;
+            double y = p[i + 1] >= 0 ? maxY : minY;
+            double z = p[i + 2] >= 0 ? maxZ : minZ;
+            if (p[i] * x + p[i + 1] * y + p[i + 2] * z + p[i + 3] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * World-space ray from the camera through a point on a width x height
+     * screen, with y pointing down as in the renderer's image. Pixel
+     * centers are at half-integer coordinates.
+     */
+    public Ray getRay(double screenX, double screenY, int width, int height) {
+        update();
+        double tanHalfFov = Math.tan(fov / 2.0);
+        double sx = (screenX / width * 2.0 - 1.0) * tanHalfFov * aspectRatio;
+        double sy = (1.0 - screenY / height * 2.0) * tanHalfFov;
+        
+        // Rows of the view matrix are the camera's right, up and backward axes
+        double[] v = viewMatrix.m;
+        Vector3D direction = new Vector3D(
+            v[0] * sx + v[4] * sy - v[8],
+            v[1] * sx + v[5] * sy - v[9],
+            v[2] * sx + v[6] * sy - v[10]);
+        return new Ray(new Vector3D(position), direction);
+    }
+    
+    // Incremented every time a camera matrix is rebuilt
+    public long getVersion() {
+        update();
+        return version;
+    }
+    
+    // Rebuild whichever matrices are out of date with the public fields
+    private void update() {
+        boolean viewChanged = !viewValid
+            || viewState[0] != position.x || viewState[1] != position.y || viewState[2] != position.z
+            || viewState[3] != target.x || viewState[4] != target.y || viewState[5] != target.z
+            || viewState[6] != up.x || viewState[7] != up.y || viewState[8] != up.z;
+        boolean projectionChanged = !projectionValid
+            || projectionState[0] != fov || projectionState[1] != aspectRatio
+            || projectionState[2] != nearPlane || projectionState[3] != farPlane;
+        if (!viewChanged && !projectionChanged) return;
+        
+        if (viewChanged) {
+            viewState[0] = position.x;
+            viewState[1] = position.y;
+            viewState[2] = position.z;
+            viewState[3] = target.x;
+            viewState[4] = target.y;
+            viewState[5] = target.z;
+            viewState[6] = up.x;
+            viewState[7] = up.y;
+            viewState[8] = up.z;
+            viewMatrix.setLookAt(position, target, up);
+            viewValid = true;
+        }
+        if (projectionChanged) {
+            projectionState[0] = fov;
+            projectionState[1] = aspectRatio;
+            projectionState[2] = nearPlane;
+            projectionState[3] = farPlane;
+            projectionMatrix.setPerspective(fov, aspectRatio, nearPlane, farPlane);
+            projectionValid = true;
+        }
+        projectionMatrix.multiplyInto(viewMatrix, viewProjectionMatrix);
+        extractFrustumPlanes();
+        version++;
+    }
+    
+    // Planes from sums and differences of the view-projection rows (Gribb/Hartmann)
+    private void extractFrustumPlanes() {
+        double[] m = viewProjectionMatrix.m;
+        for (int plane = 0; plane < 6; plane++) {
+            int row = (plane / 2) * 4;
+            double sign = (plane % 2 == 0) ? 1.0 : -1.0;
+            double a = m[12] + sign * m[row];
+            double b = m[13] + sign * m[row + 1];
+            double c = m[14] + sign * m[row + 2];
+            double d = m[15] + sign * m[row + 3];
+            double length = Math.sqrt(a * a + b * b + c * c);
+            int i = plane * 4;
+            frustumPlanes[i] = a / length;
+            frustumPlanes[i + 1] = b / length;
+            frustumPlanes[i + 2] = c / length;
+            frustumPlanes[i + 3] = d / length;
+        }
     }
     
     // Move camera forward/backward
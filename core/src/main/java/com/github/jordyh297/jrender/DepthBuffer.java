@@ -0,0 +1,128 @@
+package com.github.jordyh297.jrender;
+
+import java.util.Arrays;
+
+/**
+ * Flat, row-major depth buffer with selectable precision.
+ * Depth values are normalized to [0, 1] with 0 at the near plane. Each entry
+ * carries the generation it was written in, so {@link #clear()} only bumps
+ * the current generation and never touches memory, except for a real clear
+ * when the generation counter wraps around.
+ */
+public class DepthBuffer {
+    public enum Precision {
+        BITS_16(16),   // 16-bit depth, 16-bit generation tag in one int
+        BITS_24(24),   // 24-bit depth, 8-bit generation tag in one int
+        BITS_32(32);   // 32-bit float depth, separate 8-bit generation tag
+
+        public final int bits;
+
+        Precision(int bits) {
+            this.bits = bits;
+        }
+    }
+
+    private final int width;
+    private final int height;
+    private final Precision precision;
+
+    // Packed tag and depth for 16/24-bit, raw float bits for 32-bit
+    private final int[] values;
+    // Generation tags for 32-bit precision only
+    private final byte[] tags;
+
+    private final int depthBits;
+    private final int depthMask;
+    private final double depthScale;
+    private final int maxGeneration;
+    private int generation;
+
+    public DepthBuffer(int width, int height) {
+        this(width, height, Precision.BITS_24);
+    }
+
+    public DepthBuffer(int width, int height, Precision precision) {
+        this.width = width;
+        this.height = height;
+        this.precision = precision;
+        this.values = new int[width * height];
+
+        if (precision == Precision.BITS_32) {
+            this.tags = new byte[width * height];
+            this.depthBits = 32;
+            this.depthMask = -1;
+            this.depthScale = 1.0;
+            this.maxGeneration = 255;
+        } else {
+            this.tags = null;
+            this.depthBits = precision.bits;
+            this.depthMask = (1 << depthBits) - 1;
+            this.depthScale = depthMask;
+            this.maxGeneration = (1 << (32 - depthBits)) - 1;
+        }
+        this.generation = 1;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public Precision getPrecision() {
+        return precision;
+    }
+
+    // Mark every entry as far; O(1) except when the generation counter wraps
+    public void clear() {
+        if (generation == maxGeneration) {
+            Arrays.fill(values, 0);
+            if (tags != null) {
+                Arrays.fill(tags, (byte) 0);
+            }
+            generation = 1;
+        } else {
+            generation++;
+        }
+    }
+
+    /**
+     * Depth test at a pixel index: if depth (in [0, 1]) is strictly nearer
+     * than the stored value, store it and return true.
+     */
+    public boolean testAndSet(int index, double depth) {
+        if (tags != null) {
+            int bits = Float.floatToRawIntBits((float) depth);
+            // Non-negative floats order the same as their bit patterns
+            if (tags[index] != (byte) generation || bits < values[index]) {
+                tags[index] = (byte) generation;
+                values[index] = bits;
+                return true;
+            }
+            return false;
+        }
+
+        int quantized = (int) (depth * depthScale);
+        int entry = values[index];
+        if ((entry >>> depthBits) != generation || quantized < (entry & depthMask)) {
+            values[index] = (generation << depthBits) | quantized;
+            return true;
+        }
+        return false;
+    }
+
+    // Stored depth at a pixel index in [0, 1]; cleared entries read as 1
+    public double getDepth(int index) {
+        if (tags != null) {
+            return tags[index] == (byte) generation ? Float.intBitsToFloat(values[index]) : 1.0;
+        }
+        int entry = values[index];
+        return (entry >>> depthBits) == generation ? (entry & depthMask) / depthScale : 1.0;
+    }
+
+    public double getDepth(int x, int y) {
+        return getDepth(y * width + x);
+    }
+}
@@ -0,0 +1,200 @@
+package com.github.jordyh297.jrender;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Two-stage frame pipeline: the calling thread transforms, culls, clips
+ * and lights a frame's meshes with a {@link Renderer3D}, while a raster
+ * thread fills the triangles of the frame before it. The stages meet in
+ * a {@link TriangleRing}, so once the ring is full the faster stage
+ * waits for the slower one, and a frame takes about as long as the slower
+ * stage instead of both together.
+ * <p>
+ * The raster thread draws into its own image and depth buffer, the size
+ * of the renderer, and passes each finished frame to a listener. The
+ * renderer's buffers are not used while the pipeline runs, and the
+ * renderer always takes the software rasterizer path. Occlusion culling
+ * is skipped, since the depth it tests against is still being drawn.
+ */
+public class FramePipeline {
+    /**
+     * Receives each finished frame on the raster thread. The image is
+     * drawn into again once this returns, so copy it to keep it.
+     */
+    public interface FrameListener {
+        void frameRasterized(long frame, BufferedImage image);
+    }
+    
+    private final Renderer3D renderer;
+    private final FrameListener listener;
+    private final TriangleRing ring;
+    private Thread rasterThread;
+    
+    // Geometry stage: the batch being filled and the frames begun and ended so far
+    private TriangleRing.Batch current;
+    private long framesBegun;
+    private long framesEnded;
+    
+    // Raster stage progress and the first error it hit
+    private long framesRasterized;
+    private volatile Throwable failure;
+    
+    // A ring of 8 batches of 4096 triangles
+    public FramePipeline(Renderer3D renderer, FrameListener listener) {
+        this(renderer, 8, 4096, listener);
+    }
+    
+    public FramePipeline(Renderer3D renderer, int batchCount, int trianglesPerBatch, FrameListener listener) {
+        this.renderer = renderer;
+        this.listener = listener;
+        this.ring = new TriangleRing(batchCount, trianglesPerBatch);
+    }
+    
+    // Start the raster thread and route the renderer's triangles into the ring
+    public synchronized void start() {
+        if (rasterThread != null) return;
+        BufferedImage target = renderer.getBuffer();
+        int width = target.getWidth();
+        int height = target.getHeight();
+        DepthBuffer.Precision precision = renderer.getDepthBuffer().getPrecision();
+        rasterThread = new Thread(() -> rasterize(width, height, precision), "jrender-raster");
+        rasterThread.setDaemon(true);
+        rasterThread.start();
+        renderer.setPipeline(this);
+    }
+    
+    /**
+     * Finish rasterizing the frames already ended, stop the raster thread
+     * and give the renderer its own buffers back. Call on the thread that
+     * drives the frames.
+     */
+    public void stop() throws InterruptedException {
+        Thread thread;
+        synchronized (this) {
+            thread = rasterThread;
+            rasterThread = null;
+        }
+        if (thread == null) return;
+        renderer.setPipeline(null);
+        TriangleRing.Batch batch = ring.claim();
+        batch.shutdown = true;
+        ring.publish();
+        thread.join();
+    }
+    
+    /**
+     * Start a frame cleared to the given color. Submit meshes to the
+     * renderer as usual, then call endFrame() here instead of on it.
+     */
+    public void beginFrame(Color clearColor) {
+        checkFailure();
+        if (rasterThread == null) {
+            throw new IllegalStateException("pipeline is not running");
+        }
+        current = ring.claim();
+        current.frameStart = true;
+        current.clearColor = clearColor.getRGB();
+        current.frame = ++framesBegun;
+        renderer.getStats().reset();
+        renderer.beginFrame();
+    }
+    
+    /**
+     * Process the frame's geometry into the ring and return without
+     * waiting for it to be rasterized.
+     */
+    public void endFrame() {
+        renderer.endFrame();
+        current.frameEnd = true;
+        ring.publish();
+        current = null;
+        framesEnded++;
+    }
+    
+    /**
+     * Wait until every ended frame has been rasterized and passed to the
+     * listener. A frame still open is not waited for.
+     */
+    public synchronized void finish() throws InterruptedException {
+        while (framesRasterized < framesEnded && failure == null) {
+            wait();
+        }
+        checkFailure();
+    }
+    
+    public synchronized long getFramesRasterized() {
+        return framesRasterized;
+    }
+    
+    // Called by the renderer for each screen-space triangle of the current frame
+    void emit(double x1, double y1, double z1,
+              double x2, double y2, double z2,
+              double x3, double y3, double z3, int argb) {
+        if (current.isFull()) {
+            ring.publish();
+            current = ring.claim();
+        }
+        current.add(x1, y1, z1, x2, y2, z2, x3, y3, z3, argb);
+    }
+    
+    private void checkFailure() {
+        Throwable t = failure;
+        if (t != null) {
+            throw new IllegalStateException("raster stage failed", t);
+        }
+    }
+    
+    // Raster stage: fill each batch's triangles into this thread's own target
+    private void rasterize(int width, int height, DepthBuffer.Precision precision) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        DepthBuffer depthBuffer = new DepthBuffer(width, height, precision);
+        Rasterizer rasterizer = new Rasterizer(pixels, depthBuffer);
+        long frame = 0;
+        
+        while (true) {
+            TriangleRing.Batch batch = ring.take();
+            if (batch.shutdown) {
+                ring.release();
+                return;
+            }
+            boolean frameEnd = batch.frameEnd;
+            // After a failure keep draining, so the geometry stage never blocks on a full ring
+            if (failure == null) {
+                try {
+                    if (batch.frameStart) {
+                        frame = batch.frame;
+                        Arrays.fill(pixels, batch.clearColor);
+                        depthBuffer.clear();
+                    }
+                    double[] v = batch.vertices;
+                    for (int t = 0, i = 0; t < batch.count; t++, i += 9) {
+                        rasterizer.fillTriangle(v[i], v[i + 1], v[i + 2], v[i + 3], v[i + 4], v[i + 5],
+                            v[i + 6], v[i + 7], v[i + 8], batch.colors[t]);
+                    }
+                    ring.release();
+                    batch = null;
+                    if (frameEnd) {
+                        listener.frameRasterized(frame, image);
+                    }
+                } catch (Throwable t) {
+                    failure = t;
+                }
+            }
+            if (batch != null) {
+                ring.release();
+            }
+            if (frameEnd || failure != null) {
+                synchronized (this) {
+                    if (frameEnd) {
+                        framesRasterized++;
+                    }
+                    notifyAll();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.github.jordyh297.jrender;
+
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Renders frames on a dedicated thread and hands finished ones to the
+ * event dispatch thread, which only has to draw an image. Event handlers
+ * stay responsive however long a frame takes to render.
+ * <p>
+ * The renderer draws into one of two or three images in turn. With two,
+ * the render thread waits while the EDT still shows the image it would
+ * draw into next. With three it never waits, and a finished frame that
+ * was never shown is reused for the next one and counted as dropped.
+ * <p>
+ * Once started, the renderer and everything the frame renderer reads
+ * belong to the render thread. Hand input to it with {@link #invokeLater}
+ * rather than changing the scene from event handlers.
+ */
+public class FramePresenter {
+    // Frame rate cap until setTargetFrameRate() says otherwise
+    public static final double DEFAULT_FRAME_RATE = 60;
+    
+    /**
+     * Draws one frame into the renderer's current buffer, scene and
+     * overlays alike. Called on the render thread.
+     */
+    public interface FrameRenderer {
+        void renderFrame(Renderer3D renderer, double deltaTime);
+    }
+    
+    private final Renderer3D renderer;
+    private final Component display;
+    private final FrameRenderer frameRenderer;
+    
+    // Images not in use, the finished frame waiting for the EDT, and the one it shows
+    private final Object lock = new Object();
+    private final ArrayDeque<BufferedImage> free = new ArrayDeque<>();
+    private BufferedImage pending;
+    private BufferedImage front;
+    
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private int requestedWidth;
+    private int requestedHeight;
+    private final FrameScheduler scheduler = new FrameScheduler(60, DEFAULT_FRAME_RATE);
+    private volatile boolean running;
+    private volatile long framesRendered;
+    private volatile long framesDropped;
+    private Thread thread;
+    
+    /**
+     * Present frames drawn by a frame renderer into the given renderer,
+     * repainting display after each. bufferCount is 2 or 3.
+     */
+    public FramePresenter(Renderer3D renderer, Component display, int bufferCount, FrameRenderer frameRenderer) {
+        if (bufferCount < 2 || bufferCount > 3) {
+            throw new IllegalArgumentException("bufferCount must be 2 or 3");
+        }
+        this.renderer = renderer;
+        this.display = display;
+        this.frameRenderer = frameRenderer;
+        BufferedImage current = renderer.getBuffer();
+        for (int i = 1; i < bufferCount; i++) {
+            free.push(createImage(current.getWidth(), current.getHeight()));
+        }
+    }
+    
+    // Cap the frame rate, DEFAULT_FRAME_RATE unless set; 0 renders as fast as the buffers allow
+    public void setTargetFrameRate(double framesPerSecond) {
+        scheduler.setFrameRate(framesPerSecond);
+    }
+    
+    /**
+     * Pacing for the render thread, with 60 fixed update steps a second.
+     * Frame renderers run their updates through it and it reports frame
+     * times and missed deadlines.
+     */
+    public FrameScheduler getScheduler() {
+        return scheduler;
+    }
+    
+    public synchronized void start() {
+        if (thread != null) return;
+        running = true;
+        thread = new Thread(this::run, "jrender-render");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    // Stop after the frame in progress and wait for the render thread to finish
+    public void stop() {
+        Thread t;
+        synchronized (this) {
+            t = thread;
+            thread = null;
+        }
+        if (t == null) return;
+        running = false;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+        if (t != Thread.currentThread()) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    public boolean isRunning() {
+        return running;
+    }
+    
+    // Run a task on the render thread before the next frame
+    public void invokeLater(Runnable task) {
+        tasks.add(task);
+    }
+    
+    // Resize the renderer before the next frame, e.g. from componentResized
+    public void resize(int width, int height) {
+        if (width <= 0 || height <= 0) return;
+        synchronized (lock) {
+            requestedWidth = width;
+            requestedHeight = height;
+        }
+    }
+    
+    /**
+     * Latest finished frame, or null before the first. Call on the EDT;
+     * the image is not drawn into again until a later call returns
+     * another one.
+     */
+    public BufferedImage latestFrame() {
+        synchronized (lock) {
+            if (pending != null) {
+                if (front != null) {
+                    free.push(front);
+                }
+                front = pending;
+                pending = null;
+                lock.notifyAll();
+            }
+            return front;
+        }
+    }
+    
+    // Draw the latest finished frame at the origin
+    public void paint(Graphics g) {
+        BufferedImage frame = latestFrame();
+        if (frame != null) {
+            g.drawImage(frame, 0, 0, null);
+        }
+    }
+    
+    public long getFramesRendered() {
+        return framesRendered;
+    }
+    
+    // Finished frames replaced by a newer one before the EDT showed them
+    public long getFramesDropped() {
+        return framesDropped;
+    }
+    
+    private void run() {
+        try {
+            while (running) {
+                double deltaTime = scheduler.beginFrame();
+                
+                applyResize();
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+                
+                frameRenderer.renderFrame(renderer, deltaTime);
+                framesRendered++;
+                if (!publish()) break;
+                display.repaint();
+                scheduler.endFrame();
+            }
+        } finally {
+            running = false;
+        }
+    }
+    
+    // Queue the finished frame and move the renderer to a free image; false if stopped while waiting
+    private boolean publish() {
+        BufferedImage finished = renderer.getBuffer();
+        BufferedImage next;
+        synchronized (lock) {
+            if (pending != null) {
+                free.push(pending);
+                framesDropped++;
+            }
+            pending = finished;
+            while (free.isEmpty()) {
+                if (!running) return false;
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            next = free.pop();
+        }
+        if (next.getWidth() != finished.getWidth() || next.getHeight() != finished.getHeight()) {
+            next = createImage(finished.getWidth(), finished.getHeight());
+        }
+        renderer.swapBuffer(next);
+        return true;
+    }
+    
+    private void applyResize() {
+        int width;
+        int height;
+        synchronized (lock) {
+            width = requestedWidth;
+            height = requestedHeight;
+            requestedWidth = 0;
+            requestedHeight = 0;
+        }
+        if (width == 0) return;
+        BufferedImage current = renderer.getBuffer();
+        if (width == current.getWidth() && height == current.getHeight()) return;
+        renderer.resize(width, height);
+    }
+    
+    private static BufferedImage createImage(int width, int height) {
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+}
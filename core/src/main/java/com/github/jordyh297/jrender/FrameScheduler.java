@@ -0,0 +1,189 @@
+package com.github.jordyh297.jrender;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Paces a render loop: simulation updates run at a fixed timestep while
+ * frames are drawn at their own, optionally capped, rate. Call
+ * {@link #beginFrame()} at the start of each frame, {@link #update} to run
+ * the steps that are due, and {@link #endFrame()} to wait for the next
+ * frame's deadline.
+ * <p>
+ * Waits park the thread until the deadline instead of polling. A frame
+ * that overruns its slot does not make the following ones hurry: the
+ * missed slots are skipped and counted as dropped, and updates that fall
+ * more than a few steps behind are discarded rather than replayed.
+ * <p>
+ * Use a scheduler from one thread; the statistics may be read from any.
+ */
+public class FrameScheduler {
+    /**
+     * Advances the simulation by one fixed step.
+     */
+    public interface Updater {
+        void update(double step);
+    }
+    
+    // Steps run at most per frame before the backlog is dropped
+    private static final int MAX_STEPS_PER_FRAME = 5;
+    
+    // Frame times kept for percentiles
+    private static final int HISTORY = 256;
+    
+    private final long stepNanos;
+    private volatile long frameNanos;
+    
+    private long frameStart = -1;
+    private long deadline;
+    private long accumulator;
+    
+    private final long[] frameTimes = new long[HISTORY];
+    private int frameTimeCount;
+    private int frameTimeNext;
+    private volatile long framesRendered;
+    private volatile long framesDropped;
+    private volatile long stepsDropped;
+    
+    /**
+     * Schedule updatesPerSecond fixed steps and at most framesPerSecond
+     * frames; 0 leaves the frame rate uncapped.
+     */
+    public FrameScheduler(double updatesPerSecond, double framesPerSecond) {
+        if (!(updatesPerSecond > 0)) {
+            throw new IllegalArgumentException("updatesPerSecond must be positive");
+        }
+        this.stepNanos = (long) (1_000_000_000L / updatesPerSecond);
+        setFrameRate(framesPerSecond);
+    }
+    
+    // Cap the frame rate; 0 draws frames as fast as the loop allows
+    public void setFrameRate(double framesPerSecond) {
+        frameNanos = framesPerSecond > 0 ? (long) (1_000_000_000L / framesPerSecond) : 0;
+    }
+    
+    // Length of one update step in seconds
+    public double getStep() {
+        return stepNanos / 1_000_000_000.0;
+    }
+    
+    /**
+     * Start a frame and return the seconds since the previous one started,
+     * or 0 for the first.
+     */
+    public double beginFrame() {
+        long now = System.nanoTime();
+        if (frameStart < 0) {
+            frameStart = now;
+            deadline = now;
+            return 0;
+        }
+        long elapsed = now - frameStart;
+        frameStart = now;
+        accumulator += elapsed;
+        recordFrameTime(elapsed);
+        return elapsed / 1_000_000_000.0;
+    }
+    
+    /**
+     * Run the fixed steps that are due and return how many ran. Time more
+     * than a few steps behind is dropped so a slow frame cannot trigger a
+     * spiral of catch-up work.
+     */
+    public int update(Updater updater) {
+        int steps = 0;
+        while (accumulator >= stepNanos && steps < MAX_STEPS_PER_FRAME) {
+            updater.update(getStep());
+            accumulator -= stepNanos;
+            steps++;
+        }
+        if (accumulator >= stepNanos) {
+            stepsDropped += accumulator / stepNanos;
+            accumulator %= stepNanos;
+        }
+        return steps;
+    }
+    
+    // Fraction of a step left over after update(), for interpolating between states
+    public double getInterpolation() {
+        return (double) accumulator / stepNanos;
+    }
+    
+    /**
+     * Finish a frame and park until the next one is due. When the frame
+     * ran past one or more later deadlines, those slots are skipped.
+     */
+    public void endFrame() {
+        framesRendered++;
+        long interval = frameNanos;
+        long now = System.nanoTime();
+        if (interval <= 0) {
+            deadline = now;
+            return;
+        }
+        
+        deadline += interval;
+        if (now - deadline >= 0) {
+            // Behind: drop the slots already missed and aim for the next one
+            long missed = (now - deadline) / interval + 1;
+            framesDropped += missed;
+            deadline += missed * interval;
+        }
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            // parkNanos may return early, so check the deadline again
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+    
+    public long getFramesRendered() {
+        return framesRendered;
+    }
+    
+    // Frame slots skipped because a frame ran past its deadline
+    public long getFramesDropped() {
+        return framesDropped;
+    }
+    
+    // Update steps discarded because the simulation fell too far behind
+    public long getStepsDropped() {
+        return stepsDropped;
+    }
+    
+    /**
+     * Frame time in milliseconds at a percentile between 0 and 100 over
+     * the last few hundred frames, or 0 before any.
+     */
+    public synchronized double getFrameTimePercentile(double percentile) {
+        if (frameTimeCount == 0) return 0;
+        long[] sorted = Arrays.copyOf(frameTimes, frameTimeCount);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * frameTimeCount) - 1;
+        index = Math.max(0, Math.min(frameTimeCount - 1, index));
+        return sorted[index] / 1_000_000.0;
+    }
+    
+    // Frames per second over the recorded frame times
+    public synchronized double getAverageFrameRate() {
+        if (frameTimeCount == 0) return 0;
+        long total = 0;
+        for (int i = 0; i < frameTimeCount; i++) {
+            total += frameTimes[i];
+        }
+        return total > 0 ? frameTimeCount * 1_000_000_000.0 / total : 0;
+    }
+    
+    public synchronized void resetStatistics() {
+        frameTimeCount = 0;
+        frameTimeNext = 0;
+        framesRendered = 0;
+        framesDropped = 0;
+        stepsDropped = 0;
+    }
+    
+    private synchronized void recordFrameTime(long nanos) {
+        frameTimes[frameTimeNext] = nanos;
+        frameTimeNext = (frameTimeNext + 1) % HISTORY;
+        frameTimeCount = Math.min(frameTimeCount + 1, HISTORY);
+    }
+}
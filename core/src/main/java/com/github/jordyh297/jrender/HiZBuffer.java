@@ -0,0 +1,160 @@
+package com.github.jordyh297.jrender;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical-Z pyramid: low-resolution levels that hold the farthest depth
+ * stored in the depth buffer over each block of pixels. A screen rectangle
+ * whose nearest depth is behind every covering block is fully hidden.
+ */
+public class HiZBuffer {
+    // Level 0 covers BLOCK_SIZE x BLOCK_SIZE pixels per cell
+    private static final int BLOCK_SHIFT = 3;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+    // Largest cell span per axis tested before moving to a coarser level
+    private static final int MAX_TEST_CELLS = 4;
+
+    private final int width;
+    private final int height;
+    private final float[][] levels;
+    private final int[] levelWidths;
+    private final int[] levelHeights;
+
+    public HiZBuffer(int width, int height) {
+        this.width = width;
+        this.height = height;
+
+        int count = 1;
+        int w = (width + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+        int h = (height + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+        while (w > 1 || h > 1) {
+            w = (w + 1) >> 1;
+            h = (h + 1) >> 1;
+            count++;
+        }
+
+        levels = new float[count][];
+        levelWidths = new int[count];
+        levelHeights = new int[count];
+        w = (width + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+        h = (height + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+        for (int level = 0; level < count; level++) {
+            levels[level] = new float[w * h];
+            levelWidths[level] = w;
+            levelHeights[level] = h;
+            w = (w + 1) >> 1;
+            h = (h + 1) >> 1;
+        }
+        reset();
+    }
+
+    // Match a freshly cleared depth buffer
+    public void reset() {
+        for (float[] level : levels) {
+            Arrays.fill(level, 1.0f);
+        }
+    }
+
+    /**
+     * Rebuild the pyramid over a pixel rectangle [minX, maxX) x [minY, maxY)
+     * after the depth buffer has been written there.
+     */
+    public void update(DepthBuffer depthBuffer, int minX, int minY, int maxX, int maxY) {
+        minX = Math.max(0, minX);
+        minY = Math.max(0, minY);
+        maxX = Math.min(width, maxX);
+        maxY = Math.min(height, maxY);
+        if (minX >= maxX || minY >= maxY) return;
+
+        // Level 0 straight from the depth buffer
+        int cx0 = minX >> BLOCK_SHIFT;
+        int cy0 = minY >> BLOCK_SHIFT;
+        int cx1 = (maxX - 1) >> BLOCK_SHIFT;
+        int cy1 = (maxY - 1) >> BLOCK_SHIFT;
+        float[] base = levels[0];
+        int baseWidth = levelWidths[0];
+        for (int cy = cy0; cy <= cy1; cy++) {
+            int py0 = cy << BLOCK_SHIFT;
+            int py1 = Math.min(height, py0 + BLOCK_SIZE);
+            for (int cx = cx0; cx <= cx1; cx++) {
+                int px0 = cx << BLOCK_SHIFT;
+                int px1 = Math.min(width, px0 + BLOCK_SIZE);
+                double max = 0.0;
+                for (int py = py0; py < py1; py++) {
+                    int index = py * width + px0;
+                    for (int px = px0; px < px1; px++, index++) {
+                        double depth = depthBuffer.getDepth(index);
+                        if (depth > max) max = depth;
+                    }
+                }
+                // Round up so the float never claims a nearer depth than stored
+                float stored = (float) max;
+                base[cy * baseWidth + cx] = stored < max ? Math.nextUp(stored) : stored;
+            }
+        }
+
+        // Coarser levels from the level below
+        for (int level = 1; level < levels.length; level++) {
+            cx0 >>= 1;
+            cy0 >>= 1;
+            cx1 >>= 1;
+            cy1 >>= 1;
+            float[] below = levels[level - 1];
+            int belowWidth = levelWidths[level - 1];
+            int belowHeight = levelHeights[level - 1];
+            float[] cells = levels[level];
+            int cellWidth = levelWidths[level];
+            for (int cy = cy0; cy <= cy1; cy++) {
+                for (int cx = cx0; cx <= cx1; cx++) {
+                    int bx = cx << 1;
+                    int by = cy << 1;
+                    float max = below[by * belowWidth + bx];
+                    if (bx + 1 < belowWidth) {
+                        max = Math.max(max, below[by * belowWidth + bx + 1]);
+                    }
+                    if (by + 1 < belowHeight) {
+                        max = Math.max(max, below[(by + 1) * belowWidth + bx]);
+                        if (bx + 1 < belowWidth) {
+                            max = Math.max(max, below[(by + 1) * belowWidth + bx + 1]);
+                        }
+                    }
+                    cells[cy * cellWidth + cx] = max;
+                }
+            }
+        }
+    }
+
+    /**
+     * True if everything inside the pixel rectangle [minX, maxX) x [minY, maxY)
+     * at depth minDepth or farther is hidden behind stored depth.
+     */
+    public boolean isOccluded(int minX, int minY, int maxX, int maxY, double minDepth) {
+        minX = Math.max(0, minX);
+        minY = Math.max(0, minY);
+        maxX = Math.min(width, maxX);
+        maxY = Math.min(height, maxY);
+        if (minX >= maxX || minY >= maxY) return false;
+
+        // Pick the finest level where the rectangle spans only a few cells
+        int level = 0;
+        int shift = BLOCK_SHIFT;
+        while (level < levels.length - 1
+                && (((maxX - 1) >> shift) - (minX >> shift) >= MAX_TEST_CELLS
+                    || ((maxY - 1) >> shift) - (minY >> shift) >= MAX_TEST_CELLS)) {
+            level++;
+            shift++;
+        }
+
+        float[] cells = levels[level];
+        int cellWidth = levelWidths[level];
+        for (int cy = minY >> shift; cy <= (maxY - 1) >> shift; cy++) {
+            for (int cx = minX >> shift; cx <= (maxX - 1) >> shift; cx++) {
+                if (cells[cy * cellWidth + cx] >= minDepth) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
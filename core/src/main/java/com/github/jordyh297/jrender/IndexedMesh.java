@@ -0,0 +1,237 @@
+package com.github.jordyh297.jrender;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Triangle mesh stored as primitive arrays: shared vertices packed as xyz
+ * triplets and an index buffer with three entries per triangle. Uses a
+ * fraction of the memory of an equivalent {@link Mesh} and is transformed
+ * as a flat array.
+ */
+public class IndexedMesh implements Renderable {
+    // Per vertex: positions and normals as xyz triplets, colors as ARGB
+    public final float[] positions;
+    public final float[] normals;
+    public final int[] colors;
+    
+    // Per triangle: three vertex indices and a flat ARGB color
+    public final int[] indices;
+    public final int[] faceColors;
+    
+    public Vector3D position;
+    public Vector3D rotation;
+    public Vector3D scale;
+    
+    // Model matrix cache, rebuilt when position, rotation or scale change
+    private final Transform transform = new Transform();
+    
+    // Bounds and picking caches, recomputed on invalidateBounds()
+    private BoundingBox bounds;
+    private BoundingSphere boundingSphere;
+    private TriangleBVH triangleBVH;
+    
+    public IndexedMesh(float[] positions, float[] normals, int[] colors, int[] indices, int[] faceColors) {
+        if (positions.length % 3 != 0) {
+            throw new IllegalArgumentException("positions must hold xyz triplets");
+        }
+        int vertexCount = positions.length / 3;
+        if (normals.length != positions.length || colors.length != vertexCount) {
+            throw new IllegalArgumentException("normals and colors must match the vertex count");
+        }
+        if (indices.length % 3 != 0 || faceColors.length != indices.length / 3) {
+            throw new IllegalArgumentException("indices must hold one triplet per face color");
+        }
+        for (int index : indices) {
+            if (index < 0 || index >= vertexCount) {
+                throw new IllegalArgumentException("index out of range: " + index);
+            }
+        }
+        
+        this.positions = positions;
+        this.normals = normals;
+        this.colors = colors;
+        this.indices = indices;
+        this.faceColors = faceColors;
+        this.position = new Vector3D(0, 0, 0);
+        this.rotation = new Vector3D(0, 0, 0);
+        this.scale = new Vector3D(1, 1, 1);
+    }
+    
+    public int getVertexCount() {
+        return positions.length / 3;
+    }
+    
+    public int getTriangleCount() {
+        return indices.length / 3;
+    }
+    
+    /**
+     * Build an indexed mesh from a triangle list. Vertices with the same
+     * position, normal and color are stored once, and the transform is copied.
+     */
+    public static IndexedMesh fromMesh(Mesh mesh) {
+        int triangleCount = mesh.triangles.size();
+        Map<VertexKey, Integer> unique = new HashMap<>();
+        float[] positions = new float[triangleCount * 9];
+        float[] normals = new float[triangleCount * 9];
+        int[] colors = new int[triangleCount * 3];
+        int[] indices = new int[triangleCount * 3];
+        int[] faceColors = new int[triangleCount];
+        int vertexCount = 0;
+        
+        for (int t = 0; t < triangleCount; t++) {
+            Triangle tri = mesh.triangles.get(t);
+            faceColors[t] = tri.color.getRGB();
+            
+            Vertex[] corners = {tri.v1, tri.v2, tri.v3};
+            for (int k = 0; k < 3; k++) {
+                Vertex v = corners[k];
+                VertexKey key = new VertexKey(v);
+                Integer index = unique.get(key);
+                if (index == null) {
+                    index = vertexCount++;
+                    unique.put(key, index);
+                    int p = index * 3;
+                    positions[p] = key.px;
+                    positions[p + 1] = key.py;
+                    positions[p + 2] = key.pz;
+                    normals[p] = key.nx;
+                    normals[p + 1] = key.ny;
+                    normals[p + 2] = key.nz;
+                    colors[index] = key.argb;
+                }
+                indices[t * 3 + k] = index;
+            }
+        }
+        
+        IndexedMesh result = new IndexedMesh(
+            Arrays.copyOf(positions, vertexCount * 3),
+            Arrays.copyOf(normals, vertexCount * 3),
+            Arrays.copyOf(colors, vertexCount),
+            indices, faceColors);
+        result.position = new Vector3D(mesh.position);
+        result.rotation = new Vector3D(mesh.rotation);
+        result.scale = new Vector3D(mesh.scale);
+        return result;
+    }
+    
+    // Expand back to a triangle list; triangles sharing an index share a Vertex
+    public Mesh toMesh() {
+        Vertex[] vertices = new Vertex[getVertexCount()];
+        for (int i = 0; i < vertices.length; i++) {
+            int p = i * 3;
+            vertices[i] = new Vertex(
+                new Vector3D(positions[p], positions[p + 1], positions[p + 2]),
+                new Vector3D(normals[p], normals[p + 1], normals[p + 2]),
+                new Color(colors[i], true));
+        }
+        
+        Mesh mesh = new Mesh();
+        for (int t = 0; t < getTriangleCount(); t++) {
+            int i = t * 3;
+            mesh.addTriangle(new Triangle(
+                vertices[indices[i]], vertices[indices[i + 1]], vertices[indices[i + 2]],
+                new Color(faceColors[t], true)));
+        }
+        mesh.position = new Vector3D(position);
+        mesh.rotation = new Vector3D(rotation);
+        mesh.scale = new Vector3D(scale);
+        return mesh;
+    }
+    
+    // Cached; call invalidateBounds() after editing positions. Must not be modified
+    @Override
+    public BoundingBox getBoundingBox() {
+        updateBounds();
+        return bounds;
+    }
+    
+    // Cached like getBoundingBox()
+    @Override
+    public BoundingSphere getBoundingSphere() {
+        updateBounds();
+        return boundingSphere;
+    }
+    
+    // Triangle hierarchy for ray casts, cached like getBoundingBox()
+    public TriangleBVH getTriangleBVH() {
+        if (triangleBVH == null) {
+            triangleBVH = new TriangleBVH(positions, indices);
+        }
+        return triangleBVH;
+    }
+    
+    // Recompute the bounds and picking hierarchy on next use, after positions were edited
+    public void invalidateBounds() {
+        bounds = null;
+        triangleBVH = null;
+    }
+    
+    private void updateBounds() {
+        if (bounds != null) return;
+        BoundingBox box = new BoundingBox();
+        Vector3D point = new Vector3D();
+        for (int p = 0; p < positions.length; p += 3) {
+            box.include(point.set(positions[p], positions[p + 1], positions[p + 2]));
+        }
+        BoundingSphere sphere = BoundingSphere.around(box);
+        for (int p = 0; p < positions.length; p += 3) {
+            sphere.include(positions[p], positions[p + 1], positions[p + 2]);
+        }
+        boundingSphere = sphere;
+        bounds = box;
+    }
+    
+    // Cached like Mesh.getTransformMatrix(); must not be modified
+    @Override
+    public Matrix4x4 getTransformMatrix() {
+        return transform.getMatrix(position, rotation, scale);
+    }
+    
+    // Inverse transpose of the model matrix, for transforming normals
+    public Matrix4x4 getNormalMatrix() {
+        getTransformMatrix();
+        return transform.getNormalMatrix();
+    }
+    
+    // Vertex attributes at the precision they are stored with, for deduplication
+    private static final class VertexKey {
+        final float px, py, pz;
+        final float nx, ny, nz;
+        final int argb;
+        
+        VertexKey(Vertex v) {
+            px = (float) v.position.x;
+            py = (float) v.position.y;
+            pz = (float) v.position.z;
+            nx = (float) v.normal.x;
+            ny = (float) v.normal.y;
+            nz = (float) v.normal.z;
+            argb = v.color.getRGB();
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof VertexKey)) return false;
+            VertexKey k = (VertexKey) o;
+            return Float.compare(px, k.px) == 0 && Float.compare(py, k.py) == 0
+                && Float.compare(pz, k.pz) == 0 && Float.compare(nx, k.nx) == 0
+                && Float.compare(ny, k.ny) == 0 && Float.compare(nz, k.nz) == 0
+                && argb == k.argb;
+        }
+        
+        @Override
+        public int hashCode() {
+            int h = Float.floatToIntBits(px);
+            h = 31 * h + Float.floatToIntBits(py);
+            h = 31 * h + Float.floatToIntBits(pz);
+            h = 31 * h + Float.floatToIntBits(nx);
+            h = 31 * h + Float.floatToIntBits(ny);
+            h = 31 * h + Float.floatToIntBits(nz);
+            return 31 * h + argb;
+        }
+    }
+}
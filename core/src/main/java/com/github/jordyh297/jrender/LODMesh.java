@@ -0,0 +1,135 @@
+package com.github.jordyh297.jrender;
+
+import java.awt.Color;
+
+/**
+ * A placed object with several levels of detail of the same shape, from
+ * full detail at level 0 to the coarsest last. {@link Renderer3D} draws
+ * the level that suits the object's projected size each frame, so
+ * distant objects cost a handful of triangles instead of their full mesh.
+ * <p>
+ * Level i replaces level i - 1 once the projected diameter of the bounding
+ * sphere drops below its switch size in pixels. To keep objects near a
+ * boundary from popping back and forth, a level is only left once the
+ * size is a hysteresis fraction past the boundary. That choice is kept
+ * per object, so share geometry between objects through the levels'
+ * {@link MeshData}, not by drawing one LODMesh in several places.
+ */
+public class LODMesh implements Renderable {
+    // Default projected pixels per triangle before the next level takes over
+    private static final double PIXELS_PER_TRIANGLE = 8.0;
+    
+    public Vector3D position;
+    public Vector3D rotation;
+    public Vector3D scale;
+    
+    // Material color for every face, or null to keep the levels' face colors
+    public Color color;
+    
+    // Fraction past a switch size needed to change level
+    public double hysteresis = 0.15;
+    
+    private final MeshData[] levels;
+    private final double[] switchSizes;
+    private int currentLevel;
+    
+    // Model matrix cache, rebuilt when position, rotation or scale change
+    private final Transform transform = new Transform();
+    
+    /**
+     * Use the given levels, finest first. Each level takes over when its
+     * finer neighbor would spend fewer than about eight pixels of the
+     * projected bounding circle on each triangle.
+     */
+    public LODMesh(MeshData... levels) {
+        if (levels.length == 0) {
+            throw new IllegalArgumentException("at least one level is required");
+        }
+        this.levels = levels.clone();
+        this.switchSizes = new double[levels.length];
+        for (int i = 1; i < levels.length; i++) {
+            // Diameter d at which the circle's pi/4 * d^2 pixels cover the finer level evenly
+            switchSizes[i] = Math.sqrt(4.0 * PIXELS_PER_TRIANGLE * levels[i - 1].getTriangleCount() / Math.PI);
+        }
+        this.position = new Vector3D(0, 0, 0);
+        this.rotation = new Vector3D(0, 0, 0);
+        this.scale = new Vector3D(1, 1, 1);
+    }
+    
+    // Build a chain from a mesh, each level with half the triangles of the last, down to a few dozen
+    public static LODMesh fromMesh(Mesh mesh) {
+        return new LODMesh(MeshSimplifier.buildLevels(MeshData.fromMesh(mesh), 16, 0.5, 24));
+    }
+    
+    public int getLevelCount() {
+        return levels.length;
+    }
+    
+    public MeshData getLevel(int level) {
+        return levels[level];
+    }
+    
+    // Level chosen by the last selectLevel()
+    public int getCurrentLevel() {
+        return currentLevel;
+    }
+    
+    public double getSwitchSize(int level) {
+        return switchSizes[level];
+    }
+    
+    // Projected diameter in pixels below which a level replaces the finer one
+    public void setSwitchSize(int level, double pixels) {
+        if (level < 1 || level >= levels.length) {
+            throw new IllegalArgumentException("level must be between 1 and " + (levels.length - 1));
+        }
+        switchSizes[level] = pixels;
+    }
+    
+    /**
+     * Move from the current level to the one for a projected diameter in
+     * pixels, with hysteresis, and return it.
+     */
+    public int selectLevel(double screenSize) {
+        currentLevel = levelFor(screenSize, currentLevel);
+        return currentLevel;
+    }
+    
+    /**
+     * Level for a projected diameter starting from a given level, without
+     * changing this object's choice. Use for instances that share it.
+     */
+    public int levelFor(double screenSize, int fromLevel) {
+        int level = fromLevel;
+        while (level + 1 < levels.length && screenSize < switchSizes[level + 1] * (1.0 - hysteresis)) {
+            level++;
+        }
+        while (level > 0 && screenSize > switchSizes[level] * (1.0 + hysteresis)) {
+            level--;
+        }
+        return level;
+    }
+    
+    // Cached like Mesh.getTransformMatrix(); must not be modified
+    @Override
+    public Matrix4x4 getTransformMatrix() {
+        return transform.getMatrix(position, rotation, scale);
+    }
+    
+    // Full-detail bounds, so culling does not change with the level; must not be modified
+    @Override
+    public BoundingBox getBoundingBox() {
+        return levels[0].getBoundingBox();
+    }
+    
+    // Full-detail bounding sphere; must not be modified
+    @Override
+    public BoundingSphere getBoundingSphere() {
+        return levels[0].getBoundingSphere();
+    }
+    
+    // Full-detail triangle hierarchy, so picking does not change with the level
+    public TriangleBVH getTriangleBVH() {
+        return levels[0].getTriangleBVH();
+    }
+}
@@ -34,6 +34,15 @@ public class Light {
         this.intensity = 1.0;
     }
     
+    // Copy of another light; the vectors are copied, not shared
+    public Light(Light other) {
+        this.type = other.type;
+        this.position = new Vector3D(other.position);
+        this.direction = new Vector3D(other.direction);
+        this.color = other.color;
+        this.intensity = other.intensity;
+    }
+    
     // Create a directional light
     public static Light createDirectional(Vector3D direction, Color color) {
         return new Light(LightType.DIRECTIONAL, direction, color);
@@ -52,33 +61,55 @@ public class Light {
     
     // Calculate lighting for a surface
     public Color calculateLighting(Vector3D surfacePoint, Vector3D normal, Color surfaceColor) {
+        return new Color(calculateLighting(surfacePoint, normal, surfaceColor.getRGB()));
+    }
+    
+    /**
+     * Calculate lighting for a surface color packed as ARGB. Returns this
+     * light's contribution as opaque packed RGB, without allocating.
+     */
+    public int calculateLighting(Vector3D surfacePoint, Vector3D normal, int surfaceColor) {
         if (type == LightType.AMBIENT) {
-            return multiplyColors(surfaceColor, color, intensity);
+            return multiplyColors(surfaceColor, color.getRGB(), intensity);
         }
         
-        Vector3D lightDir;
+        // Light direction as plain components so shading does not allocate
+        double lx, ly, lz;
         double attenuation = 1.0;
         
         if (type == LightType.DIRECTIONAL) {
-            lightDir = direction.multiply(-1).normalize();
+            lx = -direction.x;
+            ly = -direction.y;
+            lz = -direction.z;
         } else { // POINT
-            lightDir = position.subtract(surfacePoint);
-            double distance = lightDir.magnitude();
-            lightDir = lightDir.normalize();
+            lx = position.x - surfacePoint.x;
+            ly = position.y - surfacePoint.y;
+            lz = position.z - surfacePoint.z;
+            double distance = Math.sqrt(lx * lx + ly * ly + lz * lz);
             attenuation = 1.0 / (1.0 + 0.1 * distance + 0.01 * distance * distance);
         }
         
+        double length = Math.sqrt(lx * lx + ly * ly + lz * lz);
+        if (length <= 0.0001) {
+            lx = ly = lz = 0;
+        } else {
+            lx /= length;
+            ly /= length;
+            lz /= length;
+        }
+        
         // Diffuse lighting (Lambertian)
-        double diffuse = Math.max(0, normal.dot(lightDir));
+        double diffuse = Math.max(0, normal.x * lx + normal.y * ly + normal.z * lz);
         
         double finalIntensity = intensity * diffuse * attenuation;
-        return multiplyColors(surfaceColor, color, finalIntensity);
+        return multiplyColors(surfaceColor, color.getRGB(), finalIntensity);
     }
     
-    private Color multiplyColors(Color c1, Color c2, double intensity) {
-        int r = (int) Math.min(255, c1.getRed() * c2.getRed() / 255.0 * intensity);
-        int g = (int) Math.min(255, c1.getGreen() * c2.getGreen() / 255.0 * intensity);
-        int b = (int) Math.min(255, c1.getBlue() * c2.getBlue() / 255.0 * intensity);
-        return new Color(Math.max(0, r), Math.max(0, g), Math.max(0, b));
+    // Channel-wise product of two packed colors, scaled and clamped to 0..255
+    private static int multiplyColors(int c1, int c2, double intensity) {
+        int r = (int) Math.min(255, ((c1 >> 16) & 0xFF) * ((c2 >> 16) & 0xFF) / 255.0 * intensity);
+        int g = (int) Math.min(255, ((c1 >> 8) & 0xFF) * ((c2 >> 8) & 0xFF) / 255.0 * intensity);
+        int b = (int) Math.min(255, (c1 & 0xFF) * (c2 & 0xFF) / 255.0 * intensity);
+        return 0xFF000000 | Math.max(0, r) << 16 | Math.max(0, g) << 8 | Math.max(0, b);
     }
 }
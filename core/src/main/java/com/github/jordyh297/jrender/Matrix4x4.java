@@ -1,32 +1,82 @@
 package com.github.jordyh297.jrender;
 
+import java.util.Arrays;
+
 /**
  * Represents a 4x4 matrix for 3D transformations.
  * Used for translation, rotation, scaling, and projection.
+ * Elements are read and written with get(row, col) and set(row, col,
+ * value); internally they are stored flat in row-major order. The *Into
+ * methods write into caller-owned objects and never allocate.
  */
 public class Matrix4x4 {
-    public double[][] m;
+    // Row-major elements, m[row * 4 + col]
+    final double[] m;
     
     public Matrix4x4() {
-        m = new double[4][4];
+        m = new double[16];
+    }
+    
+    public Matrix4x4(Matrix4x4 other) {
+        m = other.m.clone();
+    }
+    
+    // Matrix from four rows of four elements
+    public Matrix4x4(double[][] rows) {
+        this();
+        if (rows.length != 4) {
+            throw new IllegalArgumentException("expected 4 rows, got " + rows.length);
+        }
+        for (int row = 0; row < 4; row++) {
+            if (rows[row].length != 4) {
+                throw new IllegalArgumentException("expected 4 columns in row " + row);
+            }
+            System.arraycopy(rows[row], 0, m, row * 4, 4);
+        }
+    }
+    
+    // A new array of four rows of four elements
+    public double[][] toRows() {
+        double[][] rows = new double[4][4];
+        for (int row = 0; row < 4; row++) {
+            System.arraycopy(m, row * 4, rows[row], 0, 4);
+        }
+        return rows;
+    }
+    
+    // Element at a row and column
+    public double get(int row, int col) {
+        return m[row * 4 + col];
+    }
+    
+    public void set(int row, int col, double value) {
+        m[row * 4 + col] = value;
+    }
+    
+    // Copy another matrix into this one
+    public Matrix4x4 set(Matrix4x4 other) {
+        System.arraycopy(other.m, 0, m, 0, 16);
+        return this;
+    }
+    
+    public Matrix4x4 setIdentity() {
+        for (int i = 0; i < 16; i++) {
+            m[i] = (i % 5 == 0) ? 1 : 0;
+        }
+        return this;
     }
     
     // Create identity matrix
     public static Matrix4x4 identity() {
-        Matrix4x4 matrix = new Matrix4x4();
-        matrix.m[0][0] = 1;
-        matrix.m[1][1] = 1;
-        matrix.m[2][2] = 1;
-        matrix.m[3][3] = 1;
-        return matrix;
+        return new Matrix4x4().setIdentity();
     }
     
     // Create translation matrix
     public static Matrix4x4 translation(double x, double y, double z) {
         Matrix4x4 matrix = identity();
-        matrix.m[0][3] = x;
-        matrix.m[1][3] = y;
-        matrix.m[2][3] = z;
+        matrix.m[3] = x;
+        matrix.m[7] = y;
+        matrix.m[11] = z;
         return matrix;
     }
     
@@ -35,10 +85,10 @@ public class Matrix4x4 {
         Matrix4x4 matrix = identity();
         double cos = Math.cos(angle);
         double sin = Math.sin(angle);
-        matrix.m[1][1] = cos;
-        matrix.m[1][2] = -sin;
-        matrix.m[2][1] = sin;
-        matrix.m[2][2] = cos;
+        matrix.m[5] = cos;
+        matrix.m[6] = -sin;
+        matrix.m[9] = sin;
+        matrix.m[10] = cos;
         return matrix;
     }
     
@@ -47,10 +97,10 @@ public class Matrix4x4 {
         Matrix4x4 matrix = identity();
         double cos = Math.cos(angle);
         double sin = Math.sin(angle);
-        matrix.m[0][0] = cos;
-        matrix.m[0][2] = sin;
-        matrix.m[2][0] = -sin;
-        matrix.m[2][2] = cos;
+        matrix.m[0] = cos;
+        matrix.m[2] = sin;
+        matrix.m[8] = -sin;
+        matrix.m[10] = cos;
         return matrix;
     }
     
@@ -59,85 +109,298 @@ public class Matrix4x4 {
         Matrix4x4 matrix = identity();
         double cos = Math.cos(angle);
         double sin = Math.sin(angle);
-        matrix.m[0][0] = cos;
-        matrix.m[0][1] = -sin;
-        matrix.m[1][0] = sin;
-        matrix.m[1][1] = cos;
+        matrix.m[0] = cos;
+        matrix.m[1] = -sin;
+        matrix.m[4] = sin;
+        matrix.m[5] = cos;
         return matrix;
     }
     
     // Create scaling matrix
     public static Matrix4x4 scaling(double x, double y, double z) {
         Matrix4x4 matrix = identity();
-        matrix.m[0][0] = x;
-        matrix.m[1][1] = y;
-        matrix.m[2][2] = z;
+        matrix.m[0] = x;
+        matrix.m[5] = y;
+        matrix.m[10] = z;
         return matrix;
     }
     
+    /**
+     * Set this matrix to scaling(scale) * rotationX * rotationY * rotationZ *
+     * translation(position) in closed form, the same product Mesh has always
+     * used, without building the intermediate matrices.
+     */
+    public Matrix4x4 setTransform(Vector3D position, Vector3D rotation, Vector3D scale) {
+        double cx = Math.cos(rotation.x), sx = Math.sin(rotation.x);
+        double cy = Math.cos(rotation.y), sy = Math.sin(rotation.y);
+        double cz = Math.cos(rotation.z), sz = Math.sin(rotation.z);
+        
+        // Rotation Rx * Ry * Rz, each row scaled by the matching scale axis
+        double r00 = scale.x * (cy * cz);
+        double r01 = scale.x * (-cy * sz);
+        double r02 = scale.x * sy;
+        double r10 = scale.y * (sx * sy * cz + cx * sz);
+        double r11 = scale.y * (-sx * sy * sz + cx * cz);
+        double r12 = scale.y * (-sx * cy);
+        double r20 = scale.z * (-cx * sy * cz + sx * sz);
+        double r21 = scale.z * (cx * sy * sz + sx * cz);
+        double r22 = scale.z * (cx * cy);
+        
+        double tx = position.x, ty = position.y, tz = position.z;
+        m[0] = r00; m[1] = r01; m[2] = r02; m[3] = r00 * tx + r01 * ty + r02 * tz;
+        m[4] = r10; m[5] = r11; m[6] = r12; m[7] = r10 * tx + r11 * ty + r12 * tz;
+        m[8] = r20; m[9] = r21; m[10] = r22; m[11] = r20 * tx + r21 * ty + r22 * tz;
+        m[12] = 0; m[13] = 0; m[14] = 0; m[15] = 1;
+        return this;
+    }
+    
     // Create perspective projection matrix
     public static Matrix4x4 perspective(double fov, double aspectRatio, double near, double far) {
-        Matrix4x4 matrix = new Matrix4x4();
+        return new Matrix4x4().setPerspective(fov, aspectRatio, near, far);
+    }
+    
+    // Set this matrix to a perspective projection, as perspective() creates
+    public Matrix4x4 setPerspective(double fov, double aspectRatio, double near, double far) {
         double tanHalfFov = Math.tan(fov / 2.0);
         
-        matrix.m[0][0] = 1.0 / (aspectRatio * tanHalfFov);
-        matrix.m[1][1] = 1.0 / tanHalfFov;
-        matrix.m[2][2] = -(far + near) / (far - near);
-        matrix.m[2][3] = -(2.0 * far * near) / (far - near);
-        matrix.m[3][2] = -1.0;
-        matrix.m[3][3] = 0.0;
+        Arrays.fill(m, 0.0);
+        m[0] = 1.0 / (aspectRatio * tanHalfFov);
+        m[5] = 1.0 / tanHalfFov;
+        m[10] = -(far + near) / (far - near);
+        m[11] = -(2.0 * far * near) / (far - near);
+        m[14] = -1.0;
+        m[15] = 0.0;
         
-        return matrix;
+        return this;
     }
     
     // Create look-at matrix (view matrix)
     public static Matrix4x4 lookAt(Vector3D eye, Vector3D target, Vector3D up) {
-        Vector3D zAxis = eye.subtract(target).normalize();
-        Vector3D xAxis = up.cross(zAxis).normalize();
-        Vector3D yAxis = zAxis.cross(xAxis);
-        
-        Matrix4x4 matrix = identity();
-        matrix.m[0][0] = xAxis.x;
-        matrix.m[0][1] = xAxis.y;
-        matrix.m[0][2] = xAxis.z;
-        matrix.m[0][3] = -xAxis.dot(eye);
+        return new Matrix4x4().setLookAt(eye, target, up);
+    }
+    
+    /**
+     * Set this matrix to a view matrix, as lookAt() creates, working on
+     * the components directly instead of through temporary vectors.
+     */
+    public Matrix4x4 setLookAt(Vector3D eye, Vector3D target, Vector3D up) {
+        // z axis: from target to eye, normalized like Vector3D.normalize()
+        double zx = eye.x - target.x, zy = eye.y - target.y, zz = eye.z - target.z;
+        double length = Math.sqrt(zx * zx + zy * zy + zz * zz);
+        if (length > 0.0001) {
+            zx /= length; zy /= length; zz /= length;
+        } else {
+            zx = 0; zy = 0; zz = 0;
+        }
         
-        matrix.m[1][0] = yAxis.x;
-        matrix.m[1][1] = yAxis.y;
-        matrix.m[1][2] = yAxis.z;
-        matrix.m[1][3] = -yAxis.dot(eye);
+        // x axis: up cross z, normalized
+        double xx = up.y * zz - up.z * zy;
+        double xy = up.z * zx - up.x * zz;
+        double xz = up.x * zy - up.y * zx;
+        length = Math.sqrt(xx * xx + xy * xy + xz * xz);
+        if (length > 0.0001) {
+            xx /= length; xy /= length; xz /= length;
+        } else {
+            xx = 0; xy = 0; xz = 0;
+        }
         
-        matrix.m[2][0] = zAxis.x;
-        matrix.m[2][1] = zAxis.y;
-        matrix.m[2][2] = zAxis.z;
-        matrix.m[2][3] = -zAxis.dot(eye);
+        // y axis: z cross x
+        double yx = zy * xz - zz * xy;
+        double yy = zz * xx - zx * xz;
+        double yz = zx * xy - zy * xx;
         
-        return matrix;
+        m[0] = xx; m[1] = xy; m[2] = xz; m[3] = -(xx * eye.x + xy * eye.y + xz * eye.z);
+        m[4] = yx; m[5] = yy; m[6] = yz; m[7] = -(yx * eye.x + yy * eye.y + yz * eye.z);
+        m[8] = zx; m[9] = zy; m[10] = zz; m[11] = -(zx * eye.x + zy * eye.y + zz * eye.z);
+        m[12] = 0; m[13] = 0; m[14] = 0; m[15] = 1;
+        return this;
     }
     
     // Matrix multiplication
     public Matrix4x4 multiply(Matrix4x4 other) {
+        return multiplyInto(other, new Matrix4x4());
+    }
+    
+    /**
+     * dst = this * other. dst may be this or other.
+     */
+    public Matrix4x4 multiplyInto(Matrix4x4 other, Matrix4x4 dst) {
+        double[] a = m;
+        double[] b = other.m;
+        double[] d = dst.m;
+        
+        // Read all of other first so dst may alias it
+        double b00 = b[0], b01 = b[1], b02 = b[2], b03 = b[3];
+        double b10 = b[4], b11 = b[5], b12 = b[6], b13 = b[7];
+        double b20 = b[8], b21 = b[9], b22 = b[10], b23 = b[11];
+        double b30 = b[12], b31 = b[13], b32 = b[14], b33 = b[15];
+        
+        // Each row of this is read before the same row of dst is written
+        for (int r = 0; r < 16; r += 4) {
+            double a0 = a[r], a1 = a[r + 1], a2 = a[r + 2], a3 = a[r + 3];
+            d[r] = a0 * b00 + a1 * b10 + a2 * b20 + a3 * b30;
+            d[r + 1] = a0 * b01 + a1 * b11 + a2 * b21 + a3 * b31;
+            d[r + 2] = a0 * b02 + a1 * b12 + a2 * b22 + a3 * b32;
+            d[r + 3] = a0 * b03 + a1 * b13 + a2 * b23 + a3 * b33;
+        }
+        return dst;
+    }
+    
+    // Inverse of this matrix; throws IllegalStateException if it is singular
+    public Matrix4x4 inverse() {
         Matrix4x4 result = new Matrix4x4();
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 4; j++) {
-                result.m[i][j] = 0;
-                for (int k = 0; k < 4; k++) {
-                    result.m[i][j] += m[i][k] * other.m[k][j];
-                }
-            }
+        if (!inverseInto(result)) {
+            throw new IllegalStateException("Matrix is not invertible");
         }
         return result;
     }
     
+    /**
+     * dst = inverse of this, by cofactor expansion. Returns false and
+     * leaves dst unchanged if the matrix is singular. dst may be this.
+     */
+    public boolean inverseInto(Matrix4x4 dst) {
+        double[] a = m;
+        
+        // 2x2 determinants of the top two and bottom two rows
+        double s0 = a[0] * a[5] - a[4] * a[1];
+        double s1 = a[0] * a[6] - a[4] * a[2];
+        double s2 = a[0] * a[7] - a[4] * a[3];
+        double s3 = a[1] * a[6] - a[5] * a[2];
+        double s4 = a[1] * a[7] - a[5] * a[3];
+        double s5 = a[2] * a[7] - a[6] * a[3];
+        double c5 = a[10] * a[15] - a[14] * a[11];
+        double c4 = a[9] * a[15] - a[13] * a[11];
+        double c3 = a[9] * a[14] - a[13] * a[10];
+        double c2 = a[8] * a[15] - a[12] * a[11];
+        double c1 = a[8] * a[14] - a[12] * a[10];
+        double c0 = a[8] * a[13] - a[12] * a[9];
+        
+        double det = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+        if (Math.abs(det) < 1e-12) return false;
+        double inv = 1.0 / det;
+        
+        double d0 = (a[5] * c5 - a[6] * c4 + a[7] * c3) * inv;
+        double d1 = (-a[1] * c5 + a[2] * c4 - a[3] * c3) * inv;
+        double d2 = (a[13] * s5 - a[14] * s4 + a[15] * s3) * inv;
+        double d3 = (-a[9] * s5 + a[10] * s4 - a[11] * s3) * inv;
+        double d4 = (-a[4] * c5 + a[6] * c2 - a[7] * c1) * inv;
+        double d5 = (a[0] * c5 - a[2] * c2 + a[3] * c1) * inv;
+        double d6 = (-a[12] * s5 + a[14] * s2 - a[15] * s1) * inv;
+        double d7 = (a[8] * s5 - a[10] * s2 + a[11] * s1) * inv;
+        double d8 = (a[4] * c4 - a[5] * c2 + a[7] * c0) * inv;
+        double d9 = (-a[0] * c4 + a[1] * c2 - a[3] * c0) * inv;
+        double d10 = (a[12] * s4 - a[13] * s2 + a[15] * s0) * inv;
+        double d11 = (-a[8] * s4 + a[9] * s2 - a[11] * s0) * inv;
+        double d12 = (-a[4] * c3 + a[5] * c1 - a[6] * c0) * inv;
+        double d13 = (a[0] * c3 - a[1] * c1 + a[2] * c0) * inv;
+        double d14 = (-a[12] * s3 + a[13] * s1 - a[14] * s0) * inv;
+        double d15 = (a[8] * s3 - a[9] * s1 + a[10] * s0) * inv;
+        
+        double[] d = dst.m;
+        d[0] = d0; d[1] = d1; d[2] = d2; d[3] = d3;
+        d[4] = d4; d[5] = d5; d[6] = d6; d[7] = d7;
+        d[8] = d8; d[9] = d9; d[10] = d10; d[11] = d11;
+        d[12] = d12; d[13] = d13; d[14] = d14; d[15] = d15;
+        return true;
+    }
+    
+    // Transform a point to homogeneous coordinates (x, y, z, w) without dividing by w
+    public void transformHomogeneous(Vector3D v, double[] out) {
+        out[0] = m[0] * v.x + m[1] * v.y + m[2] * v.z + m[3];
+        out[1] = m[4] * v.x + m[5] * v.y + m[6] * v.z + m[7];
+        out[2] = m[8] * v.x + m[9] * v.y + m[10] * v.z + m[11];
+        out[3] = m[12] * v.x + m[13] * v.y + m[14] * v.z + m[15];
+    }
+    
     // Transform a 3D vector
     public Vector3D transform(Vector3D v) {
-        double w = m[3][0] * v.x + m[3][1] * v.y + m[3][2] * v.z + m[3][3];
+        return transformInto(v, new Vector3D());
+    }
+    
+    /**
+     * Transform a point with perspective divide into dst. dst may be src.
+     */
+    public Vector3D transformInto(Vector3D src, Vector3D dst) {
+        double x = src.x, y = src.y, z = src.z;
+        double w = m[12] * x + m[13] * y + m[14] * z + m[15];
         if (Math.abs(w) < 0.0001) w = 1.0;
         
-        return new Vector3D(
-            (m[0][0] * v.x + m[0][1] * v.y + m[0][2] * v.z + m[0][3]) / w,
-            (m[1][0] * v.x + m[1][1] * v.y + m[1][2] * v.z + m[1][3]) / w,
-            (m[2][0] * v.x + m[2][1] * v.y + m[2][2] * v.z + m[2][3]) / w
-        );
+        dst.x = (m[0] * x + m[1] * y + m[2] * z + m[3]) / w;
+        dst.y = (m[4] * x + m[5] * y + m[6] * z + m[7]) / w;
+        dst.z = (m[8] * x + m[9] * y + m[10] * z + m[11]) / w;
+        return dst;
+    }
+    
+    /**
+     * Transform count points packed as xyz triplets, with perspective divide
+     * as in {@link #transform(Vector3D)}. in and out may be the same array.
+     */
+    public void transformArray(float[] in, float[] out, int count) {
+        double m00 = m[0], m01 = m[1], m02 = m[2], m03 = m[3];
+        double m10 = m[4], m11 = m[5], m12 = m[6], m13 = m[7];
+        double m20 = m[8], m21 = m[9], m22 = m[10], m23 = m[11];
+        double m30 = m[12], m31 = m[13], m32 = m[14], m33 = m[15];
+        
+        for (int i = 0, p = 0; i < count; i++, p += 3) {
+            double x = in[p], y = in[p + 1], z = in[p + 2];
+            double w = m30 * x + m31 * y + m32 * z + m33;
+            if (Math.abs(w) < 0.0001) w = 1.0;
+            out[p] = (float) ((m00 * x + m01 * y + m02 * z + m03) / w);
+            out[p + 1] = (float) ((m10 * x + m11 * y + m12 * z + m13) / w);
+            out[p + 2] = (float) ((m20 * x + m21 * y + m22 * z + m23) / w);
+        }
+    }
+    
+    // As transformArray, keeping the results in double precision
+    public void transformArray(float[] in, double[] out, int count) {
+        double m00 = m[0], m01 = m[1], m02 = m[2], m03 = m[3];
+        double m10 = m[4], m11 = m[5], m12 = m[6], m13 = m[7];
+        double m20 = m[8], m21 = m[9], m22 = m[10], m23 = m[11];
+        double m30 = m[12], m31 = m[13], m32 = m[14], m33 = m[15];
+        
+        for (int i = 0, p = 0; i < count; i++, p += 3) {
+            double x = in[p], y = in[p + 1], z = in[p + 2];
+            double w = m30 * x + m31 * y + m32 * z + m33;
+            if (Math.abs(w) < 0.0001) w = 1.0;
+            out[p] = (m00 * x + m01 * y + m02 * z + m03) / w;
+            out[p + 1] = (m10 * x + m11 * y + m12 * z + m13) / w;
+            out[p + 2] = (m20 * x + m21 * y + m22 * z + m23) / w;
+        }
+    }
+    
+    /**
+     * Transform count points packed as xyz triplets to homogeneous xyzw
+     * quadruples in out, without dividing by w.
+     */
+    public void transformArrayHomogeneous(float[] in, float[] out, int count) {
+        double m00 = m[0], m01 = m[1], m02 = m[2], m03 = m[3];
+        double m10 = m[4], m11 = m[5], m12 = m[6], m13 = m[7];
+        double m20 = m[8], m21 = m[9], m22 = m[10], m23 = m[11];
+        double m30 = m[12], m31 = m[13], m32 = m[14], m33 = m[15];
+        
+        for (int i = 0, p = 0, q = 0; i < count; i++, p += 3, q += 4) {
+            double x = in[p], y = in[p + 1], z = in[p + 2];
+            out[q] = (float) (m00 * x + m01 * y + m02 * z + m03);
+            out[q + 1] = (float) (m10 * x + m11 * y + m12 * z + m13);
+            out[q + 2] = (float) (m20 * x + m21 * y + m22 * z + m23);
+            out[q + 3] = (float) (m30 * x + m31 * y + m32 * z + m33);
+        }
+    }
+    
+    // As transformArrayHomogeneous, keeping the results in double precision
+    public void transformArrayHomogeneous(float[] in, double[] out, int count) {
+        double m00 = m[0], m01 = m[1], m02 = m[2], m03 = m[3];
+        double m10 = m[4], m11 = m[5], m12 = m[6], m13 = m[7];
+        double m20 = m[8], m21 = m[9], m22 = m[10], m23 = m[11];
+        double m30 = m[12], m31 = m[13], m32 = m[14], m33 = m[15];
+        
+        for (int i = 0, p = 0, q = 0; i < count; i++, p += 3, q += 4) {
+            double x = in[p], y = in[p + 1], z = in[p + 2];
+            out[q] = m00 * x + m01 * y + m02 * z + m03;
+            out[q + 1] = m10 * x + m11 * y + m12 * z + m13;
+            out[q + 2] = m20 * x + m21 * y + m22 * z + m23;
+            out[q + 3] = m30 * x + m31 * y + m32 * z + m33;
+        }
     }
 }
@@ -0,0 +1,131 @@
+package com.github.jordyh297.jrender;
+
+/**
+ * Single-precision 4x4 matrix, stored flat in row-major order.
+ * Float counterpart of {@link Matrix4x4} for batch vertex work on float
+ * arrays, where half the memory traffic matters more than precision.
+ * None of the methods allocate.
+ */
+public class Matrix4x4f {
+    // Row-major elements, m[row * 4 + col]
+    final float[] m;
+    
+    public Matrix4x4f() {
+        m = new float[16];
+    }
+    
+    public Matrix4x4f(Matrix4x4 other) {
+        this();
+        set(other);
+    }
+    
+    public static Matrix4x4f identity() {
+        return new Matrix4x4f().setIdentity();
+    }
+    
+    public float get(int row, int col) {
+        return m[row * 4 + col];
+    }
+    
+    public void set(int row, int col, float value) {
+        m[row * 4 + col] = value;
+    }
+    
+    public Matrix4x4f set(Matrix4x4f other) {
+        System.arraycopy(other.m, 0, m, 0, 16);
+        return this;
+    }
+    
+    // Copy a double-precision matrix, rounding each element
+    public Matrix4x4f set(Matrix4x4 other) {
+        for (int i = 0; i < 16; i++) {
+            m[i] = (float) other.m[i];
+        }
+        return this;
+    }
+    
+    public Matrix4x4f setIdentity() {
+        for (int i = 0; i < 16; i++) {
+            m[i] = (i % 5 == 0) ? 1f : 0f;
+        }
+        return this;
+    }
+    
+    /**
+     * dst = this * other. dst may be this or other.
+     */
+    public Matrix4x4f multiplyInto(Matrix4x4f other, Matrix4x4f dst) {
+        float[] a = m;
+        float[] b = other.m;
+        float[] d = dst.m;
+        
+        // Read all of other first so dst may alias it
+        float b00 = b[0], b01 = b[1], b02 = b[2], b03 = b[3];
+        float b10 = b[4], b11 = b[5], b12 = b[6], b13 = b[7];
+        float b20 = b[8], b21 = b[9], b22 = b[10], b23 = b[11];
+        float b30 = b[12], b31 = b[13], b32 = b[14], b33 = b[15];
+        
+        for (int r = 0; r < 16; r += 4) {
+            float a0 = a[r], a1 = a[r + 1], a2 = a[r + 2], a3 = a[r + 3];
+            d[r] = a0 * b00 + a1 * b10 + a2 * b20 + a3 * b30;
+            d[r + 1] = a0 * b01 + a1 * b11 + a2 * b21 + a3 * b31;
+            d[r + 2] = a0 * b02 + a1 * b12 + a2 * b22 + a3 * b32;
+            d[r + 3] = a0 * b03 + a1 * b13 + a2 * b23 + a3 * b33;
+        }
+        return dst;
+    }
+    
+    /**
+     * Transform a point with perspective divide into dst. dst may be src.
+     */
+    public Vector3D transformInto(Vector3D src, Vector3D dst) {
+        double x = src.x, y = src.y, z = src.z;
+        double w = m[12] * x + m[13] * y + m[14] * z + m[15];
+        if (Math.abs(w) < 0.0001) w = 1.0;
+        
+        dst.x = (m[0] * x + m[1] * y + m[2] * z + m[3]) / w;
+        dst.y = (m[4] * x + m[5] * y + m[6] * z + m[7]) / w;
+        dst.z = (m[8] * x + m[9] * y + m[10] * z + m[11]) / w;
+        return dst;
+    }
+    
+    /**
+     * Transform count points packed as xyz triplets, with perspective divide.
+     * in and out may be the same array.
+     */
+    public void transformArray(float[] in, float[] out, int count) {
+        float m00 = m[0], m01 = m[1], m02 = m[2], m03 = m[3];
+        float m10 = m[4], m11 = m[5], m12 = m[6], m13 = m[7];
+        float m20 = m[8], m21 = m[9], m22 = m[10], m23 = m[11];
+        float m30 = m[12], m31 = m[13], m32 = m[14], m33 = m[15];
+        
+        for (int i = 0, p = 0; i < count; i++, p += 3) {
+            float x = in[p], y = in[p + 1], z = in[p + 2];
+            float w = m30 * x + m31 * y + m32 * z + m33;
+            if (Math.abs(w) < 0.0001f) w = 1f;
+            float invW = 1f / w;
+            out[p] = (m00 * x + m01 * y + m02 * z + m03) * invW;
+            out[p + 1] = (m10 * x + m11 * y + m12 * z + m13) * invW;
+            out[p + 2] = (m20 * x + m21 * y + m22 * z + m23) * invW;
+        }
+    }
+    
+    /**
+     * Transform count points packed as xyz triplets to homogeneous xyzw
+     * quadruples in out, without dividing by w.
+     */
+    public void transformArrayHomogeneous(float[] in, float[] out, int count) {
+        float m00 = m[0], m01 = m[1], m02 = m[2], m03 = m[3];
+        float m10 = m[4], m11 = m[5], m12 = m[6], m13 = m[7];
+        float m20 = m[8], m21 = m[9], m22 = m[10], m23 = m[11];
+        float m30 = m[12], m31 = m[13], m32 = m[14], m33 = m[15];
+        
+        for (int i = 0, p = 0, q = 0; i < count; i++, p += 3, q += 4) {
+            float x = in[p], y = in[p + 1], z = in[p + 2];
+            out[q] = m00 * x + m01 * y + m02 * z + m03;
+            out[q + 1] = m10 * x + m11 * y + m12 * z + m13;
+            out[q + 2] = m20 * x + m21 * y + m22 * z + m23;
+            out[q + 3] = m30 * x + m31 * y + m32 * z + m33;
+        }
+    }
+}
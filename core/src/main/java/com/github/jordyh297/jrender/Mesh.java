@@ -7,12 +7,26 @@ import java.util.List;
 /**
  * Represents a 3D mesh composed of triangles.
  */
-public class Mesh {
+public class Mesh implements Renderable {
     public List<Triangle> triangles;
     public Vector3D position;
     public Vector3D rotation;
     public Vector3D scale;
     
+    // Model matrix cache, rebuilt when position, rotation or scale change
+    private final Transform transform = new Transform();
+    
+    // Bounds cache, recomputed when the triangle list changes or on invalidateBounds()
+    private BoundingBox bounds;
+    private BoundingSphere boundingSphere;
+    private List<Triangle> boundsTriangles;
+    private int boundsTriangleCount;
+    
+    // Picking cache, rebuilt like the bounds
+    private TriangleBVH triangleBVH;
+    private List<Triangle> bvhTriangles;
+    private int bvhTriangleCount;
+    
     public Mesh() {
         triangles = new ArrayList<>();
         position = new Vector3D(0, 0, 0);
@@ -22,6 +36,7 @@ public class Mesh {
     
     public void addTriangle(Triangle triangle) {
         triangles.add(triangle);
+        invalidateBounds();
     }
     
     // Create a cube mesh
@@ -109,21 +124,78 @@ public class Mesh {
         return mesh;
     }
     
-    // Get transformation matrix for this mesh
+    /**
+     * Object-space bounding box of all vertices. It is cached; adding or
+     * removing triangles is noticed, but after moving vertices in place call
+     * {@link #invalidateBounds()}. The returned box must not be modified.
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        updateBounds();
+        return bounds;
+    }
+    
+    // Cached like getBoundingBox(): centered on the box, just enclosing every vertex
+    @Override
+    public BoundingSphere getBoundingSphere() {
+        updateBounds();
+        return boundingSphere;
+    }
+    
+    /**
+     * Triangle hierarchy for ray casts. Cached and invalidated like
+     * {@link #getBoundingBox()}; hits index into {@code triangles}.
+     */
+    public TriangleBVH getTriangleBVH() {
+        if (triangleBVH == null || bvhTriangles != triangles || bvhTriangleCount != triangles.size()) {
+            triangleBVH = TriangleBVH.fromTriangles(triangles);
+            bvhTriangles = triangles;
+            bvhTriangleCount = triangles.size();
+        }
+        return triangleBVH;
+    }
+    
+    // Recompute the bounds and picking hierarchy on next use, after vertices were edited in place
+    public void invalidateBounds() {
+        bounds = null;
+        triangleBVH = null;
+    }
+    
+    private void updateBounds() {
+        if (bounds != null && boundsTriangles == triangles && boundsTriangleCount == triangles.size()) {
+            return;
+        }
+        BoundingBox box = new BoundingBox();
+        for (Triangle tri : triangles) {
+            box.include(tri.v1.position);
+            box.include(tri.v2.position);
+            box.include(tri.v3.position);
+        }
+        BoundingSphere sphere = BoundingSphere.around(box);
+        for (Triangle tri : triangles) {
+            sphere.include(tri.v1.position);
+            sphere.include(tri.v2.position);
+            sphere.include(tri.v3.position);
+        }
+        boundingSphere = sphere;
+        boundsTriangles = triangles;
+        boundsTriangleCount = triangles.size();
+        bounds = box;
+    }
+    
+    /**
+     * Get transformation matrix for this mesh: scale * rotation X/Y/Z *
+     * translation. It is cached until position, rotation or scale change,
+     * so the returned matrix must not be modified.
+     */
+    @Override
     public Matrix4x4 getTransformMatrix() {
-        Matrix4x4 transform = Matrix4x4.identity();
-        
-        // Scale
-        transform = transform.multiply(Matrix4x4.scaling(scale.x, scale.y, scale.z));
-        
-        // Rotation
-        transform = transform.multiply(Matrix4x4.rotationX(rotation.x));
-        transform = transform.multiply(Matrix4x4.rotationY(rotation.y));
-        transform = transform.multiply(Matrix4x4.rotationZ(rotation.z));
-        
-        // Translation
-        transform = transform.multiply(Matrix4x4.translation(position.x, position.y, position.z));
-        
-        return transform;
+        return transform.getMatrix(position, rotation, scale);
+    }
+    
+    // Inverse transpose of the model matrix, for transforming normals
+    public Matrix4x4 getNormalMatrix() {
+        getTransformMatrix();
+        return transform.getNormalMatrix();
     }
 }
@@ -0,0 +1,110 @@
+package com.github.jordyh297.jrender;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable indexed geometry that any number of {@link SceneObject}s can
+ * share. It has no transform of its own: drawn directly it sits at the
+ * origin, and it is the natural geometry for
+ * {@link Renderer3D#renderInstanced(Renderable, Matrix4x4[], java.awt.Color[])}.
+ * The arrays are copied on construction and never exposed, so a MeshData
+ * can be used from any thread.
+ */
+public final class MeshData implements Renderable {
+    private static final Matrix4x4 IDENTITY = Matrix4x4.identity();
+    
+    // Primitive singletons keyed by shape and parameters
+    private static final Map<String, MeshData> PRIMITIVES = new ConcurrentHashMap<>();
+    
+    // Same layout as IndexedMesh; package-private for the renderer only
+    final float[] positions;
+    final float[] normals;
+    final int[] colors;
+    final int[] indices;
+    final int[] faceColors;
+    private final BoundingBox bounds;
+    private final BoundingSphere boundingSphere;
+    
+    // Built on first pick; a race only builds it twice
+    private volatile TriangleBVH triangleBVH;
+    
+    public MeshData(float[] positions, float[] normals, int[] colors, int[] indices, int[] faceColors) {
+        // Validate through IndexedMesh so both types accept the same arrays
+        this(new IndexedMesh(positions.clone(), normals.clone(), colors.clone(),
+            indices.clone(), faceColors.clone()));
+    }
+    
+    // Takes ownership of the arrays of a freshly built, unshared IndexedMesh
+    private MeshData(IndexedMesh mesh) {
+        this.positions = mesh.positions;
+        this.normals = mesh.normals;
+        this.colors = mesh.colors;
+        this.indices = mesh.indices;
+        this.faceColors = mesh.faceColors;
+        this.bounds = mesh.getBoundingBox();
+        this.boundingSphere = mesh.getBoundingSphere();
+    }
+    
+    // Snapshot the geometry of a triangle mesh, sharing duplicate vertices
+    public static MeshData fromMesh(Mesh mesh) {
+        return new MeshData(IndexedMesh.fromMesh(mesh));
+    }
+    
+    // Snapshot the geometry of an indexed mesh
+    public static MeshData fromIndexedMesh(IndexedMesh mesh) {
+        return new MeshData(mesh.positions, mesh.normals, mesh.colors, mesh.indices, mesh.faceColors);
+    }
+    
+    // Shared cube geometry, created once per size
+    public static MeshData cube(double size) {
+        return PRIMITIVES.computeIfAbsent("cube/" + size, key -> fromMesh(Mesh.createCube(size)));
+    }
+    
+    // Shared pyramid geometry, created once per size
+    public static MeshData pyramid(double size) {
+        return PRIMITIVES.computeIfAbsent("pyramid/" + size, key -> fromMesh(Mesh.createPyramid(size)));
+    }
+    
+    public int getVertexCount() {
+        return positions.length / 3;
+    }
+    
+    public int getTriangleCount() {
+        return indices.length / 3;
+    }
+    
+    // A mutable copy with its own transform
+    public IndexedMesh toIndexedMesh() {
+        return new IndexedMesh(positions.clone(), normals.clone(), colors.clone(),
+            indices.clone(), faceColors.clone());
+    }
+    
+    // Cached object-space bounds; the returned box must not be modified
+    @Override
+    public BoundingBox getBoundingBox() {
+        return bounds;
+    }
+    
+    // Cached object-space bounding sphere; must not be modified
+    @Override
+    public BoundingSphere getBoundingSphere() {
+        return boundingSphere;
+    }
+    
+    // Triangle hierarchy for ray casts, shared by every object using this geometry
+    public TriangleBVH getTriangleBVH() {
+        TriangleBVH bvh = triangleBVH;
+        if (bvh == null) {
+            bvh = new TriangleBVH(positions, indices);
+            triangleBVH = bvh;
+        }
+        return bvh;
+    }
+    
+    // Geometry is drawn where it was modeled; the returned matrix must not be modified
+    @Override
+    public Matrix4x4 getTransformMatrix() {
+        return IDENTITY;
+    }
+}
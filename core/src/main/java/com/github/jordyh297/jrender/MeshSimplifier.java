@@ -0,0 +1,536 @@
+package com.github.jordyh297.jrender;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Reduces the triangle count of geometry by repeatedly collapsing the
+ * edge whose removal changes the surface least, measured with quadric
+ * error metrics (Garland and Heckbert). Open borders are held in place by
+ * extra planes along them, and collapses that would fold a face over or
+ * pinch the surface into a non-manifold shape are skipped.
+ * <p>
+ * Vertices are welded by position before simplifying, so meshes stored
+ * with separate corners per face still collapse across their seams. Face
+ * colors are kept; vertex normals of the result are recomputed from its
+ * faces. The output for a given input is always the same.
+ */
+public final class MeshSimplifier {
+    // Scale of the planes that keep open borders from shrinking
+    private static final double BOUNDARY_WEIGHT = 1000.0;
+    
+    private MeshSimplifier() {
+    }
+    
+    // Simplify to at most targetTriangles, or as far as the surface allows
+    public static MeshData simplify(MeshData mesh, int targetTriangles) {
+        return new Collapser(mesh.positions, mesh.colors, mesh.indices, mesh.faceColors).run(targetTriangles);
+    }
+    
+    public static MeshData simplify(Mesh mesh, int targetTriangles) {
+        return simplify(MeshData.fromMesh(mesh), targetTriangles);
+    }
+    
+    /**
+     * Detail levels for a level-of-detail chain: the mesh itself, then each
+     * level simplified from the previous one to ratio of its triangles.
+     * Stops after maxLevels, below minTriangles, or when a level can no
+     * longer be reduced noticeably.
+     */
+    public static MeshData[] buildLevels(MeshData mesh, int maxLevels, double ratio, int minTriangles) {
+        if (maxLevels < 1 || !(ratio > 0 && ratio < 1)) {
+            throw new IllegalArgumentException("need at least one level and a ratio between 0 and 1");
+        }
+        List<MeshData> levels = new ArrayList<>();
+        levels.add(mesh);
+        MeshData previous = mesh;
+        while (levels.size() < maxLevels) {
+            int target = (int) (previous.getTriangleCount() * ratio);
+            if (target < minTriangles) break;
+            MeshData next = simplify(previous, target);
+            if (next.getTriangleCount() > previous.getTriangleCount() * 0.9) break;
+            levels.add(next);
+            previous = next;
+        }
+        return levels.toArray(new MeshData[0]);
+    }
+    
+    // A possible collapse of edge (a, b) to a point, valid while both versions match
+    private static final class Candidate implements Comparable<Candidate> {
+        final double cost;
+        final int a, b;
+        final int versionA, versionB;
+        final double x, y, z;
+        
+        Candidate(double cost, int a, int b, int versionA, int versionB, double x, double y, double z) {
+            this.cost = cost;
+            this.a = a;
+            this.b = b;
+            this.versionA = versionA;
+            this.versionB = versionB;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+        
+        // Ties broken by vertex so the result does not depend on queue internals
+        @Override
+        public int compareTo(Candidate o) {
+            int c = Double.compare(cost, o.cost);
+            if (c != 0) return c;
+            c = Integer.compare(a, o.a);
+            return c != 0 ? c : Integer.compare(b, o.b);
+        }
+    }
+    
+    private static final class Collapser {
+        // Welded vertices
+        final int vertexCount;
+        final double[] position;
+        final int[] color;
+        final double[] quadric;
+        final int[] version;
+        final boolean[] removed;
+        
+        // Faces and the faces around each vertex (dead faces are skipped, not unlinked)
+        final int[] faces;
+        final int[] faceColors;
+        final boolean[] faceDead;
+        int liveFaces;
+        int[][] vertexFaces;
+        int[] vertexFaceCount;
+        
+        final PriorityQueue<Candidate> queue = new PriorityQueue<>();
+        final int[] mark;
+        int markStamp;
+        final double[] point = new double[3];
+        final double[] combined = new double[10];
+        final double[] normalBefore = new double[3];
+        final double[] normalAfter = new double[3];
+        
+        Collapser(float[] positions, int[] colors, int[] indices, int[] sourceFaceColors) {
+            // Weld vertices with identical positions
+            int sourceCount = positions.length / 3;
+            Integer[] sorted = new Integer[sourceCount];
+            for (int i = 0; i < sourceCount; i++) {
+                sorted[i] = i;
+            }
+            Arrays.sort(sorted, (i, j) -> comparePosition(positions, i, j));
+            int[] weld = new int[sourceCount];
+            int count = 0;
+            for (int k = 0; k < sourceCount; k++) {
+                if (k > 0 && comparePosition(positions, sorted[k - 1], sorted[k]) != 0) count++;
+                weld[sorted[k]] = count;
+            }
+            vertexCount = sourceCount == 0 ? 0 : count + 1;
+            
+            position = new double[vertexCount * 3];
+            color = new int[vertexCount];
+            for (int i = sourceCount - 1; i >= 0; i--) {
+                // Lowest source index wins the color
+                int w = weld[i];
+                position[w * 3] = positions[i * 3];
+                position[w * 3 + 1] = positions[i * 3 + 1];
+                position[w * 3 + 2] = positions[i * 3 + 2];
+                color[w] = colors[i];
+            }
+            quadric = new double[vertexCount * 10];
+            version = new int[vertexCount];
+            removed = new boolean[vertexCount];
+            mark = new int[vertexCount];
+            
+            // Faces, without those that welding made degenerate
+            int faceCount = indices.length / 3;
+            faces = new int[faceCount * 3];
+            faceColors = new int[faceCount];
+            faceDead = new boolean[faceCount];
+            vertexFaces = new int[vertexCount][];
+            vertexFaceCount = new int[vertexCount];
+            for (int f = 0; f < faceCount; f++) {
+                int a = weld[indices[f * 3]];
+                int b = weld[indices[f * 3 + 1]];
+                int c = weld[indices[f * 3 + 2]];
+                faces[f * 3] = a;
+                faces[f * 3 + 1] = b;
+                faces[f * 3 + 2] = c;
+                faceColors[f] = sourceFaceColors[f];
+                if (a == b || b == c || a == c) {
+                    faceDead[f] = true;
+                    continue;
+                }
+                liveFaces++;
+                link(a, f);
+                link(b, f);
+                link(c, f);
+            }
+        }
+        
+        private static int comparePosition(float[] p, int i, int j) {
+            int c = Float.compare(p[i * 3], p[j * 3]);
+            if (c != 0) return c;
+            c = Float.compare(p[i * 3 + 1], p[j * 3 + 1]);
+            return c != 0 ? c : Float.compare(p[i * 3 + 2], p[j * 3 + 2]);
+        }
+        
+        private void link(int vertex, int face) {
+            int[] list = vertexFaces[vertex];
+            int n = vertexFaceCount[vertex];
+            if (list == null) {
+                list = vertexFaces[vertex] = new int[6];
+            } else if (n == list.length) {
+                list = vertexFaces[vertex] = Arrays.copyOf(list, n * 2);
+            }
+            list[n] = face;
+            vertexFaceCount[vertex] = n + 1;
+        }
+        
+        MeshData run(int targetTriangles) {
+            // Faces per edge, keyed by the vertex pair
+            Map<Long, Integer> edgeUse = new HashMap<>();
+            for (int f = 0; f < faceDead.length; f++) {
+                if (faceDead[f]) continue;
+                for (int k = 0; k < 3; k++) {
+                    edgeUse.merge(edgeKey(faces[f * 3 + k], faces[f * 3 + (k + 1) % 3]), 1, Integer::sum);
+                }
+            }
+            addFaceQuadrics();
+            addBoundaryQuadrics(edgeUse);
+            for (long key : edgeUse.keySet()) {
+                push((int) (key >>> 32), (int) key);
+            }
+            
+            while (liveFaces > targetTriangles && !queue.isEmpty()) {
+                Candidate c = queue.poll();
+                if (removed[c.a] || removed[c.b] || version[c.a] != c.versionA || version[c.b] != c.versionB) {
+                    continue;
+                }
+                collapse(c);
+            }
+            return output();
+        }
+        
+        private boolean contains(int face, int vertex) {
+            return faces[face * 3] == vertex || faces[face * 3 + 1] == vertex || faces[face * 3 + 2] == vertex;
+        }
+        
+        // Each face adds the squared distance to its plane, weighted by its area
+        private void addFaceQuadrics() {
+            double[] n = new double[3];
+            for (int f = 0; f < faceDead.length; f++) {
+                if (faceDead[f]) continue;
+                int a = faces[f * 3], b = faces[f * 3 + 1], c = faces[f * 3 + 2];
+                double area = faceNormal(a, b, c, n);
+                if (area <= 0) continue;
+                double d = -(n[0] * position[a * 3] + n[1] * position[a * 3 + 1] + n[2] * position[a * 3 + 2]);
+                addPlane(a, n[0], n[1], n[2], d, area);
+                addPlane(b, n[0], n[1], n[2], d, area);
+                addPlane(c, n[0], n[1], n[2], d, area);
+            }
+        }
+        
+        // Edges with one face get a steep plane through them, perpendicular to the face
+        private void addBoundaryQuadrics(Map<Long, Integer> edgeUse) {
+            double[] n = new double[3];
+            for (int f = 0; f < faceDead.length; f++) {
+                if (faceDead[f]) continue;
+                int a0 = faces[f * 3], b0 = faces[f * 3 + 1], c0 = faces[f * 3 + 2];
+                if (faceNormal(a0, b0, c0, n) <= 0) continue;
+                for (int k = 0; k < 3; k++) {
+                    int a = faces[f * 3 + k];
+                    int b = faces[f * 3 + (k + 1) % 3];
+                    if (edgeUse.get(edgeKey(a, b)) != 1) continue;
+                    
+                    double ex = position[b * 3] - position[a * 3];
+                    double ey = position[b * 3 + 1] - position[a * 3 + 1];
+                    double ez = position[b * 3 + 2] - position[a * 3 + 2];
+                    double px = ey * n[2] - ez * n[1];
+                    double py = ez * n[0] - ex * n[2];
+                    double pz = ex * n[1] - ey * n[0];
+                    double length = Math.sqrt(px * px + py * py + pz * pz);
+                    if (length == 0) continue;
+                    px /= length;
+                    py /= length;
+                    pz /= length;
+                    double d = -(px * position[a * 3] + py * position[a * 3 + 1] + pz * position[a * 3 + 2]);
+                    double weight = BOUNDARY_WEIGHT * (ex * ex + ey * ey + ez * ez);
+                    addPlane(a, px, py, pz, d, weight);
+                    addPlane(b, px, py, pz, d, weight);
+                }
+            }
+        }
+        
+        private static long edgeKey(int a, int b) {
+            return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+        }
+        
+        private void addPlane(int v, double a, double b, double c, double d, double weight) {
+            int q = v * 10;
+            quadric[q] += weight * a * a;
+            quadric[q + 1] += weight * a * b;
+            quadric[q + 2] += weight * a * c;
+            quadric[q + 3] += weight * a * d;
+            quadric[q + 4] += weight * b * b;
+            quadric[q + 5] += weight * b * c;
+            quadric[q + 6] += weight * b * d;
+            quadric[q + 7] += weight * c * c;
+            quadric[q + 8] += weight * c * d;
+            quadric[q + 9] += weight * d * d;
+        }
+        
+        // Unit normal of a face into n; returns twice its area
+        private double faceNormal(int a, int b, int c, double[] n) {
+            double e1x = position[b * 3] - position[a * 3];
+            double e1y = position[b * 3 + 1] - position[a * 3 + 1];
+            double e1z = position[b * 3 + 2] - position[a * 3 + 2];
+            double e2x = position[c * 3] - position[a * 3];
+            double e2y = position[c * 3 + 1] - position[a * 3 + 1];
+            double e2z = position[c * 3 + 2] - position[a * 3 + 2];
+            double nx = e1y * e2z - e1z * e2y;
+            double ny = e1z * e2x - e1x * e2z;
+            double nz = e1x * e2y - e1y * e2x;
+            double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (length > 0) {
+                n[0] = nx / length;
+                n[1] = ny / length;
+                n[2] = nz / length;
+            }
+            return length;
+        }
+        
+        // Queue the cheapest placement for collapsing edge (a, b)
+        private void push(int a, int b) {
+            double[] q = combined;
+            for (int k = 0; k < 10; k++) {
+                q[k] = quadric[a * 10 + k] + quadric[b * 10 + k];
+            }
+            double cost = placement(q, a, b, point);
+            queue.add(new Candidate(cost, a, b, version[a], version[b], point[0], point[1], point[2]));
+        }
+        
+        /**
+         * Point minimizing the combined quadric, written to out, and its
+         * error. Falls back to the better of the endpoints and midpoint when
+         * the quadric is singular (flat or straight neighborhoods).
+         */
+        private double placement(double[] q, int a, int b, double[] out) {
+            double a00 = q[0], a01 = q[1], a02 = q[2], a11 = q[4], a12 = q[5], a22 = q[7];
+            double c00 = a11 * a22 - a12 * a12;
+            double c01 = a02 * a12 - a01 * a22;
+            double c02 = a01 * a12 - a02 * a11;
+            double det = a00 * c00 + a01 * c01 + a02 * c02;
+            double scale = Math.abs(a00) + Math.abs(a11) + Math.abs(a22);
+            if (Math.abs(det) > 1e-9 * scale * scale * scale) {
+                double c11 = a00 * a22 - a02 * a02;
+                double c12 = a01 * a02 - a00 * a12;
+                double c22 = a00 * a11 - a01 * a01;
+                double bx = -q[3], by = -q[6], bz = -q[8];
+                out[0] = (c00 * bx + c01 * by + c02 * bz) / det;
+                out[1] = (c01 * bx + c11 * by + c12 * bz) / det;
+                out[2] = (c02 * bx + c12 * by + c22 * bz) / det;
+                return Math.max(0, error(q, out[0], out[1], out[2]));
+            }
+            double best = Double.POSITIVE_INFINITY;
+            for (int k = 0; k < 3; k++) {
+                double t = k * 0.5;
+                double x = position[a * 3] + (position[b * 3] - position[a * 3]) * t;
+                double y = position[a * 3 + 1] + (position[b * 3 + 1] - position[a * 3 + 1]) * t;
+                double z = position[a * 3 + 2] + (position[b * 3 + 2] - position[a * 3 + 2]) * t;
+                double e = error(q, x, y, z);
+                if (e < best) {
+                    best = e;
+                    out[0] = x;
+                    out[1] = y;
+                    out[2] = z;
+                }
+            }
+            return Math.max(0, best);
+        }
+        
+        private static double error(double[] q, double x, double y, double z) {
+            return q[0] * x * x + 2 * q[1] * x * y + 2 * q[2] * x * z + 2 * q[3] * x
+                + q[4] * y * y + 2 * q[5] * y * z + 2 * q[6] * y
+                + q[7] * z * z + 2 * q[8] * z + q[9];
+        }
+        
+        private void collapse(Candidate c) {
+            int a = c.a;
+            int b = c.b;
+            if (!linkConditionHolds(a, b)) return;
+            if (flips(a, b, c) || flips(b, a, c)) return;
+            
+            // Move a to the new point and give it b's faces
+            position[a * 3] = c.x;
+            position[a * 3 + 1] = c.y;
+            position[a * 3 + 2] = c.z;
+            for (int k = 0; k < 10; k++) {
+                quadric[a * 10 + k] += quadric[b * 10 + k];
+            }
+            removed[b] = true;
+            version[a]++;
+            
+            int[] list = vertexFaces[b];
+            for (int i = 0; i < vertexFaceCount[b]; i++) {
+                int f = list[i];
+                if (faceDead[f]) continue;
+                if (contains(f, a)) {
+                    faceDead[f] = true;
+                    liveFaces--;
+                    continue;
+                }
+                for (int k = 0; k < 3; k++) {
+                    if (faces[f * 3 + k] == b) faces[f * 3 + k] = a;
+                }
+                link(a, f);
+            }
+            vertexFaces[b] = null;
+            vertexFaceCount[b] = 0;
+            
+            // Re-price every edge around the moved vertex
+            int stamp = nextStamp();
+            mark[a] = stamp;
+            list = vertexFaces[a];
+            for (int i = 0; i < vertexFaceCount[a]; i++) {
+                int f = list[i];
+                if (faceDead[f]) continue;
+                for (int k = 0; k < 3; k++) {
+                    int w = faces[f * 3 + k];
+                    if (mark[w] != stamp) {
+                        mark[w] = stamp;
+                        push(Math.min(a, w), Math.max(a, w));
+                    }
+                }
+            }
+        }
+        
+        /**
+         * A collapse keeps the surface manifold only if the vertices
+         * adjacent to both ends are exactly the far corners of the faces on
+         * the edge.
+         */
+        private boolean linkConditionHolds(int a, int b) {
+            int stamp = nextStamp();
+            int[] list = vertexFaces[a];
+            for (int i = 0; i < vertexFaceCount[a]; i++) {
+                int f = list[i];
+                if (faceDead[f]) continue;
+                for (int k = 0; k < 3; k++) {
+                    mark[faces[f * 3 + k]] = stamp;
+                }
+            }
+            int shared = 0;
+            int edgeFaces = 0;
+            int sharedStamp = nextStamp();
+            list = vertexFaces[b];
+            for (int i = 0; i < vertexFaceCount[b]; i++) {
+                int f = list[i];
+                if (faceDead[f]) continue;
+                if (contains(f, a)) edgeFaces++;
+                for (int k = 0; k < 3; k++) {
+                    int w = faces[f * 3 + k];
+                    if (w != a && w != b && mark[w] == stamp) {
+                        mark[w] = sharedStamp;
+                        shared++;
+                    }
+                }
+            }
+            return shared == edgeFaces;
+        }
+        
+        // Whether moving v to the candidate point turns any of its other faces over
+        private boolean flips(int v, int other, Candidate c) {
+            double[] before = normalBefore;
+            double[] after = normalAfter;
+            int[] list = vertexFaces[v];
+            for (int i = 0; i < vertexFaceCount[v]; i++) {
+                int f = list[i];
+                if (faceDead[f] || contains(f, other)) continue;
+                int p = faces[f * 3], q = faces[f * 3 + 1], r = faces[f * 3 + 2];
+                if (faceNormal(p, q, r, before) <= 0) continue;
+                
+                double x = position[v * 3], y = position[v * 3 + 1], z = position[v * 3 + 2];
+                position[v * 3] = c.x;
+                position[v * 3 + 1] = c.y;
+                position[v * 3 + 2] = c.z;
+                double area = faceNormal(p, q, r, after);
+                position[v * 3] = x;
+                position[v * 3 + 1] = y;
+                position[v * 3 + 2] = z;
+                
+                if (area <= 0 || before[0] * after[0] + before[1] * after[1] + before[2] * after[2] <= 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        private int nextStamp() {
+            return ++markStamp;
+        }
+        
+        // Pack the live faces and the vertices they use
+        private MeshData output() {
+            int[] remap = new int[vertexCount];
+            Arrays.fill(remap, -1);
+            int used = 0;
+            int[] indices = new int[liveFaces * 3];
+            int[] outFaceColors = new int[liveFaces];
+            int face = 0;
+            for (int f = 0; f < faceDead.length; f++) {
+                if (faceDead[f]) continue;
+                for (int k = 0; k < 3; k++) {
+                    int v = faces[f * 3 + k];
+                    if (remap[v] < 0) remap[v] = used++;
+                    indices[face * 3 + k] = remap[v];
+                }
+                outFaceColors[face++] = faceColors[f];
+            }
+            
+            float[] positions = new float[used * 3];
+            int[] colors = new int[used];
+            for (int v = 0; v < vertexCount; v++) {
+                int o = remap[v];
+                if (o < 0) continue;
+                positions[o * 3] = (float) position[v * 3];
+                positions[o * 3 + 1] = (float) position[v * 3 + 1];
+                positions[o * 3 + 2] = (float) position[v * 3 + 2];
+                colors[o] = color[v];
+            }
+            
+            // Area-weighted vertex normals from the remaining faces
+            float[] normals = new float[used * 3];
+            for (int t = 0; t < face; t++) {
+                int i0 = indices[t * 3] * 3, i1 = indices[t * 3 + 1] * 3, i2 = indices[t * 3 + 2] * 3;
+                float e1x = positions[i1] - positions[i0], e1y = positions[i1 + 1] - positions[i0 + 1];
+                float e1z = positions[i1 + 2] - positions[i0 + 2];
+                float e2x = positions[i2] - positions[i0], e2y = positions[i2 + 1] - positions[i0 + 1];
+                float e2z = positions[i2 + 2] - positions[i0 + 2];
+                float nx = e1y * e2z - e1z * e2y;
+                float ny = e1z * e2x - e1x * e2z;
+                float nz = e1x * e2y - e1y * e2x;
+                addNormal(normals, i0, nx, ny, nz);
+                addNormal(normals, i1, nx, ny, nz);
+                addNormal(normals, i2, nx, ny, nz);
+            }
+            for (int i = 0; i < normals.length; i += 3) {
+                float length = (float) Math.sqrt(normals[i] * normals[i] + normals[i + 1] * normals[i + 1]
+                    + normals[i + 2] * normals[i + 2]);
+                if (length > 0) {
+                    normals[i] /= length;
+                    normals[i + 1] /= length;
+                    normals[i + 2] /= length;
+                }
+            }
+            return new MeshData(positions, normals, colors, indices, outFaceColors);
+        }
+        
+        private static void addNormal(float[] normals, int i, float nx, float ny, float nz) {
+            normals[i] += nx;
+            normals[i + 1] += ny;
+            normals[i + 2] += nz;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.jordyh297.jrender;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ray casts against meshes, for finding what lies under the cursor or
+ * along a ray. Each mesh is tested through its cached
+ * {@link TriangleBVH}, with the ray brought into the mesh's object space
+ * instead of transforming its triangles, and meshes whose world bounds the
+ * ray misses are skipped without touching their triangles.
+ * <p>
+ * Works with {@link Mesh}, {@link IndexedMesh}, {@link MeshData},
+ * {@link SceneObject} and {@link LODMesh} (at full detail); other
+ * renderables are never hit. A picker keeps scratch state, so use one
+ * per thread.
+ */
+public class Picker {
+    private final Matrix4x4 inverse = new Matrix4x4();
+    private final double[] worldBox = new double[6];
+    private final List<Renderable> candidates = new ArrayList<>();
+    
+    // Nearest hit under a screen point of a width x height view, or null
+    public RayHit pick(Camera camera, double screenX, double screenY, int width, int height,
+                       Iterable<? extends Renderable> objects) {
+        return raycast(camera.getRay(screenX, screenY, width, height), objects);
+    }
+    
+    // Nearest hit under a screen point among the objects of a scene hierarchy, or null
+    public RayHit pick(Camera camera, double screenX, double screenY, int width, int height, SceneBVH scene) {
+        return raycast(camera.getRay(screenX, screenY, width, height), scene);
+    }
+    
+    // Nearest hit on one object under its own transform, or null
+    public RayHit raycast(Ray ray, Renderable object) {
+        return raycast(ray, object, object.getTransformMatrix());
+    }
+    
+    // Nearest hit on a geometry placed with an instance transform, or null
+    public RayHit raycast(Ray ray, Renderable geometry, Matrix4x4 model) {
+        RayHit hit = new RayHit();
+        return intersect(ray, geometry, model, Double.MAX_VALUE, hit) ? finish(ray, hit) : null;
+    }
+    
+    // Nearest hit among several objects, or null
+    public RayHit raycast(Ray ray, Iterable<? extends Renderable> objects) {
+        RayHit hit = new RayHit();
+        boolean found = false;
+        for (Renderable object : objects) {
+            // Only a closer hit overwrites the previous one
+            if (intersect(ray, object, object.getTransformMatrix(), found ? hit.distance : Double.MAX_VALUE, hit)) {
+                found = true;
+            }
+        }
+        return found ? finish(ray, hit) : null;
+    }
+    
+    // Nearest hit among the objects of a scene hierarchy whose bounds the ray enters, or null
+    public RayHit raycast(Ray ray, SceneBVH scene) {
+        candidates.clear();
+        scene.collectAlongRay(ray, Double.MAX_VALUE, candidates);
+        RayHit hit = raycast(ray, candidates);
+        candidates.clear();
+        return hit;
+    }
+    
+    private boolean intersect(Ray ray, Renderable object, Matrix4x4 model, double maxDistance, RayHit hit) {
+        TriangleBVH bvh = triangleBVH(object);
+        if (bvh == null) return false;
+        
+        // Skip objects whose world box the ray misses or enters beyond the best hit
+        BoundingBox bounds = object.getBoundingBox();
+        if (bounds.isEmpty()) return false;
+        bounds.transform(model, worldBox, 0);
+        Vector3D o = ray.origin;
+        Vector3D d = ray.direction;
+        if (!SceneBVH.rayEnters(worldBox, 0, o.x, o.y, o.z, 1.0 / d.x, 1.0 / d.y, 1.0 / d.z, maxDistance)) {
+            return false;
+        }
+        
+        // A singular model matrix flattens the mesh to nothing a ray can hit
+        if (!model.inverseInto(inverse)) return false;
+        double[] m = inverse.m;
+        double ox = m[0] * o.x + m[1] * o.y + m[2] * o.z + m[3];
+        double oy = m[4] * o.x + m[5] * o.y + m[6] * o.z + m[7];
+        double oz = m[8] * o.x + m[9] * o.y + m[10] * o.z + m[11];
+        double dx = m[0] * d.x + m[1] * d.y + m[2] * d.z;
+        double dy = m[4] * d.x + m[5] * d.y + m[6] * d.z;
+        double dz = m[8] * d.x + m[9] * d.y + m[10] * d.z;
+        
+        if (!bvh.intersect(ox, oy, oz, dx, dy, dz, maxDistance, hit)) return false;
+        hit.mesh = object;
+        return true;
+    }
+    
+    private static RayHit finish(Ray ray, RayHit hit) {
+        hit.point = ray.pointAt(hit.distance);
+        return hit;
+    }
+    
+    private static TriangleBVH triangleBVH(Renderable object) {
+        if (object instanceof SceneObject) return ((SceneObject) object).getTriangleBVH();
+        if (object instanceof LODMesh) return ((LODMesh) object).getTriangleBVH();
+        if (object instanceof MeshData) return ((MeshData) object).getTriangleBVH();
+        if (object instanceof IndexedMesh) return ((IndexedMesh) object).getTriangleBVH();
+        if (object instanceof Mesh) return ((Mesh) object).getTriangleBVH();
+        return null;
+    }
+}
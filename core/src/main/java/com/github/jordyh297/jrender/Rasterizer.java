@@ -0,0 +1,271 @@
+package com.github.jordyh297.jrender;
+
+/**
+ * Software triangle rasterizer that writes directly into an ARGB pixel array.
+ * Uses fixed-point half-space (edge function) tests with incremental stepping
+ * and a per-pixel depth test, so triangles can be drawn in any order.
+ */
+public class Rasterizer {
+    // Sub-pixel precision of the fixed-point screen coordinates
+    private static final int SUBPIXEL_BITS = 4;
+    private static final int SUBPIXEL_ONE = 1 << SUBPIXEL_BITS;
+    private static final int SUBPIXEL_HALF = SUBPIXEL_ONE / 2;
+    
+    // Largest screen coordinate whose edge functions still fit in a long
+    private static final double MAX_COORDINATE = 1 << 20;
+    
+    // Corners of a triangle clipped to the four sides of the coordinate range
+    private static final int MAX_CLIPPED_VERTICES = 7;
+    
+    private int[] pixels;
+    private final DepthBuffer depthBuffer;
+    
+    // Scratch for clipping to the coordinate range: x, y, z per corner
+    private final double[] rangePolygon = new double[MAX_CLIPPED_VERTICES * 3];
+    private final double[] rangeScratch = new double[MAX_CLIPPED_VERTICES * 3];
+    private final int width;
+    private final int height;
+    
+    public Rasterizer(int[] pixels, DepthBuffer depthBuffer) {
+        this.pixels = pixels;
+        this.depthBuffer = depthBuffer;
+        this.width = depthBuffer.getWidth();
+        this.height = depthBuffer.getHeight();
+    }
+    
+    // Draw into another color array of the same size from now on
+    void setPixels(int[] pixels) {
+        if (pixels.length != width * height) {
+            throw new IllegalArgumentException("Pixel array does not match the rasterizer size");
+        }
+        this.pixels = pixels;
+    }
+    
+    public int getWidth() {
+        return width;
+    }
+    
+    public int getHeight() {
+        return height;
+    }
+    
+    // Fill a triangle given in screen space (pixels) with NDC depth
+    public void fillTriangle(double x1, double y1, double z1,
+                             double x2, double y2, double z2,
+                             double x3, double y3, double z3, int argb) {
+        fillTriangle(x1, y1, z1, x2, y2, z2, x3, y3, z3, argb, 0, 0, width, height);
+    }
+    
+    /**
+     * Fill a triangle, touching only pixels inside the clip rectangle
+     * [clipMinX, clipMaxX) x [clipMinY, clipMaxY). Every pixel is evaluated
+     * from exact integer edge values, so the result does not depend on how
+     * the screen is split into clip rectangles. Corners beyond the
+     * fixed-point range are clipped to it first; triangles with a
+     * non-finite coordinate are skipped.
+     * <p>
+     * In-range triangles may be filled from several threads at once into
+     * disjoint clip rectangles. Clipping to the range uses scratch owned by
+     * the rasterizer, so out-of-range triangles must come from one thread.
+     */
+    public void fillTriangle(double x1, double y1, double z1,
+                             double x2, double y2, double z2,
+                             double x3, double y3, double z3, int argb,
+                             int clipMinX, int clipMinY, int clipMaxX, int clipMaxY) {
+        if (!inRange(x1, y1, x2, y2, x3, y3)) {
+            fillOutOfRange(x1, y1, z1, x2, y2, z2, x3, y3, z3, argb, clipMinX, clipMinY, clipMaxX, clipMaxY);
+            return;
+        }
+        
+        // Snap to fixed point
+        long fx1 = Math.round(x1 * SUBPIXEL_ONE);
+        long fy1 = Math.round(y1 * SUBPIXEL_ONE);
+        long fx2 = Math.round(x2 * SUBPIXEL_ONE);
+        long fy2 = Math.round(y2 * SUBPIXEL_ONE);
+        long fx3 = Math.round(x3 * SUBPIXEL_ONE);
+        long fy3 = Math.round(y3 * SUBPIXEL_ONE);
+        
+        long area = (fx2 - fx1) * (fy3 - fy1) - (fy2 - fy1) * (fx3 - fx1);
+        if (area == 0) return;
+        
+        // Normalize winding so that inside means all edge functions are positive
+        if (area < 0) {
+            long tx = fx2; fx2 = fx3; fx3 = tx;
+            long ty = fy2; fy2 = fy3; fy3 = ty;
+            double tz = z2; z2 = z3; z3 = tz;
+            area = -area;
+        }
+        
+        // Bounding box in pixels, sampling at pixel centers
+        long minFx = Math.min(fx1, Math.min(fx2, fx3));
+        long maxFx = Math.max(fx1, Math.max(fx2, fx3));
+        long minFy = Math.min(fy1, Math.min(fy2, fy3));
+        long maxFy = Math.max(fy1, Math.max(fy2, fy3));
+        
+        int minX = (int) Math.max(clipMinX, Math.floorDiv(minFx - SUBPIXEL_HALF + SUBPIXEL_ONE - 1, SUBPIXEL_ONE));
+        int maxX = (int) Math.min(clipMaxX - 1, Math.floorDiv(maxFx - SUBPIXEL_HALF, SUBPIXEL_ONE));
+        int minY = (int) Math.max(clipMinY, Math.floorDiv(minFy - SUBPIXEL_HALF + SUBPIXEL_ONE - 1, SUBPIXEL_ONE));
+        int maxY = (int) Math.min(clipMaxY - 1, Math.floorDiv(maxFy - SUBPIXEL_HALF, SUBPIXEL_ONE));
+        if (minX > maxX || minY > maxY) return;
+        
+        // Top-left fill rule: pixels exactly on an edge belong to top or left edges only
+        long bias0 = isTopLeft(fx2, fy2, fx3, fy3) ? 0 : 1;
+        long bias1 = isTopLeft(fx3, fy3, fx1, fy1) ? 0 : 1;
+        long bias2 = isTopLeft(fx1, fy1, fx2, fy2) ? 0 : 1;
+        
+        // Per-pixel steps of each edge function
+        long stepX0 = -(fy3 - fy2) * SUBPIXEL_ONE;
+        long stepY0 = (fx3 - fx2) * SUBPIXEL_ONE;
+        long stepX1 = -(fy1 - fy3) * SUBPIXEL_ONE;
+        long stepY1 = (fx1 - fx3) * SUBPIXEL_ONE;
+        long stepX2 = -(fy2 - fy1) * SUBPIXEL_ONE;
+        long stepY2 = (fx2 - fx1) * SUBPIXEL_ONE;
+        
+        // Edge functions at the first sampled pixel center
+        long px = (long) minX * SUBPIXEL_ONE + SUBPIXEL_HALF;
+        long py = (long) minY * SUBPIXEL_ONE + SUBPIXEL_HALF;
+        long row0 = edge(fx2, fy2, fx3, fy3, px, py) - bias0;
+        long row1 = edge(fx3, fy3, fx1, fy1, px, py) - bias1;
+        long row2 = edge(fx1, fy1, fx2, fy2, px, py) - bias2;
+        
+        // Depth in [0, 1] as a plane over the (unbiased) barycentric weights
+        double d1 = z1 * 0.5 + 0.5;
+        double dz2 = (z2 - z1) * 0.5 / area;
+        double dz3 = (z3 - z1) * 0.5 / area;
+        double zBase = d1 + dz2 * bias1 + dz3 * bias2;
+        
+        for (int y = minY; y <= maxY; y++) {
+            long w0 = row0;
+            long w1 = row1;
+            long w2 = row2;
+            int index = y * width + minX;
+            
+            for (int x = minX; x <= maxX; x++, index++) {
+                if ((w0 | w1 | w2) >= 0) {
+                    double z = zBase + dz2 * w1 + dz3 * w2;
+                    if (z >= 0.0 && z <= 1.0 && depthBuffer.testAndSet(index, z)) {
+                        pixels[index] = argb;
+                    }
+                }
+                w0 += stepX0;
+                w1 += stepX1;
+                w2 += stepX2;
+            }
+            
+            row0 += stepY0;
+            row1 += stepY1;
+            row2 += stepY2;
+        }
+    }
+    
+    // Clip a triangle to the coordinate range and fill what is left as a fan
+    private void fillOutOfRange(double x1, double y1, double z1,
+                                double x2, double y2, double z2,
+                                double x3, double y3, double z3, int argb,
+                                int clipMinX, int clipMinY, int clipMaxX, int clipMaxY) {
+        int count = clipToRange(x1, y1, z1, x2, y2, z2, x3, y3, z3);
+        double[] polygon = rangePolygon;
+        
+        // Shared fan edges are exact, so the fill rule covers each pixel once
+        for (int i = 1; i < count - 1; i++) {
+            int b = i * 3;
+            int c = b + 3;
+            fillTriangle(polygon[0], polygon[1], polygon[2],
+                polygon[b], polygon[b + 1], polygon[b + 2],
+                polygon[c], polygon[c + 1], polygon[c + 2],
+                argb, clipMinX, clipMinY, clipMaxX, clipMaxY);
+        }
+    }
+    
+    /**
+     * Clip a triangle to the square of representable coordinates, leaving
+     * the corners in {@link #getRangeClipped()} as x, y, z triples, and
+     * return how many there are. Depth is linear in screen space, so it is
+     * interpolated along with x and y. Returns 0 for a triangle with a
+     * non-finite coordinate.
+     */
+    int clipToRange(double x1, double y1, double z1,
+                    double x2, double y2, double z2,
+                    double x3, double y3, double z3) {
+        if (!Double.isFinite(x1) || !Double.isFinite(y1) || !Double.isFinite(x2)
+                || !Double.isFinite(y2) || !Double.isFinite(x3) || !Double.isFinite(y3)) {
+            return 0;
+        }
+        
+        double[] polygon = rangePolygon;
+        double[] clipped = rangeScratch;
+        polygon[0] = x1; polygon[1] = y1; polygon[2] = z1;
+        polygon[3] = x2; polygon[4] = y2; polygon[5] = z2;
+        polygon[6] = x3; polygon[7] = y3; polygon[8] = z3;
+        int count = 3;
+        
+        // Sides x >= -MAX, x <= MAX, y >= -MAX, y <= MAX
+        for (int side = 0; side < 4 && count > 0; side++) {
+            int axis = side >> 1;
+            double limit = (side & 1) == 0 ? -MAX_COORDINATE : MAX_COORDINATE;
+            double sign = (side & 1) == 0 ? 1.0 : -1.0;
+            int out = 0;
+            
+            for (int i = 0; i < count; i++) {
+                int a = i * 3;
+                int b = ((i + 1) % count) * 3;
+                double da = (polygon[a + axis] - limit) * sign;
+                double db = (polygon[b + axis] - limit) * sign;
+                
+                if (da >= 0) {
+                    System.arraycopy(polygon, a, clipped, out * 3, 3);
+                    out++;
+                }
+                if ((da >= 0) != (db >= 0)) {
+                    double t = da / (da - db);
+                    int o = out * 3;
+                    for (int k = 0; k < 3; k++) {
+                        clipped[o + k] = polygon[a + k] + t * (polygon[b + k] - polygon[a + k]);
+                    }
+                    clipped[o + axis] = limit;
+                    out++;
+                }
+            }
+            
+            double[] swap = polygon;
+            polygon = clipped;
+            clipped = swap;
+            count = out;
+        }
+        if (polygon != rangePolygon) {
+            System.arraycopy(polygon, 0, rangePolygon, 0, count * 3);
+        }
+        
+        // Rounding in the other axis may step past a side already clipped by an ulp
+        for (int i = 0; i < count * 3; i++) {
+            if (i % 3 != 2) {
+                rangePolygon[i] = Math.max(-MAX_COORDINATE, Math.min(MAX_COORDINATE, rangePolygon[i]));
+            }
+        }
+        return count;
+    }
+    
+    // Corners left by clipToRange(), valid until the next out-of-range triangle
+    double[] getRangeClipped() {
+        return rangePolygon;
+    }
+    
+    // Whether every corner is within the fixed-point range, so no clipping is needed
+    static boolean inRange(double x1, double y1, double x2, double y2, double x3, double y3) {
+        return inRange(x1) && inRange(y1) && inRange(x2) && inRange(y2) && inRange(x3) && inRange(y3);
+    }
+    
+    // Edge function of a->b evaluated at p (positive on the inside)
+    private static long edge(long ax, long ay, long bx, long by, long px, long py) {
+        return (bx - ax) * (py - ay) - (by - ay) * (px - ax);
+    }
+    
+    // Screen y points down, so top edges run right and left edges run up
+    private static boolean isTopLeft(long ax, long ay, long bx, long by) {
+        return (ay == by && bx > ax) || by < ay;
+    }
+    
+    private static boolean inRange(double v) {
+        return v >= -MAX_COORDINATE && v <= MAX_COORDINATE;
+    }
+}
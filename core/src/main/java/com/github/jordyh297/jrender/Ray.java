@@ -0,0 +1,32 @@
+package com.github.jordyh297.jrender;
+
+/**
+ * Half-line from an origin along a unit direction, for picking.
+ */
+public class Ray {
+    public final Vector3D origin;
+    public final Vector3D direction;
+    
+    // The direction is normalized; it must not be zero
+    public Ray(Vector3D origin, Vector3D direction) {
+        double length = direction.magnitude();
+        if (!(length > 0)) {
+            throw new IllegalArgumentException("Ray direction must not be zero");
+        }
+        this.origin = origin;
+        this.direction = direction.multiply(1.0 / length);
+    }
+    
+    // Point at a distance along the ray
+    public Vector3D pointAt(double distance) {
+        return new Vector3D(
+            origin.x + direction.x * distance,
+            origin.y + direction.y * distance,
+            origin.z + direction.z * distance);
+    }
+    
+    @Override
+    public String toString() {
+        return "Ray(" + origin + " -> " + direction + ")";
+    }
+}
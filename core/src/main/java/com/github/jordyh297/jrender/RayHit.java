@@ -0,0 +1,27 @@
+package com.github.jordyh297.jrender;
+
+/**
+ * Nearest intersection of a ray with a mesh.
+ * <p>
+ * The triangle index counts triangles in the mesh's own order: the
+ * {@code triangles} list of a {@link Mesh}, or faces of indexed geometry.
+ * The barycentric coordinates u and v weight the triangle's second and
+ * third vertex, so the hit point is (1 - u - v) * v1 + u * v2 + v * v3.
+ */
+public class RayHit {
+    public Renderable mesh;
+    public int triangle;
+    public double u, v;
+    public double distance;   // along the ray, in world units
+    public Vector3D point;    // world-space hit point
+    
+    // Weight of the triangle's first vertex
+    public double getW() {
+        return 1.0 - u - v;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("RayHit(triangle=%d, u=%.4f, v=%.4f, distance=%.4f)", triangle, u, v, distance);
+    }
+}
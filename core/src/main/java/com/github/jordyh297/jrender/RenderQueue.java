@@ -0,0 +1,133 @@
+package com.github.jordyh297.jrender;
+
+import java.util.Arrays;
+
+/**
+ * Reusable per-frame queue of screen-space triangles.
+ * Triangles are kept in parallel primitive arrays that are recycled by
+ * {@link #clear()}, so a frame that queues no more triangles than an
+ * earlier one does not allocate. Sorting is an LSD radix sort on a 32-bit
+ * key quantized from the depth, which is stable and linear in the number
+ * of triangles.
+ */
+public class RenderQueue {
+    // Bits sorted per radix pass
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX_MASK = (1 << RADIX_BITS) - 1;
+
+    // Six pixel coordinates (x1, y1, x2, y2, x3, y3) and one ARGB color per triangle
+    private int[] coords = new int[256 * 6];
+    private int[] colors = new int[256];
+
+    // Sort key per position and the triangle at that position; sorted together
+    private int[] keys = new int[256];
+    private int[] order = new int[256];
+    private int[] keyScratch = new int[256];
+    private int[] orderScratch = new int[256];
+    private final int[] counts = new int[1 << RADIX_BITS];
+    private int size;
+
+    public void add(int x1, int y1, int x2, int y2, int x3, int y3, int argb, double depth) {
+        if (size == colors.length) {
+            int capacity = size * 2;
+            coords = Arrays.copyOf(coords, capacity * 6);
+            colors = Arrays.copyOf(colors, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            order = Arrays.copyOf(order, capacity);
+        }
+        int c = size * 6;
+        coords[c] = x1;
+        coords[c + 1] = y1;
+        coords[c + 2] = x2;
+        coords[c + 3] = y2;
+        coords[c + 4] = x3;
+        coords[c + 5] = y3;
+        colors[size] = argb;
+        keys[size] = backToFrontKey(depth);
+        order[size] = size;
+        size++;
+    }
+
+    /**
+     * Sort farthest first, for the painter's algorithm. Stable, so equal
+     * depths keep submission order. Passes over a byte that every key
+     * shares are skipped.
+     */
+    public void sortBackToFront() {
+        if (size < 2) return;
+        if (keyScratch.length < keys.length) {
+            keyScratch = new int[keys.length];
+            orderScratch = new int[keys.length];
+        }
+        int[] srcKeys = keys, srcOrder = order;
+        int[] dstKeys = keyScratch, dstOrder = orderScratch;
+
+        for (int shift = 0; shift < 32; shift += RADIX_BITS) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < size; i++) {
+                counts[(srcKeys[i] >>> shift) & RADIX_MASK]++;
+            }
+            if (counts[(srcKeys[0] >>> shift) & RADIX_MASK] == size) continue;
+
+            int offset = 0;
+            for (int b = 0; b < counts.length; b++) {
+                int count = counts[b];
+                counts[b] = offset;
+                offset += count;
+            }
+            for (int i = 0; i < size; i++) {
+                int key = srcKeys[i];
+                int slot = counts[(key >>> shift) & RADIX_MASK]++;
+                dstKeys[slot] = key;
+                dstOrder[slot] = srcOrder[i];
+            }
+
+            int[] swap = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = swap;
+            swap = srcOrder;
+            srcOrder = dstOrder;
+            dstOrder = swap;
+        }
+
+        keys = srcKeys;
+        order = srcOrder;
+        keyScratch = dstKeys;
+        orderScratch = dstOrder;
+    }
+
+    // Copy the pixel coordinates of the triangle at a position into polygon arrays
+    public void getPolygon(int index, int[] xs, int[] ys) {
+        int c = order[index] * 6;
+        xs[0] = coords[c];
+        ys[0] = coords[c + 1];
+        xs[1] = coords[c + 2];
+        ys[1] = coords[c + 3];
+        xs[2] = coords[c + 4];
+        ys[2] = coords[c + 5];
+    }
+
+    // ARGB color of the triangle at a position
+    public int getColor(int index) {
+        return colors[order[index]];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Depth quantized to float precision, as an unsigned key that is
+     * smallest for the farthest triangle. Float bits are flipped so that
+     * unsigned integer order matches float order, then inverted.
+     */
+    private static int backToFrontKey(double depth) {
+        int bits = Float.floatToIntBits((float) depth);
+        int ascending = bits < 0 ? ~bits : bits ^ 0x80000000;
+        return ~ascending;
+    }
+}
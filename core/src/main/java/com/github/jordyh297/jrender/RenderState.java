@@ -0,0 +1,105 @@
+package com.github.jordyh297.jrender;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable snapshot of what a {@link Renderer3D} draws with: the camera,
+ * the lights and the rendering options. A renderer's buffers, depth
+ * buffer and scratch state are not part of it.
+ * <p>
+ * Take one with {@link Renderer3D#getRenderState()} and hand it to other
+ * renderers with {@link Renderer3D#setRenderState(RenderState)}. A state
+ * holds its own copies of the camera and lights and never changes, so
+ * any number of threads may share it, each rendering the same scene into
+ * its own renderer without locking.
+ */
+public final class RenderState {
+    // Private copies; the camera's lazy matrix cache is never used
+    private final Camera camera;
+    private final List<Light> lights;
+    
+    private final boolean wireframeMode;
+    private final boolean backfaceCulling;
+    private final boolean useLighting;
+    private final boolean softwareRasterizer;
+    private final boolean parallelRasterization;
+    private final boolean occlusionCulling;
+    private final boolean frustumCulling;
+    private final boolean guardBandClipping;
+    
+    RenderState(Camera camera, List<Light> lights, boolean wireframeMode, boolean backfaceCulling,
+                boolean useLighting, boolean softwareRasterizer, boolean parallelRasterization,
+                boolean occlusionCulling, boolean frustumCulling, boolean guardBandClipping) {
+        this.camera = camera != null ? new Camera(camera) : null;
+        List<Light> copies = new ArrayList<>(lights.size());
+        for (Light light : lights) {
+            copies.add(new Light(light));
+        }
+        this.lights = Collections.unmodifiableList(copies);
+        this.wireframeMode = wireframeMode;
+        this.backfaceCulling = backfaceCulling;
+        this.useLighting = useLighting;
+        this.softwareRasterizer = softwareRasterizer;
+        this.parallelRasterization = parallelRasterization;
+        this.occlusionCulling = occlusionCulling;
+        this.frustumCulling = frustumCulling;
+        this.guardBandClipping = guardBandClipping;
+    }
+    
+    // The same state seen through another camera, e.g. one view of a batch
+    public RenderState withCamera(Camera camera) {
+        return new RenderState(camera, lights, wireframeMode, backfaceCulling, useLighting,
+            softwareRasterizer, parallelRasterization, occlusionCulling, frustumCulling, guardBandClipping);
+    }
+    
+    // A copy of the camera, or null if the state has none
+    public Camera getCamera() {
+        return camera != null ? new Camera(camera) : null;
+    }
+    
+    // Copy the camera into a renderer's own camera; false if the state has none
+    boolean copyCameraTo(Camera target) {
+        if (camera == null) return false;
+        target.set(camera);
+        return true;
+    }
+    
+    // Unmodifiable, and the lights must not be modified either; renderers adopt copies
+    public List<Light> getLights() {
+        return lights;
+    }
+    
+    public boolean isWireframeMode() {
+        return wireframeMode;
+    }
+    
+    public boolean isBackfaceCulling() {
+        return backfaceCulling;
+    }
+    
+    public boolean isUseLighting() {
+        return useLighting;
+    }
+    
+    public boolean isSoftwareRasterizer() {
+        return softwareRasterizer;
+    }
+    
+    public boolean isParallelRasterization() {
+        return parallelRasterization;
+    }
+    
+    public boolean isOcclusionCulling() {
+        return occlusionCulling;
+    }
+    
+    public boolean isFrustumCulling() {
+        return frustumCulling;
+    }
+    
+    public boolean isGuardBandClipping() {
+        return guardBandClipping;
+    }
+}
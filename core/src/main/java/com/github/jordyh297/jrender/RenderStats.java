@@ -0,0 +1,24 @@
+package com.github.jordyh297.jrender;
+
+/**
+ * Counters collected by {@link Renderer3D} since the last clear.
+ */
+public class RenderStats {
+    public int meshesSubmitted;
+    public int meshesOccluded;
+    public int meshesFrustumCulled;
+    public int trianglesDrawn;
+    
+    public void reset() {
+        meshesSubmitted = 0;
+        meshesOccluded = 0;
+        meshesFrustumCulled = 0;
+        trianglesDrawn = 0;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("RenderStats(meshes=%d, frustumCulled=%d, occluded=%d, triangles=%d)",
+            meshesSubmitted, meshesFrustumCulled, meshesOccluded, trianglesDrawn);
+    }
+}
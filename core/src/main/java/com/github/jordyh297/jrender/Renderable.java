@@ -0,0 +1,22 @@
+package com.github.jordyh297.jrender;
+
+/**
+ * Something {@link Renderer3D} can draw: geometry with a model transform
+ * and object-space bounds for culling.
+ * <p>
+ * All three getters return cached instances, which the renderer reads
+ * every frame without copying. They may be shared by many objects, such
+ * as the bounds of one {@link MeshData} used by many {@link SceneObject}s,
+ * and by several threads, so callers must not modify them. Copy one, e.g.
+ * with {@code new Matrix4x4(getTransformMatrix())}, to change it.
+ */
+public interface Renderable {
+    // Model (object to world) transform
+    Matrix4x4 getTransformMatrix();
+    
+    // Object-space bounding box of all vertices
+    BoundingBox getBoundingBox();
+    
+    // Object-space bounding sphere of all vertices
+    BoundingSphere getBoundingSphere();
+}
@@ -2,34 +2,112 @@ package com.github.jordyh297.jrender;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * 3D Renderer that transforms 3D geometry to 2D screen space and renders it.
  */
 public class Renderer3D {
+    private static final Color EDGE_COLOR = new Color(0, 0, 0, 50);
+    
     private int width;
     private int height;
     private BufferedImage buffer;
     private Graphics2D g2d;
-    private double[][] zBuffer;
+    private int[] pixels;
+    private DepthBuffer depthBuffer;
+    private DepthBuffer.Precision depthPrecision = DepthBuffer.Precision.BITS_24;
+    private Rasterizer rasterizer;
+    private TileRasterizer tileRasterizer;
+    private HiZBuffer hiZBuffer;
     
     private Camera camera;
     public List<Light> lights;
     
+    // Camera owned by this renderer for setRenderState(), created on first use
+    private Camera stateCamera;
+    
+    // Receives the screen-space triangles instead of the rasterizer while a pipeline runs
+    private FramePipeline pipeline;
+    
+    // Whether LOD meshes remember their level between frames; off while other renderers share the scene
+    private boolean levelHysteresis = true;
+    
+    // Per-frame state
+    private final Matrix4x4 mvpScratch = new Matrix4x4();
+    private final RenderQueue renderQueue = new RenderQueue();
+    // Java2D color of the last queued triangle drawn, reused while the color repeats
+    private Color queueColor;
+    private final List<Submission> submissions = new ArrayList<>();
+    private int submissionCount = 0;
+    private boolean frameActive = false;
+    private final int[] polygonX = new int[3];
+    private final int[] polygonY = new int[3];
+    
+    // Occlusion culling scratch, indexed by submission
+    private static final int FIRST_OCCLUSION_WAVE = 4;
+    private long[] occlusionOrder = new long[0];
+    private int[] occlusionRects = new int[0];
+    private double[] occlusionDepths = new double[0];
+    private Matrix4x4[] occlusionModels = new Matrix4x4[0];
+    private Matrix4x4[] occlusionMvps = new Matrix4x4[0];
+    private final double[] clipScratch = new double[4];
+    private final Vector3D cornerScratch = new Vector3D();
+    private final Vector3D cullCenter = new Vector3D();
+    private final double[] cullBox = new double[6];
+    private final List<Renderable> sceneScratch = new ArrayList<>();
+    
+    // Clipping scratch: homogeneous input vertices and divided output
+    private final TriangleClipper clipper = new TriangleClipper();
+    private final double[] clip1 = new double[4];
+    private final double[] clip2 = new double[4];
+    private final double[] clip3 = new double[4];
+    private final double[] screenVertices = new double[TriangleClipper.MAX_VERTICES * 3];
+    
+    // Post-transform vertex cache for indexed meshes, grown as needed
+    private double[] worldVertices = new double[0];
+    private double[] clipVertices = new double[0];
+    private int[] vertexOutcodes = new int[0];
+    
+    // Per-triangle world-space scratch vectors, reused so the hot loop does not allocate
+    private final Vector3D world1 = new Vector3D();
+    private final Vector3D world2 = new Vector3D();
+    private final Vector3D world3 = new Vector3D();
+    private final Vector3D edgeScratch1 = new Vector3D();
+    private final Vector3D edgeScratch2 = new Vector3D();
+    private final Vector3D faceNormal = new Vector3D();
+    private final Vector3D faceCenter = new Vector3D();
+    
     // Rendering options
     public boolean wireframeMode = false;
     private boolean backfaceCulling = true;
     private boolean useLighting = true;
+    private boolean softwareRasterizer = false;
+    private boolean parallelRasterization = false;
+    private boolean occlusionCulling = true;
+    private boolean frustumCulling = true;
+    
+    private final RenderStats stats = new RenderStats();
     
     public Renderer3D(int width, int height) {
+        this.lights = new ArrayList<>();
+        createBuffers(width, height);
+    }
+    
+    private void createBuffers(int width, int height) {
         this.width = width;
         this.height = height;
         this.buffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
         this.g2d = buffer.createGraphics();
-        this.zBuffer = new double[width][height];
-        this.lights = new ArrayList<>();
+        this.pixels = ((DataBufferInt) buffer.getRaster().getDataBuffer()).getData();
+        this.depthBuffer = new DepthBuffer(width, height, depthPrecision);
+        this.rasterizer = new Rasterizer(pixels, depthBuffer);
+        this.tileRasterizer = new TileRasterizer(rasterizer);
+        this.hiZBuffer = new HiZBuffer(width, height);
         
         // Setup rendering hints for better quality
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
@@ -63,138 +141,734 @@ public class Renderer3D {
         this.useLighting = useLighting;
     }
     
+    /**
+     * Fill solid triangles with the built-in software rasterizer instead of
+     * Java2D. Pixels are written straight into the image's backing array and
+     * visibility is resolved per pixel by the depth buffer, so no depth sort
+     * is needed. Wireframe mode still draws through Java2D.
+     */
+    public void setSoftwareRasterizer(boolean softwareRasterizer) {
+        this.softwareRasterizer = softwareRasterizer;
+    }
+    
+    public boolean isSoftwareRasterizer() {
+        return softwareRasterizer;
+    }
+    
+    /**
+     * Spread software rasterization over the common ForkJoinPool by binning
+     * triangles into screen tiles. Output is identical to the single-threaded
+     * rasterizer. Has no effect unless the software rasterizer is enabled.
+     */
+    public void setParallelRasterization(boolean parallel) {
+        this.parallelRasterization = parallel;
+    }
+    
+    public boolean isParallelRasterization() {
+        return parallelRasterization;
+    }
+    
+    /**
+     * Skip meshes whose screen-space bounds are hidden behind the depth
+     * already drawn, tested against a hierarchical-Z pyramid before any of
+     * their triangles are transformed. Meshes in a frame are drawn nearest
+     * first so they can occlude the rest, so where two meshes land on the
+     * same stored depth a different one may win than with culling off. Only
+     * applies to the software rasterizer; enabled by default.
+     */
+    public void setOcclusionCulling(boolean occlusionCulling) {
+        this.occlusionCulling = occlusionCulling;
+    }
+    
+    /**
+     * Skip whole meshes whose bounds lie outside the camera's view frustum
+     * before any of their vertices are transformed. Enabled by default.
+     */
+    public void setFrustumCulling(boolean frustumCulling) {
+        this.frustumCulling = frustumCulling;
+    }
+    
+    /**
+     * Also clip triangles against a guard band around the viewport, so huge
+     * triangles never reach the fill stage. Near and far plane clipping is
+     * always done. Enabled by default.
+     */
+    public void setGuardBandClipping(boolean guardBandClipping) {
+        clipper.setGuardBandClipping(guardBandClipping);
+    }
+    
+    /**
+     * Snapshot of the camera, lights and options, which other renderers
+     * can adopt, on any thread, with setRenderState().
+     */
+    public RenderState getRenderState() {
+        return new RenderState(camera, lights, wireframeMode, backfaceCulling, useLighting,
+            softwareRasterizer, parallelRasterization, occlusionCulling, frustumCulling,
+            clipper.isGuardBandClipping());
+    }
+    
+    /**
+     * Draw with a snapshot's camera, lights and options. The renderer takes
+     * copies, so the state stays untouched and can be shared; buffers and
+     * depth precision are the renderer's own and do not change.
+     */
+    public void setRenderState(RenderState state) {
+        if (stateCamera == null) {
+            stateCamera = new Camera();
+        }
+        setCamera(state.copyCameraTo(stateCamera) ? stateCamera : null);
+        lights.clear();
+        for (Light light : state.getLights()) {
+            lights.add(new Light(light));
+        }
+        wireframeMode = state.isWireframeMode();
+        backfaceCulling = state.isBackfaceCulling();
+        useLighting = state.isUseLighting();
+        softwareRasterizer = state.isSoftwareRasterizer();
+        parallelRasterization = state.isParallelRasterization();
+        occlusionCulling = state.isOcclusionCulling();
+        frustumCulling = state.isFrustumCulling();
+        clipper.setGuardBandClipping(state.isGuardBandClipping());
+    }
+    
+    // Counters for everything drawn since the last clear()
+    public RenderStats getStats() {
+        return stats;
+    }
+    
+    // Change depth buffer precision; the depth buffer is recreated
+    public void setDepthPrecision(DepthBuffer.Precision precision) {
+        if (precision != depthPrecision) {
+            this.depthPrecision = precision;
+            this.depthBuffer = new DepthBuffer(width, height, precision);
+            this.rasterizer = new Rasterizer(pixels, depthBuffer);
+            this.tileRasterizer = new TileRasterizer(rasterizer);
+            this.hiZBuffer.reset();
+        }
+    }
+    
+    public DepthBuffer getDepthBuffer() {
+        return depthBuffer;
+    }
+    
     // Clear the buffer
     public void clear(Color color) {
-        g2d.setColor(color);
-        g2d.fillRect(0, 0, width, height);
+        if (softwareRasterizer) {
+            Arrays.fill(pixels, color.getRGB());
+        } else {
+            g2d.setColor(color);
+            g2d.fillRect(0, 0, width, height);
+        }
+        
+        // Clear z-buffer (constant time)
+        depthBuffer.clear();
+        hiZBuffer.reset();
+        stats.reset();
+    }
+    
+    /**
+     * Start collecting meshes for a frame. Everything submitted until
+     * {@link #endFrame()} shares one render queue, so depth ordering is
+     * correct across meshes and the queue is sorted only once.
+     */
+    public void beginFrame() {
+        if (frameActive) {
+            throw new IllegalStateException("beginFrame() called twice without endFrame()");
+        }
+        frameActive = true;
+        submissionCount = 0;
+    }
+    
+    // Queue a mesh for the current frame; its state is read at endFrame()
+    public void submit(Renderable mesh) {
+        if (!frameActive) {
+            throw new IllegalStateException("submit() called outside beginFrame()/endFrame()");
+        }
+        addSubmission(mesh, null, null);
+    }
+    
+    // Queue several meshes for the current frame
+    public void submitAll(Iterable<? extends Renderable> meshes) {
+        for (Renderable mesh : meshes) {
+            submit(mesh);
+        }
+    }
+    
+    /**
+     * Queue one instance of a geometry drawn with the given model matrix in
+     * place of its own transform, and a color in place of its face colors
+     * (null keeps them). The matrix is read at endFrame().
+     */
+    public void submit(Renderable geometry, Matrix4x4 model, Color color) {
+        if (!frameActive) {
+            throw new IllegalStateException("submit() called outside beginFrame()/endFrame()");
+        }
+        addSubmission(geometry, model, color);
+    }
+    
+    /**
+     * Queue the objects of a scene hierarchy that intersect the view
+     * frustum. Culling walks the hierarchy now, with the camera as it is at
+     * this call, so its cost grows with the visible objects rather than the
+     * scene; the objects themselves are still read at endFrame().
+     */
+    public void submit(SceneBVH scene) {
+        if (!frameActive) {
+            throw new IllegalStateException("submit() called outside beginFrame()/endFrame()");
+        }
+        if (camera == null || !frustumCulling) {
+            sceneScratch.addAll(scene.getObjects());
+        } else {
+            scene.collectVisible(camera, sceneScratch);
+            // Count the culled objects as submitted, like submitAll() would
+            int culled = scene.size() - sceneScratch.size();
+            stats.meshesSubmitted += culled;
+            stats.meshesFrustumCulled += culled;
+        }
+        for (int i = 0; i < sceneScratch.size(); i++) {
+            addSubmission(sceneScratch.get(i), null, null);
+            submissions.get(submissionCount - 1).inFrustum = true;
+        }
+        sceneScratch.clear();
+    }
+    
+    // Transform, cull and light every submitted mesh, then draw the frame
+    public void endFrame() {
+        if (!frameActive) {
+            throw new IllegalStateException("endFrame() called without beginFrame()");
+        }
+        frameActive = false;
         
-        // Clear z-buffer
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                zBuffer[x][y] = Double.POSITIVE_INFINITY;
+        if (camera != null) {
+            Matrix4x4 viewProjection = camera.getViewProjectionMatrix();
+            boolean rasterize = pipeline != null || (softwareRasterizer && !wireframeMode);
+            
+            stats.meshesSubmitted += submissionCount;
+            int drawCount = frustumCull();
+            
+            if (rasterize && occlusionCulling && pipeline == null) {
+                processWithOcclusion(viewProjection, drawCount);
+            } else {
+                for (int i = 0; i < drawCount; i++) {
+                    Submission submission = submissions.get(i);
+                    Matrix4x4 modelMatrix = submission.getModelMatrix();
+                    processMesh(submission.geometry, modelMatrix,
+                        viewProjection.multiplyInto(modelMatrix, mvpScratch), submission.color, rasterize);
+                }
             }
+            
+            // Draw any triangles queued for the tiled rasterizer
+            tileRasterizer.flush();
+            
+            // Sort triangles by depth (painter's algorithm)
+            renderQueue.sortBackToFront();
+            
+            // Draw triangles
+            for (int i = 0; i < renderQueue.size(); i++) {
+                drawTriangle(i);
+            }
+        }
+        
+        renderQueue.clear();
+        for (int i = 0; i < submissionCount; i++) {
+            submissions.get(i).clear();
+        }
+        submissionCount = 0;
+    }
+    
+    // Render a mesh; inside a frame this is the same as submit()
+    public void render(Renderable mesh) {
+        if (frameActive) {
+            submit(mesh);
+            return;
         }
+        beginFrame();
+        submit(mesh);
+        endFrame();
+    }
+    
+    // Draw one geometry once per transform, colored per instance
+    public void renderInstanced(Renderable geometry, Matrix4x4[] transforms, Color[] colors) {
+        renderInstanced(geometry, transforms, colors, transforms.length);
     }
     
-    // Render a mesh
-    public void render(Mesh mesh) {
-        if (camera == null) return;
+    /**
+     * Draw the first count instances of a geometry. Each instance uses
+     * transforms[i] as its model matrix in place of the geometry's own
+     * transform, and colors[i] in place of its face colors (colors may be
+     * null to keep them). Inside a frame the instances are queued like
+     * submitted meshes, and the matrices are read at endFrame().
+     */
+    public void renderInstanced(Renderable geometry, Matrix4x4[] transforms, Color[] colors, int count) {
+        if (count > transforms.length || (colors != null && count > colors.length)) {
+            throw new IllegalArgumentException("count exceeds the instance arrays");
+        }
+        if (!frameActive) {
+            beginFrame();
+            renderInstanced(geometry, transforms, colors, count);
+            endFrame();
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            addSubmission(geometry, transforms[i], colors != null ? colors[i] : null);
+        }
+    }
+    
+    private void addSubmission(Renderable geometry, Matrix4x4 model, Color color) {
+        if (submissionCount == submissions.size()) {
+            submissions.add(new Submission());
+        }
+        Submission submission = submissions.get(submissionCount++);
+        submission.geometry = geometry;
+        submission.model = model;
+        submission.color = color;
+    }
+    
+    /**
+     * Draw the submitted meshes nearest first, testing each against the
+     * hierarchical-Z pyramid before transforming it. The pyramid is brought
+     * up to date after waves of meshes that double in size, so the nearest
+     * occluders are in place early without rebuilding after every mesh.
+     */
+    private void processWithOcclusion(Matrix4x4 viewProjection, int count) {
+        if (occlusionOrder.length < count) {
+            occlusionOrder = new long[count];
+            occlusionRects = new int[count * 4];
+            occlusionDepths = new double[count];
+            occlusionModels = new Matrix4x4[count];
+            Matrix4x4[] mvps = Arrays.copyOf(occlusionMvps, count);
+            for (int i = occlusionMvps.length; i < count; i++) {
+                mvps[i] = new Matrix4x4();
+            }
+            occlusionMvps = mvps;
+        }
         
-        Matrix4x4 modelMatrix = mesh.getTransformMatrix();
-        Matrix4x4 viewMatrix = camera.getViewMatrix();
-        Matrix4x4 projectionMatrix = camera.getProjectionMatrix();
+        Renderable boundsGeometry = null;
+        BoundingBox bounds = null;
+        for (int i = 0; i < count; i++) {
+            Submission submission = submissions.get(i);
+            occlusionModels[i] = submission.getModelMatrix();
+            viewProjection.multiplyInto(occlusionModels[i], occlusionMvps[i]);
+            
+            // Instances follow each other, so their shared bounds are computed once
+            if (submission.geometry != boundsGeometry) {
+                boundsGeometry = submission.geometry;
+                bounds = boundsGeometry.getBoundingBox();
+            }
+            projectBounds(bounds, occlusionMvps[i], i);
+            
+            // Sort key: depth in the high bits (non-negative floats order as ints)
+            occlusionOrder[i] = ((long) Float.floatToIntBits((float) occlusionDepths[i]) << 32) | i;
+        }
+        Arrays.sort(occlusionOrder, 0, count);
         
-        // Combined transformation matrix
-        Matrix4x4 mvp = projectionMatrix.multiply(viewMatrix).multiply(modelMatrix);
+        int dirtyMinX = Integer.MAX_VALUE, dirtyMinY = Integer.MAX_VALUE;
+        int dirtyMaxX = Integer.MIN_VALUE, dirtyMaxY = Integer.MIN_VALUE;
+        int waveSize = FIRST_OCCLUSION_WAVE;
+        int waveEnd = waveSize;
         
-        List<TriangleProjected> projectedTriangles = new ArrayList<>();
+        for (int k = 0; k < count; k++) {
+            int i = (int) occlusionOrder[k];
+            int r = i * 4;
+            
+            if (hiZBuffer.isOccluded(occlusionRects[r], occlusionRects[r + 1],
+                    occlusionRects[r + 2], occlusionRects[r + 3], occlusionDepths[i])) {
+                stats.meshesOccluded++;
+            } else {
+                Submission submission = submissions.get(i);
+                processMesh(submission.geometry, occlusionModels[i], occlusionMvps[i], submission.color, true);
+                if (occlusionRects[r] < occlusionRects[r + 2] && occlusionRects[r + 1] < occlusionRects[r + 3]) {
+                    dirtyMinX = Math.min(dirtyMinX, occlusionRects[r]);
+                    dirtyMinY = Math.min(dirtyMinY, occlusionRects[r + 1]);
+                    dirtyMaxX = Math.max(dirtyMaxX, occlusionRects[r + 2]);
+                    dirtyMaxY = Math.max(dirtyMaxY, occlusionRects[r + 3]);
+                }
+            }
+            
+            // Rasterize the wave and refresh the pyramid where it drew
+            if (k + 1 == waveEnd || k + 1 == count) {
+                tileRasterizer.flush();
+                hiZBuffer.update(depthBuffer, dirtyMinX, dirtyMinY, dirtyMaxX, dirtyMaxY);
+                dirtyMinX = Integer.MAX_VALUE;
+                dirtyMinY = Integer.MAX_VALUE;
+                dirtyMaxX = Integer.MIN_VALUE;
+                dirtyMaxY = Integer.MIN_VALUE;
+                waveSize *= 2;
+                waveEnd = k + 1 + waveSize;
+            }
+        }
+    }
+    
+    /**
+     * Move submissions that lie entirely outside the view frustum behind
+     * the rest, keeping the visible ones in submission order, and count
+     * them in the stats. Returns the number of visible submissions.
+     */
+    private int frustumCull() {
+        if (!frustumCulling) return submissionCount;
         
-        for (Triangle tri : mesh.triangles) {
-            // Transform vertices
-            Vector3D v1World = modelMatrix.transform(tri.v1.position);
-            Vector3D v2World = modelMatrix.transform(tri.v2.position);
-            Vector3D v3World = modelMatrix.transform(tri.v3.position);
-            
-            // Calculate face normal in world space
-            Vector3D edge1 = v2World.subtract(v1World);
-            Vector3D edge2 = v3World.subtract(v1World);
-            Vector3D normal = edge1.cross(edge2).normalize();
-            
-            // Backface culling
-            if (backfaceCulling) {
-                Vector3D viewDir = v1World.subtract(camera.position).normalize();
-                if (normal.dot(viewDir) >= 0) {
-                    continue;
+        int visible = 0;
+        Renderable boundsGeometry = null;
+        BoundingBox bounds = null;
+        BoundingSphere sphere = null;
+        for (int i = 0; i < submissionCount; i++) {
+            Submission submission = submissions.get(i);
+            
+            // Instances follow each other, so their shared bounds are fetched once
+            if (submission.geometry != boundsGeometry) {
+                boundsGeometry = submission.geometry;
+                bounds = boundsGeometry.getBoundingBox();
+                sphere = boundsGeometry.getBoundingSphere();
+            }
+            
+            if (!submission.inFrustum && isOutsideFrustum(bounds, sphere, submission.getModelMatrix())) {
+                stats.meshesFrustumCulled++;
+            } else {
+                if (i != visible) {
+                    Collections.swap(submissions, i, visible);
                 }
+                visible++;
             }
+        }
+        return visible;
+    }
+    
+    /**
+     * Test object-space bounds under a model matrix against the frustum:
+     * the bounding sphere first, then the world-space box around the
+     * transformed bounding box for spheres that straddle a plane.
+     */
+    private boolean isOutsideFrustum(BoundingBox box, BoundingSphere sphere, Matrix4x4 model) {
+        if (box.isEmpty()) return false;
+        model.transformInto(sphere.center, cullCenter);
+        if (!camera.intersectsFrustum(cullCenter, sphere.radius * maxScale(model))) {
+            return true;
+        }
+        
+        // The world-space box around the transformed bounding box
+        box.transform(model, cullBox, 0);
+        return !camera.intersectsFrustum(cullBox[0], cullBox[1], cullBox[2], cullBox[3], cullBox[4], cullBox[5]);
+    }
+    
+    // Largest factor the model matrix can stretch a length by
+    private static double maxScale(Matrix4x4 model) {
+        double[] m = model.m;
+        
+        // At most sqrt(max row sum * max column sum) of the 3x3 part
+        double rows = 0, columns = 0;
+        for (int i = 0; i < 3; i++) {
+            rows = Math.max(rows, Math.abs(m[i * 4]) + Math.abs(m[i * 4 + 1]) + Math.abs(m[i * 4 + 2]));
+            columns = Math.max(columns, Math.abs(m[i]) + Math.abs(m[4 + i]) + Math.abs(m[8 + i]));
+        }
+        return Math.sqrt(rows * columns);
+    }
+    
+    // Diameter in pixels of a bounding sphere's projection, for picking detail levels
+    private double projectedSize(BoundingSphere sphere, Matrix4x4 model) {
+        if (sphere.isEmpty()) return 0;
+        model.transformInto(sphere.center, cullCenter);
+        double radius = sphere.radius * maxScale(model);
+        double distance = cullCenter.distance(camera.position);
+        if (distance <= radius) return Double.POSITIVE_INFINITY;
+        return radius * height / (distance * Math.tan(camera.fov / 2.0));
+    }
+    
+    /**
+     * Project a mesh's bounding box to a conservative pixel rectangle and
+     * nearest depth in [0, 1] for submission i. Boxes that reach the near
+     * plane cover the whole screen at depth 0, so they are never culled.
+     */
+    private void projectBounds(BoundingBox box, Matrix4x4 mvp, int i) {
+        int r = i * 4;
+        if (box.isEmpty()) {
+            // Nothing to draw, so nothing to hide behind or cull
+            occlusionRects[r] = 0;
+            occlusionRects[r + 1] = 0;
+            occlusionRects[r + 2] = 0;
+            occlusionRects[r + 3] = 0;
+            occlusionDepths[i] = 0.0;
+            return;
+        }
+        
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        double minDepth = Double.POSITIVE_INFINITY;
+        boolean crossesNear = false;
+        
+        for (int c = 0; c < 8; c++) {
+            box.getCorner(c, cornerScratch);
+            mvp.transformHomogeneous(cornerScratch, clipScratch);
+            double w = clipScratch[3];
+            if (w <= 0 || clipScratch[2] < -w) {
+                crossesNear = true;
+                break;
+            }
+            double sx = (clipScratch[0] / w + 1.0) * 0.5 * width;
+            double sy = (1.0 - clipScratch[1] / w) * 0.5 * height;
+            minX = Math.min(minX, sx);
+            maxX = Math.max(maxX, sx);
+            minY = Math.min(minY, sy);
+            maxY = Math.max(maxY, sy);
+            minDepth = Math.min(minDepth, clipScratch[2] / w * 0.5 + 0.5);
+        }
+        
+        if (crossesNear) {
+            occlusionRects[r] = 0;
+            occlusionRects[r + 1] = 0;
+            occlusionRects[r + 2] = width;
+            occlusionRects[r + 3] = height;
+            occlusionDepths[i] = 0.0;
+            return;
+        }
+        
+        // Pad by a pixel to cover rounding in the rasterizer
+        occlusionRects[r] = Math.max(0, (int) Math.floor(minX) - 1);
+        occlusionRects[r + 1] = Math.max(0, (int) Math.floor(minY) - 1);
+        occlusionRects[r + 2] = Math.min(width, (int) Math.ceil(maxX) + 2);
+        occlusionRects[r + 3] = Math.min(height, (int) Math.ceil(maxY) + 2);
+        occlusionDepths[i] = Math.max(0.0, minDepth);
+    }
+    
+    // Draw one mesh; a non-null color replaces its face colors
+    private void processMesh(Renderable renderable, Matrix4x4 modelMatrix, Matrix4x4 mvp,
+                             Color color, boolean rasterize) {
+        if (renderable instanceof SceneObject) {
+            SceneObject object = (SceneObject) renderable;
+            renderable = object.geometry;
+            if (color == null) {
+                color = object.color;
+            }
+        }
+        if (renderable instanceof LODMesh) {
+            LODMesh lod = (LODMesh) renderable;
+            double size = projectedSize(lod.getBoundingSphere(), modelMatrix);
             
-            // Transform to clip space
-            Vector3D v1Clip = mvp.transform(tri.v1.position);
-            Vector3D v2Clip = mvp.transform(tri.v2.position);
-            Vector3D v3Clip = mvp.transform(tri.v3.position);
+            // Instances share the object, so only its own placement moves its remembered level
+            boolean ownPlacement = levelHysteresis && modelMatrix == lod.getTransformMatrix();
+            int level = ownPlacement ? lod.selectLevel(size) : lod.levelFor(size, 0);
+            renderable = lod.getLevel(level);
+            if (color == null) {
+                color = lod.color;
+            }
+        }
+        if (renderable instanceof MeshData) {
+            MeshData data = (MeshData) renderable;
+            processIndexed(data.positions, data.indices, data.faceColors, modelMatrix, mvp, color, rasterize);
+            return;
+        }
+        if (renderable instanceof IndexedMesh) {
+            IndexedMesh mesh = (IndexedMesh) renderable;
+            processIndexed(mesh.positions, mesh.indices, mesh.faceColors, modelMatrix, mvp, color, rasterize);
+            return;
+        }
+        
+        Mesh mesh = (Mesh) renderable;
+        for (Triangle tri : mesh.triangles) {
+            processTriangle(tri.v1.position, tri.v2.position, tri.v3.position,
+                (color != null ? color : tri.color).getRGB(), modelMatrix, mvp, rasterize);
+        }
+    }
+    
+    /**
+     * Transform every vertex of the mesh once into world and clip space,
+     * then assemble triangles from the index buffer. Shared vertices are
+     * not transformed again for each triangle that uses them.
+     */
+    private void processIndexed(float[] positions, int[] indices, int[] faceColors,
+                                Matrix4x4 modelMatrix, Matrix4x4 mvp, Color color, boolean rasterize) {
+        int vertexCount = positions.length / 3;
+        if (vertexOutcodes.length < vertexCount) {
+            worldVertices = new double[vertexCount * 3];
+            clipVertices = new double[vertexCount * 4];
+            vertexOutcodes = new int[vertexCount];
+        }
+        
+        // Vertex stage
+        modelMatrix.transformArray(positions, worldVertices, vertexCount);
+        mvp.transformArrayHomogeneous(positions, clipVertices, vertexCount);
+        for (int v = 0, c = 0; v < vertexCount; v++, c += 4) {
+            vertexOutcodes[v] = TriangleClipper.frustumOutcode(
+                clipVertices[c], clipVertices[c + 1], clipVertices[c + 2], clipVertices[c + 3]);
+        }
+        
+        // Triangle stage
+        for (int t = 0, i = 0; t < faceColors.length; t++, i += 3) {
+            int i1 = indices[i];
+            int i2 = indices[i + 1];
+            int i3 = indices[i + 2];
             
-            // Simple clipping (skip triangles outside view frustum)
-            if (!isInViewFrustum(v1Clip) && !isInViewFrustum(v2Clip) && !isInViewFrustum(v3Clip)) {
+            // Entirely outside one frustum plane
+            if ((vertexOutcodes[i1] & vertexOutcodes[i2] & vertexOutcodes[i3]) != 0) {
                 continue;
             }
             
-            // Convert to screen space
-            Point p1 = toScreenSpace(v1Clip);
-            Point p2 = toScreenSpace(v2Clip);
-            Point p3 = toScreenSpace(v3Clip);
-            
-            // Calculate lighting
-            Color finalColor = tri.color;
-            if (useLighting && !lights.isEmpty()) {
-                Vector3D center = new Vector3D(
-                    (v1World.x + v2World.x + v3World.x) / 3.0,
-                    (v1World.y + v2World.y + v3World.y) / 3.0,
-                    (v1World.z + v2World.z + v3World.z) / 3.0
-                );
-                
-                finalColor = calculateLighting(center, normal, tri.color);
+            world1.set(worldVertices[i1 * 3], worldVertices[i1 * 3 + 1], worldVertices[i1 * 3 + 2]);
+            world2.set(worldVertices[i2 * 3], worldVertices[i2 * 3 + 1], worldVertices[i2 * 3 + 2]);
+            world3.set(worldVertices[i3 * 3], worldVertices[i3 * 3 + 1], worldVertices[i3 * 3 + 2]);
+            if (isBackFacing()) {
+                continue;
             }
             
-            // Calculate average depth for sorting
-            double avgDepth = (v1Clip.z + v2Clip.z + v3Clip.z) / 3.0;
+            System.arraycopy(clipVertices, i1 * 4, clip1, 0, 4);
+            System.arraycopy(clipVertices, i2 * 4, clip2, 0, 4);
+            System.arraycopy(clipVertices, i3 * 4, clip3, 0, 4);
+            drawClipped(color != null ? color.getRGB() : faceColors[t], rasterize);
+        }
+    }
+    
+    // Cull, clip, light and emit one object-space triangle
+    private void processTriangle(Vector3D p1, Vector3D p2, Vector3D p3, int color,
+                                 Matrix4x4 modelMatrix, Matrix4x4 mvp, boolean rasterize) {
+        // Transform vertices
+        modelMatrix.transformInto(p1, world1);
+        modelMatrix.transformInto(p2, world2);
+        modelMatrix.transformInto(p3, world3);
+        if (isBackFacing()) {
+            return;
+        }
+        
+        // Transform to homogeneous clip space
+        mvp.transformHomogeneous(p1, clip1);
+        mvp.transformHomogeneous(p2, clip2);
+        mvp.transformHomogeneous(p3, clip3);
+        
+        // Skip triangles entirely outside one frustum plane
+        if (TriangleClipper.isOutside(clip1, clip2, clip3)) {
+            return;
+        }
+        drawClipped(color, rasterize);
+    }
+    
+    // Compute the world-space face normal of world1..3 and test it against the camera
+    private boolean isBackFacing() {
+        Vector3D edge1 = world2.subtractInto(world1, edgeScratch1);
+        Vector3D edge2 = world3.subtractInto(world1, edgeScratch2);
+        Vector3D normal = edge1.crossInto(edge2, faceNormal).normalizeInto(faceNormal);
+        
+        if (backfaceCulling) {
+            Vector3D viewDir = world1.subtractInto(camera.position, edgeScratch1).normalizeInto(edgeScratch1);
+            return normal.dot(viewDir) >= 0;
+        }
+        return false;
+    }
+    
+    // Clip, light and emit the triangle in clip1..3 (world1..3 and faceNormal set); color is ARGB
+    private void drawClipped(int color, boolean rasterize) {
+        // Clip before the perspective divide
+        int vertexCount = clipper.clip(clip1, clip2, clip3);
+        if (vertexCount == 0) {
+            return;
+        }
+        
+        // Calculate lighting
+        int finalColor = color;
+        if (useLighting && !lights.isEmpty()) {
+            Vector3D center = faceCenter.set(
+                (world1.x + world2.x + world3.x) / 3.0,
+                (world1.y + world2.y + world3.y) / 3.0,
+                (world1.z + world2.z + world3.z) / 3.0
+            );
             
-            projectedTriangles.add(new TriangleProjected(p1, p2, p3, finalColor, avgDepth));
+            finalColor = calculateLighting(center, faceNormal, color);
         }
         
-        // Sort triangles by depth (painter's algorithm)
-        projectedTriangles.sort((a, b) -> Double.compare(b.depth, a.depth));
+        // Perspective divide and viewport mapping
+        double[] clipped = clipper.getVertices();
+        for (int i = 0; i < vertexCount; i++) {
+            int c = i * 4;
+            int v = i * 3;
+            double w = clipped[c + 3];
+            screenVertices[v] = toScreenX(clipped[c] / w);
+            screenVertices[v + 1] = toScreenY(clipped[c + 1] / w);
+            screenVertices[v + 2] = clipped[c + 2] / w;
+        }
         
-        // Draw triangles
-        for (TriangleProjected tri : projectedTriangles) {
-            drawTriangle(tri);
+        // Draw the clipped polygon as a fan
+        for (int i = 1; i < vertexCount - 1; i++) {
+            emitTriangle(0, i * 3, (i + 1) * 3, finalColor, rasterize);
         }
     }
     
-    private boolean isInViewFrustum(Vector3D v) {
-        return v.x >= -1.5 && v.x <= 1.5 &&
-               v.y >= -1.5 && v.y <= 1.5 &&
-               v.z >= -1.5 && v.z <= 1.5;
+    // Queue or rasterize one screen-space triangle from screenVertices
+    private void emitTriangle(int a, int b, int c, int color, boolean rasterize) {
+        double[] v = screenVertices;
+        stats.trianglesDrawn++;
+        
+        if (rasterize) {
+            if (pipeline != null) {
+                pipeline.emit(
+                    v[a], v[a + 1], v[a + 2],
+                    v[b], v[b + 1], v[b + 2],
+                    v[c], v[c + 1], v[c + 2],
+                    color);
+            } else if (parallelRasterization) {
+                tileRasterizer.add(
+                    v[a], v[a + 1], v[a + 2],
+                    v[b], v[b + 1], v[b + 2],
+                    v[c], v[c + 1], v[c + 2],
+                    color);
+            } else {
+                rasterizer.fillTriangle(
+                    v[a], v[a + 1], v[a + 2],
+                    v[b], v[b + 1], v[b + 2],
+                    v[c], v[c + 1], v[c + 2],
+                    color);
+            }
+            return;
+        }
+        
+        // Calculate average depth for sorting
+        double avgDepth = (v[a + 2] + v[b + 2] + v[c + 2]) / 3.0;
+        
+        renderQueue.add(
+            (int) v[a], (int) v[a + 1],
+            (int) v[b], (int) v[b + 1],
+            (int) v[c], (int) v[c + 1],
+            color, avgDepth);
+    }
+    
+    private double toScreenX(double ndcX) {
+        return (ndcX + 1.0) * 0.5 * width;
     }
     
-    private Point toScreenSpace(Vector3D clipSpace) {
-        int x = (int) ((clipSpace.x + 1.0) * 0.5 * width);
-        int y = (int) ((1.0 - clipSpace.y) * 0.5 * height);
-        return new Point(x, y);
+    private double toScreenY(double ndcY) {
+        return (1.0 - ndcY) * 0.5 * height;
     }
     
-    private Color calculateLighting(Vector3D point, Vector3D normal, Color baseColor) {
+    // Sum of every light's contribution to a packed ARGB color, as opaque packed RGB; package-private for tests
+    int calculateLighting(Vector3D point, Vector3D normal, int baseColor) {
         int r = 0, g = 0, b = 0;
         
-        for (Light light : lights) {
-            Color lightContribution = light.calculateLighting(point, normal, baseColor);
-            r += lightContribution.getRed();
-            g += lightContribution.getGreen();
-            b += lightContribution.getBlue();
+        for (int i = 0; i < lights.size(); i++) {
+            int contribution = lights.get(i).calculateLighting(point, normal, baseColor);
+            r += (contribution >> 16) & 0xFF;
+            g += (contribution >> 8) & 0xFF;
+            b += contribution & 0xFF;
         }
         
-        return new Color(
-            Math.min(255, r),
-            Math.min(255, g),
-            Math.min(255, b)
-        );
+        return 0xFF000000 | Math.min(255, r) << 16 | Math.min(255, g) << 8 | Math.min(255, b);
     }
     
-    private void drawTriangle(TriangleProjected tri) {
+    // Draw the queued triangle at a sorted position with Java2D
+    private void drawTriangle(int index) {
+        renderQueue.getPolygon(index, polygonX, polygonY);
+        int argb = renderQueue.getColor(index);
+        if (queueColor == null || queueColor.getRGB() != argb) {
+            queueColor = new Color(argb, true);
+        }
+        
         if (wireframeMode) {
-            g2d.setColor(tri.color);
-            g2d.drawLine(tri.p1.x, tri.p1.y, tri.p2.x, tri.p2.y);
-            g2d.drawLine(tri.p2.x, tri.p2.y, tri.p3.x, tri.p3.y);
-            g2d.drawLine(tri.p3.x, tri.p3.y, tri.p1.x, tri.p1.y);
+            g2d.setColor(queueColor);
+            g2d.drawLine(polygonX[0], polygonY[0], polygonX[1], polygonY[1]);
+            g2d.drawLine(polygonX[1], polygonY[1], polygonX[2], polygonY[2]);
+            g2d.drawLine(polygonX[2], polygonY[2], polygonX[0], polygonY[0]);
         } else {
-            int[] xPoints = {tri.p1.x, tri.p2.x, tri.p3.x};
-            int[] yPoints = {tri.p1.y, tri.p2.y, tri.p3.y};
-            
-            g2d.setColor(tri.color);
-            g2d.fillPolygon(xPoints, yPoints, 3);
+            g2d.setColor(queueColor);
+            g2d.fillPolygon(polygonX, polygonY, 3);
             
             // Optional: draw edges
-            g2d.setColor(new Color(0, 0, 0, 50));
-            g2d.drawPolygon(xPoints, yPoints, 3);
+            g2d.setColor(EDGE_COLOR);
+            g2d.drawPolygon(polygonX, polygonY, 3);
         }
     }
     
@@ -202,33 +876,67 @@ public class Renderer3D {
         return buffer;
     }
     
-    public void resize(int width, int height) {
-        this.width = width;
-        this.height = height;
-        this.buffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        this.g2d = buffer.createGraphics();
-        this.zBuffer = new double[width][height];
-        
+    /**
+     * Render into another image from now on and return the previous one,
+     * so a finished frame can be shown while the next is drawn. The image
+     * must be TYPE_INT_ARGB and the size of the renderer. The depth buffer
+     * is kept, so call clear() before drawing the next frame.
+     */
+    public BufferedImage swapBuffer(BufferedImage next) {
+        if (next.getType() != BufferedImage.TYPE_INT_ARGB || next.getWidth() != width || next.getHeight() != height) {
+            throw new IllegalArgumentException("Buffer must be a " + width + "x" + height + " TYPE_INT_ARGB image");
+        }
+        BufferedImage previous = buffer;
+        g2d.dispose();
+        buffer = next;
+        g2d = next.createGraphics();
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        pixels = ((DataBufferInt) next.getRaster().getDataBuffer()).getData();
+        rasterizer.setPixels(pixels);
+        return previous;
+    }
+    
+    /**
+     * Whether drawing an LODMesh updates the level it remembers. Renderers
+     * drawing one scene on several threads turn this off, so each picks
+     * levels from the projected size alone and never writes the shared
+     * mesh.
+     */
+    void setLevelHysteresis(boolean levelHysteresis) {
+        this.levelHysteresis = levelHysteresis;
+    }
+    
+    // Route triangles to a running pipeline, or back to this renderer's rasterizer with null
+    void setPipeline(FramePipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+    
+    public void resize(int width, int height) {
+        createBuffers(width, height);
         
         if (camera != null) {
             camera.aspectRatio = (double) width / height;
         }
     }
     
-    // Helper class for projected triangles
-    private static class TriangleProjected {
-        Point p1, p2, p3;
-        Color color;
-        double depth;
+    // A mesh queued for the current frame, pooled across frames
+    private static final class Submission {
+        Renderable geometry;
+        Matrix4x4 model;   // instance transform, or null for the geometry's own
+        Color color;       // instance color, or null for the face colors
+        boolean inFrustum; // already culled by a SceneBVH
+        
+        Matrix4x4 getModelMatrix() {
+            return model != null ? model : geometry.getTransformMatrix();
+        }
         
-        TriangleProjected(Point p1, Point p2, Point p3, Color color, double depth) {
-            this.p1 = p1;
-            this.p2 = p2;
-            this.p3 = p3;
-            this.color = color;
-            this.depth = depth;
+        // Drop references so pooled entries do not keep meshes alive
+        void clear() {
+            geometry = null;
+            model = null;
+            color = null;
+            inFrustum = false;
         }
     }
 }
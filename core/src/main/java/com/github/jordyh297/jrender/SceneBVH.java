@@ -0,0 +1,638 @@
+package com.github.jordyh297.jrender;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Bounding volume hierarchy over the world-space bounds of scene objects,
+ * for frustum culling and region queries that only visit the parts of the
+ * scene they can reach.
+ * <p>
+ * Objects that move are reported with {@link #update(Renderable)}, which
+ * refits the boxes on the way to the root without changing the tree.
+ * Adding or removing objects, or {@link #rebuild()}, rebuilds the whole
+ * tree in parallel. The tree splits each node at the median object along
+ * its longest axis, so its shape depends only on the object bounds and
+ * not on how the build was scheduled.
+ * <p>
+ * Not thread-safe: build and query from one thread at a time.
+ */
+public class SceneBVH {
+    // Objects per leaf
+    private static final int LEAF_SIZE = 4;
+    
+    // Below this many objects a subtree is built on the calling thread
+    private static final int PARALLEL_THRESHOLD = 2048;
+    
+    // Plane mask with all six frustum planes still to test
+    private static final int ALL_PLANES = 0x3f;
+    
+    private final ForkJoinPool pool;
+    private final List<Renderable> objects = new ArrayList<>();
+    private final Map<Renderable, Integer> indices = new IdentityHashMap<>();
+    private boolean needsRebuild;
+    
+    // World bounds per object: min x, y, z, max x, y, z
+    private double[] objectBounds = new double[0];
+    private int[] objectLeaf = new int[0];
+    
+    // Doubled box centers per object, used only while building
+    private double[] centroids = new double[0];
+    
+    // Object indices in leaf order; each leaf owns a contiguous range
+    private int[] order = new int[0];
+    
+    // Nodes: bounds (6 per node), parent, and for leaves the range in order.
+    // Internal nodes have their left child at node + 1 and store the right
+    // child in nodeStart, with a count of 0.
+    private double[] nodeBounds = new double[0];
+    private int[] nodeParent = new int[0];
+    private int[] nodeStart = new int[0];
+    private int[] nodeCount = new int[0];
+    private int nodeTotal;
+    
+    // Leaves waiting for refit() after update()
+    private int[] dirtyLeaves = new int[16];
+    private int dirtyCount;
+    private boolean[] leafDirty = new boolean[0];
+    
+    private int[] stack = new int[64];
+    
+    public SceneBVH() {
+        this(ForkJoinPool.commonPool());
+    }
+    
+    public SceneBVH(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+    
+    // Add an object; the tree is rebuilt before the next query
+    public void add(Renderable object) {
+        if (indices.containsKey(object)) {
+            throw new IllegalArgumentException("Object is already in the hierarchy");
+        }
+        indices.put(object, objects.size());
+        objects.add(object);
+        needsRebuild = true;
+    }
+    
+    public void addAll(Iterable<? extends Renderable> objects) {
+        for (Renderable object : objects) {
+            add(object);
+        }
+    }
+    
+    // Remove an object; the tree is rebuilt before the next query
+    public boolean remove(Renderable object) {
+        Integer index = indices.remove(object);
+        if (index == null) return false;
+        
+        // Move the last object into the hole
+        Renderable last = objects.remove(objects.size() - 1);
+        if (last != object) {
+            objects.set(index, last);
+            indices.put(last, index);
+        }
+        needsRebuild = true;
+        return true;
+    }
+    
+    public void clear() {
+        objects.clear();
+        indices.clear();
+        needsRebuild = true;
+    }
+    
+    public int size() {
+        return objects.size();
+    }
+    
+    // Every object, in no particular order; read-only
+    public List<Renderable> getObjects() {
+        return Collections.unmodifiableList(objects);
+    }
+    
+    public boolean contains(Renderable object) {
+        return indices.containsKey(object);
+    }
+    
+    /**
+     * Record that an object moved or changed shape. Its bounds are
+     * recomputed now; the boxes above it are refit before the next query.
+     */
+    public void update(Renderable object) {
+        Integer index = indices.get(object);
+        if (index == null) {
+            throw new IllegalArgumentException("Object is not in the hierarchy");
+        }
+        if (needsRebuild) return;
+        
+        computeObjectBounds(index);
+        int leaf = objectLeaf[index];
+        if (!leafDirty[leaf]) {
+            leafDirty[leaf] = true;
+            if (dirtyCount == dirtyLeaves.length) {
+                dirtyLeaves = Arrays.copyOf(dirtyLeaves, dirtyCount * 2);
+            }
+            dirtyLeaves[dirtyCount++] = leaf;
+        }
+    }
+    
+    // Refit the boxes above every object reported with update()
+    public void refit() {
+        if (needsRebuild) {
+            rebuild();
+            return;
+        }
+        for (int i = 0; i < dirtyCount; i++) {
+            int node = dirtyLeaves[i];
+            leafDirty[node] = false;
+            computeLeafBounds(node);
+            
+            // Walk up while the union actually changes
+            for (int parent = nodeParent[node]; parent >= 0; parent = nodeParent[parent]) {
+                if (!computeInternalBounds(parent)) break;
+            }
+        }
+        dirtyCount = 0;
+    }
+    
+    // Recompute every object's bounds and refit the whole tree, keeping its shape
+    public void refitAll() {
+        if (needsRebuild) {
+            rebuild();
+            return;
+        }
+        runBoundsTask(objects.size());
+        for (int node = nodeTotal - 1; node >= 0; node--) {
+            if (nodeCount[node] > 0) {
+                computeLeafBounds(node);
+            } else {
+                computeInternalBounds(node);
+            }
+        }
+        Arrays.fill(leafDirty, false);
+        dirtyCount = 0;
+    }
+    
+    // Rebuild the tree from scratch, in parallel on the pool for large scenes
+    public void rebuild() {
+        int count = objects.size();
+        needsRebuild = false;
+        dirtyCount = 0;
+        
+        if (objectBounds.length < count * 6) {
+            objectBounds = new double[count * 6];
+            objectLeaf = new int[count];
+            order = new int[count];
+            centroids = new double[count * 3];
+        }
+        nodeTotal = count == 0 ? 0 : 2 * leafCount(count) - 1;
+        if (nodeCount.length < nodeTotal) {
+            nodeBounds = new double[nodeTotal * 6];
+            nodeParent = new int[nodeTotal];
+            nodeStart = new int[nodeTotal];
+            nodeCount = new int[nodeTotal];
+            leafDirty = new boolean[nodeTotal];
+        } else {
+            Arrays.fill(leafDirty, false);
+        }
+        if (count == 0) return;
+        
+        runBoundsTask(count);
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+            int b = i * 6;
+            boolean empty = objectBounds[b] > objectBounds[b + 3];
+            centroids[i * 3] = empty ? 0 : objectBounds[b] + objectBounds[b + 3];
+            centroids[i * 3 + 1] = empty ? 0 : objectBounds[b + 1] + objectBounds[b + 4];
+            centroids[i * 3 + 2] = empty ? 0 : objectBounds[b + 2] + objectBounds[b + 5];
+        }
+        
+        BuildTask root = new BuildTask(0, -1, 0, count);
+        if (count >= PARALLEL_THRESHOLD && pool.getParallelism() > 1) {
+            pool.invoke(root);
+        } else {
+            root.build();
+        }
+    }
+    
+    /**
+     * Append every object whose world bounds intersect the camera's view
+     * frustum to out, and return how many were added. Subtrees entirely
+     * inside the frustum are taken without testing their objects.
+     */
+    public int collectVisible(Camera camera, List<? super Renderable> out) {
+        refit();
+        if (nodeTotal == 0) return 0;
+        
+        double[] planes = camera.getFrustumPlanes();
+        int added = 0;
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = ALL_PLANES;
+        
+        while (top > 0) {
+            int mask = stack[--top];
+            int node = stack[--top];
+            
+            mask = classify(planes, nodeBounds, node * 6, mask);
+            if (mask < 0) continue;
+            
+            if (mask == 0) {
+                // Entirely inside: take the whole subtree
+                added += collectSubtree(node, out);
+            } else if (nodeCount[node] > 0) {
+                int end = nodeStart[node] + nodeCount[node];
+                for (int i = nodeStart[node]; i < end; i++) {
+                    if (classify(planes, objectBounds, order[i] * 6, mask) >= 0) {
+                        out.add(objects.get(order[i]));
+                        added++;
+                    }
+                }
+            } else {
+                if (top + 4 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[top++] = nodeStart[node];
+                stack[top++] = mask;
+                stack[top++] = node + 1;
+                stack[top++] = mask;
+            }
+        }
+        return added;
+    }
+    
+    // Append every object whose world bounds intersect the box; returns how many
+    public int collectIntersecting(BoundingBox box, List<? super Renderable> out) {
+        refit();
+        if (nodeTotal == 0 || box.isEmpty()) return 0;
+        
+        double[] query = {box.min.x, box.min.y, box.min.z, box.max.x, box.max.y, box.max.z};
+        int added = 0;
+        int top = 0;
+        stack[top++] = 0;
+        
+        while (top > 0) {
+            int node = stack[--top];
+            if (!overlaps(nodeBounds, node * 6, query)) continue;
+            
+            if (nodeCount[node] > 0) {
+                int end = nodeStart[node] + nodeCount[node];
+                for (int i = nodeStart[node]; i < end; i++) {
+                    if (overlaps(objectBounds, order[i] * 6, query)) {
+                        out.add(objects.get(order[i]));
+                        added++;
+                    }
+                }
+            } else {
+                if (top + 2 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[top++] = nodeStart[node];
+                stack[top++] = node + 1;
+            }
+        }
+        return added;
+    }
+    
+    // Append every object whose world bounds the ray enters within maxDistance; returns how many
+    public int collectAlongRay(Ray ray, double maxDistance, List<? super Renderable> out) {
+        refit();
+        if (nodeTotal == 0) return 0;
+        
+        double ox = ray.origin.x, oy = ray.origin.y, oz = ray.origin.z;
+        double ix = 1.0 / ray.direction.x, iy = 1.0 / ray.direction.y, iz = 1.0 / ray.direction.z;
+        int added = 0;
+        int top = 0;
+        stack[top++] = 0;
+        
+        while (top > 0) {
+            int node = stack[--top];
+            if (!rayEnters(nodeBounds, node * 6, ox, oy, oz, ix, iy, iz, maxDistance)) continue;
+            
+            if (nodeCount[node] > 0) {
+                int end = nodeStart[node] + nodeCount[node];
+                for (int i = nodeStart[node]; i < end; i++) {
+                    if (rayEnters(objectBounds, order[i] * 6, ox, oy, oz, ix, iy, iz, maxDistance)) {
+                        out.add(objects.get(order[i]));
+                        added++;
+                    }
+                }
+            } else {
+                if (top + 2 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[top++] = nodeStart[node];
+                stack[top++] = node + 1;
+            }
+        }
+        return added;
+    }
+    
+    // World bounds of the whole scene, or an empty box
+    public BoundingBox getBounds() {
+        refit();
+        if (nodeTotal == 0) return new BoundingBox();
+        return new BoundingBox(
+            new Vector3D(nodeBounds[0], nodeBounds[1], nodeBounds[2]),
+            new Vector3D(nodeBounds[3], nodeBounds[4], nodeBounds[5]));
+    }
+    
+    /**
+     * Test a box against the frustum planes still set in mask. Returns -1
+     * if it is outside one of them, otherwise the mask with the planes it is
+     * entirely inside of cleared, so children skip them.
+     */
+    private static int classify(double[] planes, double[] bounds, int b, int mask) {
+        // Empty objects and subtrees of only empty objects are never visible
+        if (bounds[b] > bounds[b + 3]) return -1;
+        
+        for (int plane = 0; plane < 6; plane++) {
+            int bit = 1 << plane;
+            if ((mask & bit) == 0) continue;
+            
+            int p = plane * 4;
+            double a = planes[p], bb = planes[p + 1], c = planes[p + 2], d = planes[p + 3];
+            
+            // Corner furthest along the normal decides outside, nearest decides inside
+            double far = a * (a >= 0 ? bounds[b + 3] : bounds[b])
+                + bb * (bb >= 0 ? bounds[b + 4] : bounds[b + 1])
+                + c * (c >= 0 ? bounds[b + 5] : bounds[b + 2]) + d;
+            if (far < 0) return -1;
+            
+            double near = a * (a >= 0 ? bounds[b] : bounds[b + 3])
+                + bb * (bb >= 0 ? bounds[b + 1] : bounds[b + 4])
+                + c * (c >= 0 ? bounds[b + 2] : bounds[b + 5]) + d;
+            if (near >= 0) mask &= ~bit;
+        }
+        return mask;
+    }
+    
+    // Slab test of a ray, given the reciprocal of its direction
+    static boolean rayEnters(double[] bounds, int b, double ox, double oy, double oz,
+                             double ix, double iy, double iz, double maxDistance) {
+        if (bounds[b] > bounds[b + 3]) return false;
+        double t0 = (bounds[b] - ox) * ix;
+        double t1 = (bounds[b + 3] - ox) * ix;
+        double near = Math.min(t0, t1);
+        double far = Math.max(t0, t1);
+        t0 = (bounds[b + 1] - oy) * iy;
+        t1 = (bounds[b + 4] - oy) * iy;
+        near = Math.max(near, Math.min(t0, t1));
+        far = Math.min(far, Math.max(t0, t1));
+        t0 = (bounds[b + 2] - oz) * iz;
+        t1 = (bounds[b + 5] - oz) * iz;
+        near = Math.max(near, Math.min(t0, t1));
+        far = Math.min(far, Math.max(t0, t1));
+        return far >= near && far >= 0 && near <= maxDistance;
+    }
+    
+    private static boolean overlaps(double[] bounds, int b, double[] query) {
+        return bounds[b] <= query[3] && bounds[b + 3] >= query[0]
+            && bounds[b + 1] <= query[4] && bounds[b + 4] >= query[1]
+            && bounds[b + 2] <= query[5] && bounds[b + 5] >= query[2];
+    }
+    
+    // Subtrees occupy consecutive node indices, so their leaves are one range of order
+    private int collectSubtree(int node, List<? super Renderable> out) {
+        int first = node;
+        while (nodeCount[first] == 0) {
+            first = first + 1;
+        }
+        int last = node;
+        while (nodeCount[last] == 0) {
+            last = nodeStart[last];
+        }
+        int start = nodeStart[first];
+        int end = nodeStart[last] + nodeCount[last];
+        for (int i = start; i < end; i++) {
+            out.add(objects.get(order[i]));
+        }
+        return end - start;
+    }
+    
+    private void computeObjectBounds(int index) {
+        Renderable object = objects.get(index);
+        BoundingBox box = object.getBoundingBox();
+        int b = index * 6;
+        if (box.isEmpty()) {
+            // Never visible and never overlapping
+            objectBounds[b] = objectBounds[b + 1] = objectBounds[b + 2] = Double.POSITIVE_INFINITY;
+            objectBounds[b + 3] = objectBounds[b + 4] = objectBounds[b + 5] = Double.NEGATIVE_INFINITY;
+        } else {
+            box.transform(object.getTransformMatrix(), objectBounds, b);
+        }
+    }
+    
+    private void computeLeafBounds(int node) {
+        double[] nb = nodeBounds;
+        int n = node * 6;
+        nb[n] = nb[n + 1] = nb[n + 2] = Double.POSITIVE_INFINITY;
+        nb[n + 3] = nb[n + 4] = nb[n + 5] = Double.NEGATIVE_INFINITY;
+        int end = nodeStart[node] + nodeCount[node];
+        for (int i = nodeStart[node]; i < end; i++) {
+            int b = order[i] * 6;
+            for (int k = 0; k < 3; k++) {
+                nb[n + k] = Math.min(nb[n + k], objectBounds[b + k]);
+                nb[n + 3 + k] = Math.max(nb[n + 3 + k], objectBounds[b + 3 + k]);
+            }
+        }
+    }
+    
+    // Union of the two children; returns whether the box changed
+    private boolean computeInternalBounds(int node) {
+        double[] nb = nodeBounds;
+        int n = node * 6;
+        int l = (node + 1) * 6;
+        int r = nodeStart[node] * 6;
+        boolean changed = false;
+        for (int k = 0; k < 3; k++) {
+            double min = Math.min(nb[l + k], nb[r + k]);
+            double max = Math.max(nb[l + 3 + k], nb[r + 3 + k]);
+            if (min != nb[n + k] || max != nb[n + 3 + k]) changed = true;
+            nb[n + k] = min;
+            nb[n + 3 + k] = max;
+        }
+        return changed;
+    }
+    
+    private void runBoundsTask(int count) {
+        BoundsTask task = new BoundsTask(0, count);
+        if (count >= PARALLEL_THRESHOLD && pool.getParallelism() > 1) {
+            pool.invoke(task);
+        } else {
+            task.compute();
+        }
+    }
+    
+    /**
+     * Leaves in a subtree over count objects. Median splits give children
+     * of floor(n/2) and ceil(n/2), so each level has at most two distinct
+     * sizes; computing f(n) and f(n + 1) together keeps this logarithmic.
+     */
+    private static int leafCount(int count) {
+        return (int) (leafCountPair(count) >>> 32);
+    }
+    
+    private static long leafCountPair(int n) {
+        if (n < LEAF_SIZE) return (1L << 32) | 1L;
+        if (n == LEAF_SIZE) return (1L << 32) | 2L;
+        long half = leafCountPair(n / 2);
+        long fh = half >>> 32;
+        long fh1 = half & 0xffffffffL;
+        if (n % 2 == 0) {
+            return ((2 * fh) << 32) | (fh + fh1);
+        }
+        return ((fh + fh1) << 32) | (2 * fh1);
+    }
+    
+    // Doubled centroid of an object along an axis; ordering does not need the halving
+    private double centroid(int index, int axis) {
+        return centroids[index * 3 + axis];
+    }
+    
+    // Partition order[start, end) so that position k holds its sorted element by centroid
+    private void select(int start, int end, int k, int axis) {
+        int lo = start;
+        int hi = end - 1;
+        while (lo < hi) {
+            double pivot = centroid(order[(lo + hi) >>> 1], axis);
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (centroid(order[i], axis) < pivot) i++;
+                while (centroid(order[j], axis) > pivot) j--;
+                if (i <= j) {
+                    int t = order[i];
+                    order[i] = order[j];
+                    order[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+    
+    // Builds the subtree over order[start, end) at node index node
+    private class BuildTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final int node;
+        private final int parent;
+        private final int start;
+        private final int end;
+        
+        BuildTask(int node, int parent, int start, int end) {
+            this.node = node;
+            this.parent = parent;
+            this.start = start;
+            this.end = end;
+        }
+        
+        @Override
+        protected void compute() {
+            int count = end - start;
+            if (count <= LEAF_SIZE) {
+                build();
+                return;
+            }
+            int mid = split();
+            int right = nodeStart[node];
+            BuildTask left = new BuildTask(node + 1, node, start, mid);
+            BuildTask rightTask = new BuildTask(right, node, mid, end);
+            if (count >= PARALLEL_THRESHOLD) {
+                invokeAll(left, rightTask);
+            } else {
+                left.build();
+                rightTask.build();
+            }
+            computeInternalBounds(node);
+        }
+        
+        // Sequential build of this subtree
+        void build() {
+            int count = end - start;
+            nodeParent[node] = parent;
+            if (count <= LEAF_SIZE) {
+                nodeStart[node] = start;
+                nodeCount[node] = count;
+                for (int i = start; i < end; i++) {
+                    objectLeaf[order[i]] = node;
+                }
+                computeLeafBounds(node);
+                return;
+            }
+            int mid = split();
+            int right = nodeStart[node];
+            new BuildTask(node + 1, node, start, mid).build();
+            new BuildTask(right, node, mid, end).build();
+            computeInternalBounds(node);
+        }
+        
+        // Median split along the longest axis of the centroids; fills in the node
+        private int split() {
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+            for (int i = start; i < end; i++) {
+                int index = order[i];
+                double x = centroid(index, 0), y = centroid(index, 1), z = centroid(index, 2);
+                if (x < minX) minX = x;
+                if (x > maxX) maxX = x;
+                if (y < minY) minY = y;
+                if (y > maxY) maxY = y;
+                if (z < minZ) minZ = z;
+                if (z > maxZ) maxZ = z;
+            }
+            double dx = maxX - minX, dy = maxY - minY, dz = maxZ - minZ;
+            int axis = (dx >= dy && dx >= dz) ? 0 : (dy >= dz ? 1 : 2);
+            
+            int mid = start + (end - start) / 2;
+            select(start, end, mid, axis);
+            
+            int right = node + 2 * leafCount(mid - start);
+            nodeParent[node] = parent;
+            nodeStart[node] = right;
+            nodeCount[node] = 0;
+            return mid;
+        }
+    }
+    
+    // Computes world bounds for objects [from, to)
+    private class BoundsTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        
+        private final int from;
+        private final int to;
+        
+        BoundsTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    computeObjectBounds(i);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BoundsTask(from, mid), new BoundsTask(mid, to));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.jordyh297.jrender;
+
+import java.awt.Color;
+
+/**
+ * One placed copy of shared {@link MeshData}: its own position, rotation
+ * and scale plus a material color. Many objects can reference the same
+ * geometry, so memory grows with the number of distinct shapes.
+ */
+public class SceneObject implements Renderable {
+    public final MeshData geometry;
+    public Vector3D position;
+    public Vector3D rotation;
+    public Vector3D scale;
+    
+    // Material color for every face, or null to keep the geometry's face colors
+    public Color color;
+    
+    // Model matrix cache, rebuilt when position, rotation or scale change
+    private final Transform transform = new Transform();
+    
+    public SceneObject(MeshData geometry) {
+        this(geometry, null);
+    }
+    
+    public SceneObject(MeshData geometry, Color color) {
+        if (geometry == null) {
+            throw new IllegalArgumentException("geometry must not be null");
+        }
+        this.geometry = geometry;
+        this.color = color;
+        this.position = new Vector3D(0, 0, 0);
+        this.rotation = new Vector3D(0, 0, 0);
+        this.scale = new Vector3D(1, 1, 1);
+    }
+    
+    // Cached like Mesh.getTransformMatrix(); must not be modified
+    @Override
+    public Matrix4x4 getTransformMatrix() {
+        return transform.getMatrix(position, rotation, scale);
+    }
+    
+    // Inverse transpose of the model matrix, for transforming normals
+    public Matrix4x4 getNormalMatrix() {
+        getTransformMatrix();
+        return transform.getNormalMatrix();
+    }
+    
+    // The geometry's shared triangle hierarchy
+    public TriangleBVH getTriangleBVH() {
+        return geometry.getTriangleBVH();
+    }
+    
+    // The geometry's shared object-space bounds; must not be modified
+    @Override
+    public BoundingBox getBoundingBox() {
+        return geometry.getBoundingBox();
+    }
+    
+    // The geometry's shared object-space bounding sphere; must not be modified
+    @Override
+    public BoundingSphere getBoundingSphere() {
+        return geometry.getBoundingSphere();
+    }
+}
@@ -0,0 +1,175 @@
+package com.github.jordyh297.jrender;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands object transforms from a simulation thread to a render thread
+ * without locks. The simulation writes a complete set of transforms into
+ * its own buffer and publishes it; the renderer takes the newest published
+ * set at the start of a frame and keeps it, unchanged, until it asks for
+ * the next one. Neither side ever waits for the other or sees a half
+ * written update.
+ * <p>
+ * There are three buffers: one being written, one being drawn, and the
+ * latest published one in between. Publishing and acquiring each swap a
+ * buffer with the middle one in a single atomic operation. Buffers hold
+ * references to shared geometry and copies of the matrices only, so no
+ * mesh is copied. A buffer handed back to the writer holds an older
+ * update, so the writer fills in every object it wants drawn each time.
+ * <p>
+ * One thread may write and one may read.
+ */
+public class SceneUpdateChannel {
+    /**
+     * One complete update: geometry, model matrix and color per object.
+     */
+    public static final class Snapshot {
+        private Renderable[] geometry;
+        private Matrix4x4[] transforms;
+        private Color[] colors;
+        private int count;
+        private long sequence;
+        
+        Snapshot(int capacity) {
+            geometry = new Renderable[capacity];
+            transforms = new Matrix4x4[capacity];
+            colors = new Color[capacity];
+            for (int i = 0; i < capacity; i++) {
+                transforms[i] = new Matrix4x4();
+            }
+        }
+        
+        // Objects in this update
+        public int getCount() {
+            return count;
+        }
+        
+        // Drop the objects beyond the first count, e.g. before writing fewer than last time
+        public void setCount(int count) {
+            ensureCapacity(count);
+            for (int i = count; i < this.count; i++) {
+                geometry[i] = null;
+                colors[i] = null;
+            }
+            this.count = count;
+        }
+        
+        // Number of the publish() that produced this update, 0 before any
+        public long getSequence() {
+            return sequence;
+        }
+        
+        /**
+         * Set object i from a model matrix, which is copied. A null color
+         * keeps the geometry's face colors. Objects up to i are counted.
+         */
+        public void set(int i, Renderable geometry, Matrix4x4 model, Color color) {
+            slot(i, geometry, color).set(model);
+        }
+        
+        // Set object i from a position, rotation and scale
+        public void set(int i, Renderable geometry, Vector3D position, Vector3D rotation, Vector3D scale, Color color) {
+            slot(i, geometry, color).setTransform(position, rotation, scale);
+        }
+        
+        public Renderable getGeometry(int i) {
+            return geometry[i];
+        }
+        
+        // Owned by the snapshot; must not be modified by the reader
+        public Matrix4x4 getTransform(int i) {
+            return transforms[i];
+        }
+        
+        public Color getColor(int i) {
+            return colors[i];
+        }
+        
+        // Queue every object for the renderer's current frame
+        public void submitTo(Renderer3D renderer) {
+            for (int i = 0; i < count; i++) {
+                renderer.submit(geometry[i], transforms[i], colors[i]);
+            }
+        }
+        
+        private Matrix4x4 slot(int i, Renderable geometry, Color color) {
+            ensureCapacity(i + 1);
+            if (i >= count) {
+                count = i + 1;
+            }
+            this.geometry[i] = geometry;
+            colors[i] = color;
+            return transforms[i];
+        }
+        
+        private void ensureCapacity(int capacity) {
+            if (capacity <= transforms.length) return;
+            int size = Math.max(capacity, transforms.length * 2);
+            int old = transforms.length;
+            geometry = Arrays.copyOf(geometry, size);
+            colors = Arrays.copyOf(colors, size);
+            transforms = Arrays.copyOf(transforms, size);
+            for (int i = old; i < size; i++) {
+                transforms[i] = new Matrix4x4();
+            }
+        }
+    }
+    
+    // Index of the middle buffer, with DIRTY set while it holds an update the reader has not taken
+    private static final int DIRTY = 4;
+    private static final int INDEX = 3;
+    
+    private final Snapshot[] buffers = new Snapshot[3];
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0;
+    private int front = 2;
+    private long published;
+    
+    public SceneUpdateChannel() {
+        this(64);
+    }
+    
+    // Buffers start with room for this many objects and grow as needed
+    public SceneUpdateChannel(int capacity) {
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new Snapshot(capacity);
+        }
+    }
+    
+    /**
+     * Buffer to fill with the next update. Writer thread only; it stays
+     * the same until publish().
+     */
+    public Snapshot getWriteBuffer() {
+        return buffers[back];
+    }
+    
+    /**
+     * Make the write buffer the newest update and start writing into
+     * another. An update the reader never took is replaced. Writer thread
+     * only.
+     */
+    public void publish() {
+        buffers[back].sequence = ++published;
+        back = middle.getAndSet(back | DIRTY) & INDEX;
+    }
+    
+    /**
+     * Newest published update, or the one returned last time if nothing
+     * was published since. It is not written to until the next call.
+     * Reader thread only.
+     */
+    public Snapshot acquire() {
+        if ((middle.get() & DIRTY) != 0) {
+            front = middle.getAndSet(front) & INDEX;
+        }
+        return buffers[front];
+    }
+    
+    // Whether an update was published since the last acquire(); may be called from either side
+    public boolean hasUpdate() {
+        return (middle.get() & DIRTY) != 0;
+    }
+}
@@ -0,0 +1,206 @@
+package com.github.jordyh297.jrender;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Multi-core back end for the software rasterizer.
+ * Screen-space triangles are queued, binned into fixed-size tiles, and the
+ * tiles are rasterized in parallel on a ForkJoinPool. Each tile owns its own
+ * region of the color and depth buffers, so no locking is needed, and
+ * triangles are drawn in submission order within a tile so the output is
+ * identical to single-threaded rendering.
+ */
+public class TileRasterizer {
+    public static final int DEFAULT_TILE_SIZE = 64;
+
+    // Below this many triangles binning costs more than it saves
+    private static final int MIN_PARALLEL_TRIANGLES = 64;
+
+    private final Rasterizer rasterizer;
+    private final ForkJoinPool pool;
+    private final int tileSize;
+    private final int tilesX;
+    private final int tilesY;
+
+    // Queued triangles: x, y, z for each of the three vertices
+    private double[] coords = new double[9 * 256];
+    private int[] colors = new int[256];
+    private int count;
+
+    // Triangle indices per tile, reused between flushes
+    private final int[][] bins;
+    private final int[] binSizes;
+
+    public TileRasterizer(Rasterizer rasterizer) {
+        this(rasterizer, ForkJoinPool.commonPool(), DEFAULT_TILE_SIZE);
+    }
+
+    public TileRasterizer(Rasterizer rasterizer, ForkJoinPool pool, int tileSize) {
+        if (tileSize <= 0) {
+            throw new IllegalArgumentException("Tile size must be positive: " + tileSize);
+        }
+        this.rasterizer = rasterizer;
+        this.pool = pool;
+        this.tileSize = tileSize;
+        this.tilesX = (rasterizer.getWidth() + tileSize - 1) / tileSize;
+        this.tilesY = (rasterizer.getHeight() + tileSize - 1) / tileSize;
+        this.bins = new int[tilesX * tilesY][];
+        this.binSizes = new int[tilesX * tilesY];
+        for (int i = 0; i < bins.length; i++) {
+            bins[i] = new int[16];
+        }
+    }
+
+    /**
+     * Queue a screen-space triangle for the next flush. Corners beyond the
+     * rasterizer's fixed-point range are clipped here, on the calling
+     * thread, so the tiles only ever draw in-range triangles.
+     */
+    public void add(double x1, double y1, double z1,
+                    double x2, double y2, double z2,
+                    double x3, double y3, double z3, int argb) {
+        if (Rasterizer.inRange(x1, y1, x2, y2, x3, y3)) {
+            queue(x1, y1, z1, x2, y2, z2, x3, y3, z3, argb);
+            return;
+        }
+        // Queue the clipped polygon as the same fan the rasterizer would draw
+        int corners = rasterizer.clipToRange(x1, y1, z1, x2, y2, z2, x3, y3, z3);
+        double[] p = rasterizer.getRangeClipped();
+        for (int i = 1; i < corners - 1; i++) {
+            int b = i * 3;
+            int c = b + 3;
+            queue(p[0], p[1], p[2], p[b], p[b + 1], p[b + 2], p[c], p[c + 1], p[c + 2], argb);
+        }
+    }
+
+    private void queue(double x1, double y1, double z1,
+                       double x2, double y2, double z2,
+                       double x3, double y3, double z3, int argb) {
+        if (count == colors.length) {
+            colors = Arrays.copyOf(colors, count * 2);
+            coords = Arrays.copyOf(coords, count * 2 * 9);
+        }
+        int c = count * 9;
+        coords[c] = x1;
+        coords[c + 1] = y1;
+        coords[c + 2] = z1;
+        coords[c + 3] = x2;
+        coords[c + 4] = y2;
+        coords[c + 5] = z2;
+        coords[c + 6] = x3;
+        coords[c + 7] = y3;
+        coords[c + 8] = z3;
+        colors[count] = argb;
+        count++;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // Rasterize every queued triangle and empty the queue
+    public void flush() {
+        if (count == 0) return;
+
+        if (count < MIN_PARALLEL_TRIANGLES || pool.getParallelism() <= 1 || bins.length == 1) {
+            for (int i = 0; i < count; i++) {
+                drawTriangle(i, 0, 0, rasterizer.getWidth(), rasterizer.getHeight());
+            }
+        } else {
+            binTriangles();
+            pool.invoke(new TileTask(0, bins.length));
+        }
+        count = 0;
+    }
+
+    // Discard queued triangles without drawing them
+    public void reset() {
+        count = 0;
+    }
+
+    private void binTriangles() {
+        Arrays.fill(binSizes, 0);
+        for (int i = 0; i < count; i++) {
+            int c = i * 9;
+            double minX = Math.min(coords[c], Math.min(coords[c + 3], coords[c + 6]));
+            double maxX = Math.max(coords[c], Math.max(coords[c + 3], coords[c + 6]));
+            double minY = Math.min(coords[c + 1], Math.min(coords[c + 4], coords[c + 7]));
+            double maxY = Math.max(coords[c + 1], Math.max(coords[c + 4], coords[c + 7]));
+
+            if (maxX < 0 || maxY < 0 || !(minX < rasterizer.getWidth()) || !(minY < rasterizer.getHeight())) {
+                continue;
+            }
+
+            // Conservative tile range; the rasterizer clips exactly to each tile
+            int tx0 = clampTile((int) Math.floor(minX) / tileSize, tilesX);
+            int tx1 = clampTile((int) Math.floor(maxX) / tileSize, tilesX);
+            int ty0 = clampTile((int) Math.floor(minY) / tileSize, tilesY);
+            int ty1 = clampTile((int) Math.floor(maxY) / tileSize, tilesY);
+
+            for (int ty = ty0; ty <= ty1; ty++) {
+                for (int tx = tx0; tx <= tx1; tx++) {
+                    int tile = ty * tilesX + tx;
+                    int size = binSizes[tile];
+                    if (size == bins[tile].length) {
+                        bins[tile] = Arrays.copyOf(bins[tile], size * 2);
+                    }
+                    bins[tile][size] = i;
+                    binSizes[tile] = size + 1;
+                }
+            }
+        }
+    }
+
+    private static int clampTile(int tile, int tiles) {
+        return Math.max(0, Math.min(tiles - 1, tile));
+    }
+
+    private void rasterizeTile(int tile) {
+        int size = binSizes[tile];
+        if (size == 0) return;
+
+        int minX = (tile % tilesX) * tileSize;
+        int minY = (tile / tilesX) * tileSize;
+        int maxX = Math.min(minX + tileSize, rasterizer.getWidth());
+        int maxY = Math.min(minY + tileSize, rasterizer.getHeight());
+
+        int[] bin = bins[tile];
+        for (int i = 0; i < size; i++) {
+            drawTriangle(bin[i], minX, minY, maxX, maxY);
+        }
+    }
+
+    private void drawTriangle(int i, int minX, int minY, int maxX, int maxY) {
+        int c = i * 9;
+        rasterizer.fillTriangle(
+            coords[c], coords[c + 1], coords[c + 2],
+            coords[c + 3], coords[c + 4], coords[c + 5],
+            coords[c + 6], coords[c + 7], coords[c + 8],
+            colors[i], minX, minY, maxX, maxY);
+    }
+
+    // Splits the tile range in half until single tiles remain
+    private class TileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        TileTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                rasterizeTile(from);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new TileTask(from, mid), new TileTask(mid, to));
+        }
+    }
+}
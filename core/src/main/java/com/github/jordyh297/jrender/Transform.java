@@ -0,0 +1,86 @@
+package com.github.jordyh297.jrender;
+
+/**
+ * Cached model transform for position, rotation and scale vectors.
+ * The composed matrix is rebuilt only when one of the values differs from
+ * the last build; the vectors are compared by value because callers both
+ * mutate and replace them. Each rebuild bumps the version, so dependent
+ * caches can tell whether they are stale.
+ */
+public class Transform {
+    private final Matrix4x4 matrix = new Matrix4x4();
+    private final Matrix4x4 normalMatrix = new Matrix4x4();
+    private final double[] state = new double[9];
+    private boolean valid;
+    private boolean normalValid;
+    private long version;
+    
+    /**
+     * Model matrix for the given values, rebuilt only if they changed.
+     * The returned matrix is owned by this transform and must not be modified.
+     */
+    public Matrix4x4 getMatrix(Vector3D position, Vector3D rotation, Vector3D scale) {
+        if (!valid || changed(position, rotation, scale)) {
+            state[0] = position.x;
+            state[1] = position.y;
+            state[2] = position.z;
+            state[3] = rotation.x;
+            state[4] = rotation.y;
+            state[5] = rotation.z;
+            state[6] = scale.x;
+            state[7] = scale.y;
+            state[8] = scale.z;
+            matrix.setTransform(position, rotation, scale);
+            valid = true;
+            normalValid = false;
+            version++;
+        }
+        return matrix;
+    }
+    
+    /**
+     * Inverse transpose of the upper 3x3 of the model matrix, for
+     * transforming normals under non-uniform scale. Call after getMatrix().
+     */
+    public Matrix4x4 getNormalMatrix() {
+        if (!normalValid) {
+            double[] a = matrix.m;
+            double c00 = a[5] * a[10] - a[6] * a[9];
+            double c01 = a[6] * a[8] - a[4] * a[10];
+            double c02 = a[4] * a[9] - a[5] * a[8];
+            double c10 = a[2] * a[9] - a[1] * a[10];
+            double c11 = a[0] * a[10] - a[2] * a[8];
+            double c12 = a[1] * a[8] - a[0] * a[9];
+            double c20 = a[1] * a[6] - a[2] * a[5];
+            double c21 = a[2] * a[4] - a[0] * a[6];
+            double c22 = a[0] * a[5] - a[1] * a[4];
+            double det = a[0] * c00 + a[1] * c01 + a[2] * c02;
+            double inv = Math.abs(det) < 1e-12 ? 0.0 : 1.0 / det;
+            
+            // The cofactor matrix divided by the determinant is the inverse transpose
+            normalMatrix.setIdentity();
+            double[] n = normalMatrix.m;
+            n[0] = c00 * inv; n[1] = c01 * inv; n[2] = c02 * inv;
+            n[4] = c10 * inv; n[5] = c11 * inv; n[6] = c12 * inv;
+            n[8] = c20 * inv; n[9] = c21 * inv; n[10] = c22 * inv;
+            normalValid = true;
+        }
+        return normalMatrix;
+    }
+    
+    // Incremented every time the matrix is rebuilt
+    public long getVersion() {
+        return version;
+    }
+    
+    // Force a rebuild on the next getMatrix()
+    public void invalidate() {
+        valid = false;
+    }
+    
+    private boolean changed(Vector3D position, Vector3D rotation, Vector3D scale) {
+        return state[0] != position.x || state[1] != position.y || state[2] != position.z
+            || state[3] != rotation.x || state[4] != rotation.y || state[5] != rotation.z
+            || state[6] != scale.x || state[7] != scale.y || state[8] != scale.z;
+    }
+}
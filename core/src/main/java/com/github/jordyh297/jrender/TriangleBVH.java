@@ -0,0 +1,405 @@
+package com.github.jordyh297.jrender;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bounding volume hierarchy over the triangles of one mesh in object
+ * space, for ray casts. Nodes are split with the surface area heuristic
+ * over binned centroids, which keeps rays from visiting boxes that are
+ * large but mostly empty.
+ * <p>
+ * The hierarchy keeps its own copy of the triangle corners, reordered so
+ * each leaf's triangles are adjacent, and never changes after it is built.
+ * Queries share nothing but a per-thread traversal stack, so it can be
+ * used from any thread.
+ */
+public class TriangleBVH {
+    // Split candidates per axis
+    private static final int BINS = 16;
+    
+    // Nodes with more triangles than this are always split if they can be
+    private static final int MAX_LEAF = 8;
+    
+    // Cost of visiting a node relative to testing one triangle
+    private static final float TRAVERSAL_COST = 1.0f;
+    
+    // Traversal stack per thread, grown to the deepest hierarchy it has walked
+    private static final ThreadLocal<int[]> STACK = ThreadLocal.withInitial(() -> new int[64]);
+    
+    // Triangle corners in leaf order, 9 per triangle, and their original indices
+    private final float[] corners;
+    private final int[] triangleIds;
+    
+    // Nodes: bounds (6 per node); leaves have a count and the first triangle,
+    // internal nodes a count of 0 and their children at start and start + 1
+    private float[] nodeBounds;
+    private int[] nodeStart;
+    private int[] nodeCount;
+    private int nodeTotal;
+    private int depth;
+    
+    /**
+     * Build over indexed triangles: positions packed as xyz and three
+     * indices per triangle. Triangle i of the hits is indices[3i..3i + 3).
+     */
+    public TriangleBVH(float[] positions, int[] indices) {
+        int count = indices.length / 3;
+        corners = new float[count * 9];
+        triangleIds = new int[count];
+        for (int t = 0; t < count; t++) {
+            for (int k = 0; k < 3; k++) {
+                int p = indices[t * 3 + k] * 3;
+                corners[t * 9 + k * 3] = positions[p];
+                corners[t * 9 + k * 3 + 1] = positions[p + 1];
+                corners[t * 9 + k * 3 + 2] = positions[p + 2];
+            }
+        }
+        build(count);
+    }
+    
+    // Build over a triangle list; hits index into the list
+    public static TriangleBVH fromTriangles(List<Triangle> triangles) {
+        int count = triangles.size();
+        float[] positions = new float[count * 9];
+        int[] indices = new int[count * 3];
+        for (int t = 0; t < count; t++) {
+            Triangle tri = triangles.get(t);
+            putVertex(positions, t * 9, tri.v1.position);
+            putVertex(positions, t * 9 + 3, tri.v2.position);
+            putVertex(positions, t * 9 + 6, tri.v3.position);
+            indices[t * 3] = t * 3;
+            indices[t * 3 + 1] = t * 3 + 1;
+            indices[t * 3 + 2] = t * 3 + 2;
+        }
+        return new TriangleBVH(positions, indices);
+    }
+    
+    private static void putVertex(float[] out, int offset, Vector3D p) {
+        out[offset] = (float) p.x;
+        out[offset + 1] = (float) p.y;
+        out[offset + 2] = (float) p.z;
+    }
+    
+    public int getTriangleCount() {
+        return triangleIds.length;
+    }
+    
+    public int getNodeCount() {
+        return nodeTotal;
+    }
+    
+    /**
+     * Nearest triangle hit by an object-space ray closer than maxDistance,
+     * written to hit's triangle, u, v and distance. Distances are in units
+     * of the direction's length, so a world ray brought into object space
+     * with an affine inverse keeps its world distances. Both faces count.
+     */
+    public boolean intersect(double ox, double oy, double oz, double dx, double dy, double dz,
+                             double maxDistance, RayHit hit) {
+        if (nodeTotal == 0) return false;
+        
+        double ix = 1.0 / dx;
+        double iy = 1.0 / dy;
+        double iz = 1.0 / dz;
+        // Finite, so a missed box (infinite entry) never passes the distance test
+        double best = Math.min(maxDistance, Double.MAX_VALUE);
+        boolean found = false;
+        
+        int[] stack = STACK.get();
+        if (stack.length < depth + 1) {
+            stack = new int[depth + 1];
+            STACK.set(stack);
+        }
+        int top = 0;
+        stack[top++] = 0;
+        
+        while (top > 0) {
+            int node = stack[--top];
+            if (entry(node, ox, oy, oz, ix, iy, iz, best) > best) continue;
+            
+            if (nodeCount[node] > 0) {
+                int end = nodeStart[node] + nodeCount[node];
+                for (int t = nodeStart[node]; t < end; t++) {
+                    int c = t * 9;
+                    double v0x = corners[c], v0y = corners[c + 1], v0z = corners[c + 2];
+                    double e1x = corners[c + 3] - v0x, e1y = corners[c + 4] - v0y, e1z = corners[c + 5] - v0z;
+                    double e2x = corners[c + 6] - v0x, e2y = corners[c + 7] - v0y, e2z = corners[c + 8] - v0z;
+                    
+                    // Moller-Trumbore
+                    double px = dy * e2z - dz * e2y;
+                    double py = dz * e2x - dx * e2z;
+                    double pz = dx * e2y - dy * e2x;
+                    double det = e1x * px + e1y * py + e1z * pz;
+                    if (Math.abs(det) < 1e-12) continue;
+                    double inv = 1.0 / det;
+                    
+                    double sx = ox - v0x, sy = oy - v0y, sz = oz - v0z;
+                    double u = (sx * px + sy * py + sz * pz) * inv;
+                    if (u < 0 || u > 1) continue;
+                    
+                    double qx = sy * e1z - sz * e1y;
+                    double qy = sz * e1x - sx * e1z;
+                    double qz = sx * e1y - sy * e1x;
+                    double v = (dx * qx + dy * qy + dz * qz) * inv;
+                    if (v < 0 || u + v > 1) continue;
+                    
+                    double distance = (e2x * qx + e2y * qy + e2z * qz) * inv;
+                    if (distance > 0 && distance < best) {
+                        best = distance;
+                        found = true;
+                        hit.triangle = triangleIds[t];
+                        hit.u = u;
+                        hit.v = v;
+                        hit.distance = distance;
+                    }
+                }
+            } else {
+                // Visit the nearer child first so it can shorten the other's test
+                int left = nodeStart[node];
+                int right = left + 1;
+                double leftEntry = entry(left, ox, oy, oz, ix, iy, iz, best);
+                double rightEntry = entry(right, ox, oy, oz, ix, iy, iz, best);
+                if (leftEntry <= rightEntry) {
+                    if (rightEntry <= best) stack[top++] = right;
+                    if (leftEntry <= best) stack[top++] = left;
+                } else {
+                    if (leftEntry <= best) stack[top++] = left;
+                    if (rightEntry <= best) stack[top++] = right;
+                }
+            }
+        }
+        return found;
+    }
+    
+    // Distance at which the ray enters a node's box, or infinity if it misses within maxDistance
+    private double entry(int node, double ox, double oy, double oz,
+                         double ix, double iy, double iz, double maxDistance) {
+        int b = node * 6;
+        double t0 = (nodeBounds[b] - ox) * ix;
+        double t1 = (nodeBounds[b + 3] - ox) * ix;
+        double near = Math.min(t0, t1);
+        double far = Math.max(t0, t1);
+        t0 = (nodeBounds[b + 1] - oy) * iy;
+        t1 = (nodeBounds[b + 4] - oy) * iy;
+        near = Math.max(near, Math.min(t0, t1));
+        far = Math.min(far, Math.max(t0, t1));
+        t0 = (nodeBounds[b + 2] - oz) * iz;
+        t1 = (nodeBounds[b + 5] - oz) * iz;
+        near = Math.max(near, Math.min(t0, t1));
+        far = Math.min(far, Math.max(t0, t1));
+        if (far < near || far < 0 || near > maxDistance) return Double.POSITIVE_INFINITY;
+        return near;
+    }
+    
+    private void build(int count) {
+        nodeTotal = 0;
+        if (count == 0) {
+            nodeBounds = new float[0];
+            nodeStart = new int[0];
+            nodeCount = new int[0];
+            return;
+        }
+        
+        // Per-triangle bounds and centroids, kept in the same order as order[]
+        // so each pass over a node reads them sequentially
+        float[] triBounds = new float[count * 6];
+        float[] centroids = new float[count * 3];
+        int[] order = new int[count];
+        for (int t = 0; t < count; t++) {
+            order[t] = t;
+            int c = t * 9;
+            for (int k = 0; k < 3; k++) {
+                float min = Math.min(corners[c + k], Math.min(corners[c + 3 + k], corners[c + 6 + k]));
+                float max = Math.max(corners[c + k], Math.max(corners[c + 3 + k], corners[c + 6 + k]));
+                triBounds[t * 6 + k] = min;
+                triBounds[t * 6 + 3 + k] = max;
+                centroids[t * 3 + k] = (min + max) * 0.5f;
+            }
+        }
+        
+        int maxNodes = 2 * count - 1;
+        nodeBounds = new float[maxNodes * 6];
+        nodeStart = new int[maxNodes];
+        nodeCount = new int[maxNodes];
+        
+        // Pending nodes as (node, start, end, depth); each level adds at most one entry
+        int[] work = new int[64 * 4];
+        int top = 0;
+        nodeTotal = 1;
+        work[top++] = 0;
+        work[top++] = 0;
+        work[top++] = count;
+        work[top++] = 0;
+        
+        float[] binBounds = new float[BINS * 6];
+        int[] binCounts = new int[BINS];
+        float[] rightCost = new float[BINS];
+        float[] centroidBounds = new float[6];
+        
+        while (top > 0) {
+            int nodeDepth = work[--top];
+            int end = work[--top];
+            int start = work[--top];
+            int node = work[--top];
+            depth = Math.max(depth, nodeDepth);
+            
+            // Node bounds and centroid bounds
+            int nb = node * 6;
+            resetBounds(nodeBounds, nb);
+            resetBounds(centroidBounds, 0);
+            for (int i = start; i < end; i++) {
+                for (int k = 0; k < 3; k++) {
+                    nodeBounds[nb + k] = Math.min(nodeBounds[nb + k], triBounds[i * 6 + k]);
+                    nodeBounds[nb + 3 + k] = Math.max(nodeBounds[nb + 3 + k], triBounds[i * 6 + 3 + k]);
+                    centroidBounds[k] = Math.min(centroidBounds[k], centroids[i * 3 + k]);
+                    centroidBounds[3 + k] = Math.max(centroidBounds[3 + k], centroids[i * 3 + k]);
+                }
+            }
+            
+            int count0 = end - start;
+            float leafCost = count0 * halfArea(nodeBounds, nb);
+            float bestCost = Float.POSITIVE_INFINITY;
+            int bestAxis = -1;
+            int bestBin = 0;
+            
+            if (count0 > 1) {
+                for (int axis = 0; axis < 3; axis++) {
+                    float cmin = centroidBounds[axis];
+                    float extent = centroidBounds[3 + axis] - cmin;
+                    if (!(extent > 0)) continue;
+                    float scale = BINS / extent;
+                    
+                    Arrays.fill(binCounts, 0);
+                    for (int b = 0; b < BINS; b++) {
+                        resetBounds(binBounds, b * 6);
+                    }
+                    for (int i = start; i < end; i++) {
+                        int b = Math.min(BINS - 1, (int) ((centroids[i * 3 + axis] - cmin) * scale));
+                        binCounts[b]++;
+                        for (int k = 0; k < 3; k++) {
+                            binBounds[b * 6 + k] = Math.min(binBounds[b * 6 + k], triBounds[i * 6 + k]);
+                            binBounds[b * 6 + 3 + k] = Math.max(binBounds[b * 6 + 3 + k], triBounds[i * 6 + 3 + k]);
+                        }
+                    }
+                    
+                    // Sweep from the right, then from the left, pricing each split plane
+                    float rx0 = Float.POSITIVE_INFINITY, ry0 = rx0, rz0 = rx0;
+                    float rx1 = Float.NEGATIVE_INFINITY, ry1 = rx1, rz1 = rx1;
+                    int rightCount = 0;
+                    for (int b = BINS - 1; b > 0; b--) {
+                        int o = b * 6;
+                        rx0 = Math.min(rx0, binBounds[o]);
+                        ry0 = Math.min(ry0, binBounds[o + 1]);
+                        rz0 = Math.min(rz0, binBounds[o + 2]);
+                        rx1 = Math.max(rx1, binBounds[o + 3]);
+                        ry1 = Math.max(ry1, binBounds[o + 4]);
+                        rz1 = Math.max(rz1, binBounds[o + 5]);
+                        rightCount += binCounts[b];
+                        rightCost[b] = rightCount == 0 ? 0 : rightCount * halfArea(rx1 - rx0, ry1 - ry0, rz1 - rz0);
+                    }
+                    float lx0 = Float.POSITIVE_INFINITY, ly0 = lx0, lz0 = lx0;
+                    float lx1 = Float.NEGATIVE_INFINITY, ly1 = lx1, lz1 = lx1;
+                    int leftCount = 0;
+                    for (int b = 0; b < BINS - 1; b++) {
+                        int o = b * 6;
+                        lx0 = Math.min(lx0, binBounds[o]);
+                        ly0 = Math.min(ly0, binBounds[o + 1]);
+                        lz0 = Math.min(lz0, binBounds[o + 2]);
+                        lx1 = Math.max(lx1, binBounds[o + 3]);
+                        ly1 = Math.max(ly1, binBounds[o + 4]);
+                        lz1 = Math.max(lz1, binBounds[o + 5]);
+                        leftCount += binCounts[b];
+                        if (leftCount == 0 || leftCount == count0) continue;
+                        float cost = leftCount * halfArea(lx1 - lx0, ly1 - ly0, lz1 - lz0) + rightCost[b + 1];
+                        if (cost < bestCost) {
+                            bestCost = cost;
+                            bestAxis = axis;
+                            bestBin = b + 1;
+                        }
+                    }
+                }
+            }
+            
+            int mid;
+            if (bestAxis >= 0 && (count0 > MAX_LEAF
+                    || TRAVERSAL_COST * halfArea(nodeBounds, nb) + bestCost < leafCost)) {
+                // Partition by bin on the chosen axis
+                float cmin = centroidBounds[bestAxis];
+                float scale = BINS / (centroidBounds[3 + bestAxis] - cmin);
+                int i = start;
+                int j = end - 1;
+                while (i <= j) {
+                    int b = Math.min(BINS - 1, (int) ((centroids[i * 3 + bestAxis] - cmin) * scale));
+                    if (b < bestBin) {
+                        i++;
+                    } else {
+                        swap(order, triBounds, centroids, i, j--);
+                    }
+                }
+                mid = i;
+            } else if (count0 > MAX_LEAF) {
+                // Every centroid coincides: split the range in half
+                mid = start + count0 / 2;
+            } else {
+                nodeStart[node] = start;
+                nodeCount[node] = count0;
+                continue;
+            }
+            
+            int left = nodeTotal;
+            nodeTotal += 2;
+            nodeStart[node] = left;
+            nodeCount[node] = 0;
+            
+            if (top + 8 > work.length) {
+                work = Arrays.copyOf(work, work.length * 2);
+            }
+            work[top++] = left + 1;
+            work[top++] = mid;
+            work[top++] = end;
+            work[top++] = nodeDepth + 1;
+            work[top++] = left;
+            work[top++] = start;
+            work[top++] = mid;
+            work[top++] = nodeDepth + 1;
+        }
+        
+        // Reorder the corners so each leaf reads one contiguous run
+        float[] original = corners.clone();
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(original, order[i] * 9, corners, i * 9, 9);
+            triangleIds[i] = order[i];
+        }
+    }
+    
+    private static void swap(int[] order, float[] triBounds, float[] centroids, int i, int j) {
+        int t = order[i];
+        order[i] = order[j];
+        order[j] = t;
+        for (int k = 0; k < 6; k++) {
+            float f = triBounds[i * 6 + k];
+            triBounds[i * 6 + k] = triBounds[j * 6 + k];
+            triBounds[j * 6 + k] = f;
+        }
+        for (int k = 0; k < 3; k++) {
+            float f = centroids[i * 3 + k];
+            centroids[i * 3 + k] = centroids[j * 3 + k];
+            centroids[j * 3 + k] = f;
+        }
+    }
+    
+    private static void resetBounds(float[] bounds, int offset) {
+        bounds[offset] = bounds[offset + 1] = bounds[offset + 2] = Float.POSITIVE_INFINITY;
+        bounds[offset + 3] = bounds[offset + 4] = bounds[offset + 5] = Float.NEGATIVE_INFINITY;
+    }
+    
+    private static float halfArea(float[] bounds, int offset) {
+        return halfArea(bounds[offset + 3] - bounds[offset], bounds[offset + 4] - bounds[offset + 1],
+            bounds[offset + 5] - bounds[offset + 2]);
+    }
+    
+    private static float halfArea(float x, float y, float z) {
+        return x * y + y * z + z * x;
+    }
+}
@@ -0,0 +1,146 @@
+package com.github.jordyh297.jrender;
+
+/**
+ * Clips triangles in homogeneous clip space, before the perspective divide.
+ * Triangles are always clipped against the near and far planes, so vertices
+ * behind the camera never reach the divide. Optionally they are also
+ * clipped against a guard band a few times larger than the viewport, which
+ * keeps screen coordinates small without clipping most edge triangles.
+ * Vertices are stored as (x, y, z, w) quadruples.
+ */
+public class TriangleClipper {
+    // Guard band half-extent in NDC units (1.0 is the viewport edge)
+    public static final double GUARD_BAND = 2.0;
+    
+    // A triangle clipped by six planes has at most nine vertices
+    public static final int MAX_VERTICES = 9;
+    
+    private static final int PLANE_COUNT = 6;
+    
+    private boolean guardBandClipping = true;
+    private double[] result = new double[MAX_VERTICES * 4];
+    private double[] scratch = new double[MAX_VERTICES * 4];
+    
+    public void setGuardBandClipping(boolean guardBandClipping) {
+        this.guardBandClipping = guardBandClipping;
+    }
+    
+    public boolean isGuardBandClipping() {
+        return guardBandClipping;
+    }
+    
+    /**
+     * True if all three vertices are outside the same view frustum plane,
+     * meaning nothing of the triangle can be visible.
+     */
+    public static boolean isOutside(double[] a, double[] b, double[] c) {
+        return (a[0] < -a[3] && b[0] < -b[3] && c[0] < -c[3])
+            || (a[0] > a[3] && b[0] > b[3] && c[0] > c[3])
+            || (a[1] < -a[3] && b[1] < -b[3] && c[1] < -c[3])
+            || (a[1] > a[3] && b[1] > b[3] && c[1] > c[3])
+            || (a[2] < -a[3] && b[2] < -b[3] && c[2] < -c[3])
+            || (a[2] > a[3] && b[2] > b[3] && c[2] > c[3]);
+    }
+    
+    /**
+     * Bit per view frustum plane the clip-space point lies outside of. A
+     * triangle whose three codes share a bit is entirely outside, the same
+     * test as {@link #isOutside(double[], double[], double[])}.
+     */
+    public static int frustumOutcode(double x, double y, double z, double w) {
+        int code = 0;
+        if (x < -w) code |= 1;
+        if (x > w) code |= 2;
+        if (y < -w) code |= 4;
+        if (y > w) code |= 8;
+        if (z < -w) code |= 16;
+        if (z > w) code |= 32;
+        return code;
+    }
+    
+    /**
+     * Clip triangle a, b, c. Returns the number of vertices of the clipped
+     * convex polygon (0 if nothing is left), which can be read from
+     * {@link #getVertices()} and drawn as a fan around the first vertex.
+     */
+    public int clip(double[] a, double[] b, double[] c) {
+        System.arraycopy(a, 0, result, 0, 4);
+        System.arraycopy(b, 0, result, 4, 4);
+        System.arraycopy(c, 0, result, 8, 4);
+        
+        // Skip the general path when every vertex is inside every plane
+        int outside = outcode(a) | outcode(b) | outcode(c);
+        if (outside == 0) return 3;
+        
+        int count = 3;
+        for (int plane = 0; plane < PLANE_COUNT && count > 0; plane++) {
+            if ((outside & (1 << plane)) != 0) {
+                count = clipAgainst(plane, count);
+            }
+        }
+        return count;
+    }
+    
+    public double[] getVertices() {
+        return result;
+    }
+    
+    // Bit per plane the vertex lies outside of
+    private int outcode(double[] v) {
+        int code = 0;
+        for (int plane = 0; plane < PLANE_COUNT; plane++) {
+            if (distance(plane, v[0], v[1], v[2], v[3]) < 0) {
+                code |= 1 << plane;
+            }
+        }
+        return code;
+    }
+    
+    // Signed distance to a clip plane, non-negative on the inside
+    private double distance(int plane, double x, double y, double z, double w) {
+        switch (plane) {
+            case 0: return z + w;   // near
+            case 1: return w - z;   // far
+            case 2: return guardBandClipping ? x + GUARD_BAND * w : 1.0;
+            case 3: return guardBandClipping ? GUARD_BAND * w - x : 1.0;
+            case 4: return guardBandClipping ? y + GUARD_BAND * w : 1.0;
+            default: return guardBandClipping ? GUARD_BAND * w - y : 1.0;
+        }
+    }
+    
+    // Sutherland-Hodgman against one plane, from result into scratch, then swap
+    private int clipAgainst(int plane, int count) {
+        double[] in = result;
+        double[] out = scratch;
+        int outCount = 0;
+        
+        int prev = (count - 1) * 4;
+        double prevDistance = distance(plane, in[prev], in[prev + 1], in[prev + 2], in[prev + 3]);
+        
+        for (int i = 0; i < count; i++) {
+            int cur = i * 4;
+            double curDistance = distance(plane, in[cur], in[cur + 1], in[cur + 2], in[cur + 3]);
+            
+            if ((prevDistance >= 0) != (curDistance >= 0)) {
+                // Edge crosses the plane: emit the intersection
+                double t = prevDistance / (prevDistance - curDistance);
+                int o = outCount * 4;
+                for (int k = 0; k < 4; k++) {
+                    out[o + k] = in[prev + k] + (in[cur + k] - in[prev + k]) * t;
+                }
+                outCount++;
+            }
+            if (curDistance >= 0) {
+                System.arraycopy(in, cur, out, outCount * 4, 4);
+                outCount++;
+            }
+            
+            prev = cur;
+            prevDistance = curDistance;
+        }
+        
+        result = out;
+        scratch = in;
+        return outCount;
+    }
+}
@@ -0,0 +1,159 @@
+package com.github.jordyh297.jrender;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded ring of pre-allocated screen-space triangle batches between one
+ * producer thread and one consumer thread. The producer claims a batch,
+ * fills it and publishes it; the consumer takes batches in the same order
+ * and releases each when done, which makes it free for the producer
+ * again. Nothing is allocated once the ring exists.
+ * <p>
+ * A side that finds the ring full or empty spins briefly and then parks
+ * until the other side moves. Batch contents are handed over by the
+ * volatile publish and release counters, so the batches need no locking.
+ */
+public class TriangleRing {
+    /**
+     * Up to a fixed number of triangles, plus the frame markers the
+     * pipeline passes along with them.
+     */
+    public static final class Batch {
+        // Screen x, y and NDC depth of three corners per triangle, and one ARGB color
+        public final double[] vertices;
+        public final int[] colors;
+        public int count;
+        
+        // Clear to clearColor before drawing this batch, as the start of frame number frame
+        public boolean frameStart;
+        public int clearColor;
+        public long frame;
+        
+        // Last batch of its frame; shutdown asks the consumer to stop
+        public boolean frameEnd;
+        public boolean shutdown;
+        
+        Batch(int capacity) {
+            vertices = new double[capacity * 9];
+            colors = new int[capacity];
+        }
+        
+        public int getCapacity() {
+            return colors.length;
+        }
+        
+        public boolean isFull() {
+            return count == colors.length;
+        }
+        
+        // Append a triangle; the caller checks isFull() first
+        public void add(double x1, double y1, double z1,
+                        double x2, double y2, double z2,
+                        double x3, double y3, double z3, int argb) {
+            int v = count * 9;
+            vertices[v] = x1;
+            vertices[v + 1] = y1;
+            vertices[v + 2] = z1;
+            vertices[v + 3] = x2;
+            vertices[v + 4] = y2;
+            vertices[v + 5] = z2;
+            vertices[v + 6] = x3;
+            vertices[v + 7] = y3;
+            vertices[v + 8] = z3;
+            colors[count++] = argb;
+        }
+        
+        private void reset() {
+            count = 0;
+            frameStart = false;
+            frameEnd = false;
+            shutdown = false;
+        }
+    }
+    
+    // Empty checks before a waiting side parks
+    private static final int SPINS = 64;
+    
+    private final Batch[] batches;
+    
+    // Batches published and released so far; only their owner writes each
+    private volatile long published;
+    private volatile long released;
+    private long claimed;
+    
+    private volatile Thread waitingProducer;
+    private volatile Thread waitingConsumer;
+    
+    public TriangleRing(int batchCount, int trianglesPerBatch) {
+        if (batchCount < 2 || trianglesPerBatch < 1) {
+            throw new IllegalArgumentException("need at least 2 batches of at least 1 triangle");
+        }
+        batches = new Batch[batchCount];
+        for (int i = 0; i < batchCount; i++) {
+            batches[i] = new Batch(trianglesPerBatch);
+        }
+    }
+    
+    public int getBatchCount() {
+        return batches.length;
+    }
+    
+    /**
+     * Next batch to fill, empty and without markers, waiting while every
+     * batch is in use. Producer only; claim again only after publish().
+     */
+    public Batch claim() {
+        int spins = 0;
+        while (claimed - released >= batches.length) {
+            if (++spins < SPINS) {
+                Thread.yield();
+                continue;
+            }
+            waitingProducer = Thread.currentThread();
+            if (claimed - released >= batches.length) {
+                LockSupport.park(this);
+            }
+            waitingProducer = null;
+        }
+        Batch batch = batches[(int) (claimed % batches.length)];
+        batch.reset();
+        claimed++;
+        return batch;
+    }
+    
+    // Hand the claimed batch to the consumer. Producer only
+    public void publish() {
+        published = claimed;
+        Thread consumer = waitingConsumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+    
+    // Next published batch, waiting while there is none. Consumer only
+    public Batch take() {
+        int spins = 0;
+        long next = released;
+        while (published == next) {
+            if (++spins < SPINS) {
+                Thread.yield();
+                continue;
+            }
+            waitingConsumer = Thread.currentThread();
+            if (published == next) {
+                LockSupport.park(this);
+            }
+            waitingConsumer = null;
+        }
+        return batches[(int) (next % batches.length)];
+    }
+    
+    // Return the batch from take() to the producer. Consumer only
+    public void release() {
+        released = released + 1;
+        Thread producer = waitingProducer;
+        if (producer != null) {
+            LockSupport.unpark(producer);
+        }
+    }
+}
@@ -21,6 +21,17 @@ public class Vector3D {
         this(other.x, other.y, other.z);
     }
     
+    public Vector3D set(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+    
+    public Vector3D set(Vector3D other) {
+        return set(other.x, other.y, other.z);
+    }
+    
     // Vector addition
     public Vector3D add(Vector3D other) {
         return new Vector3D(x + other.x, y + other.y, z + other.z);
@@ -64,9 +75,42 @@ public class Vector3D {
         return new Vector3D(0, 0, 0);
     }
     
+    // In-place variants: write the result into dst (which may be this or other) and return it
+    
+    public Vector3D addInto(Vector3D other, Vector3D dst) {
+        return dst.set(x + other.x, y + other.y, z + other.z);
+    }
+    
+    public Vector3D subtractInto(Vector3D other, Vector3D dst) {
+        return dst.set(x - other.x, y - other.y, z - other.z);
+    }
+    
+    public Vector3D multiplyInto(double scalar, Vector3D dst) {
+        return dst.set(x * scalar, y * scalar, z * scalar);
+    }
+    
+    public Vector3D crossInto(Vector3D other, Vector3D dst) {
+        return dst.set(
+            y * other.z - z * other.y,
+            z * other.x - x * other.z,
+            x * other.y - y * other.x
+        );
+    }
+    
+    public Vector3D normalizeInto(Vector3D dst) {
+        double mag = magnitude();
+        if (mag > 0.0001) {
+            return dst.set(x / mag, y / mag, z / mag);
+        }
+        return dst.set(0, 0, 0);
+    }
+    
     // Distance to another vector
     public double distance(Vector3D other) {
-        return subtract(other).magnitude();
+        double dx = x - other.x;
+        double dy = y - other.y;
+        double dz = z - other.z;
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
     }
     
     @Override
@@ -0,0 +1,155 @@
+package com.github.jordyh297.jrender;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class CameraTest {
+    private static final int SAMPLES = 4;
+    
+    private final Random random = new Random(11);
+    private final double[] clip = new double[4];
+    
+    @Test
+    void boxTestMatchesClipSpaceCorners() {
+        int inside = 0;
+        int outside = 0;
+        for (int c = 0; c < 20; c++) {
+            Camera camera = randomCamera();
+            Matrix4x4 viewProjection = camera.getViewProjectionMatrix();
+            for (int i = 0; i < 500; i++) {
+                Vector3D center = around(camera.target, 40);
+                double sx = random.nextDouble() * 10;
+                double sy = random.nextDouble() * 10;
+                double sz = random.nextDouble() * 10;
+                double[] min = {center.x - sx, center.y - sy, center.z - sz};
+                double[] max = {center.x + sx, center.y + sy, center.z + sz};
+                boolean intersects = camera.intersectsFrustum(min[0], min[1], min[2], max[0], max[1], max[2]);
+                
+                // Rejected exactly when all eight corners are outside the same clip plane
+                assertEquals(!cornersOutsideOnePlane(viewProjection, min, max), intersects, "camera " + c + ", box " + i);
+                if (intersects) {
+                    inside++;
+                } else {
+                    outside++;
+                }
+                
+                // Any point of the box in the frustum means it must be kept
+                for (int x = 0; x <= SAMPLES && !intersects; x++) {
+                    for (int y = 0; y <= SAMPLES; y++) {
+                        for (int z = 0; z <= SAMPLES; z++) {
+                            Vector3D point = new Vector3D(lerp(min[0], max[0], x), lerp(min[1], max[1], y),
+                                lerp(min[2], max[2], z));
+                            assertFalse(inClipVolume(viewProjection, point), "camera " + c + ", box " + i);
+                        }
+                    }
+                }
+            }
+        }
+        assertTrue(inside > 1000 && outside > 1000, inside + " kept, " + outside + " rejected");
+    }
+    
+    @Test
+    void sphereTestIsConservative() {
+        int inside = 0;
+        int outside = 0;
+        for (int c = 0; c < 20; c++) {
+            Camera camera = randomCamera();
+            Matrix4x4 viewProjection = camera.getViewProjectionMatrix();
+            for (int i = 0; i < 500; i++) {
+                Vector3D center = around(camera.target, 40);
+                double radius = random.nextDouble() * 10;
+                boolean intersects = camera.intersectsFrustum(center, radius);
+                if (intersects) {
+                    inside++;
+                } else {
+                    outside++;
+                }
+                
+                // A sphere whose bounding box is outside one clip plane must be rejected
+                double[] min = {center.x - radius, center.y - radius, center.z - radius};
+                double[] max = {center.x + radius, center.y + radius, center.z + radius};
+                if (cornersOutsideOnePlane(viewProjection, min, max)) {
+                    assertFalse(intersects, "camera " + c + ", sphere " + i);
+                }
+                
+                // A rejected sphere has no point in the frustum: check the center and points over its surface
+                if (!intersects) {
+                    assertFalse(inClipVolume(viewProjection, center), "camera " + c + ", sphere " + i);
+                    for (int s = 0; s < 64; s++) {
+                        double z = random.nextDouble() * 2 - 1;
+                        double angle = random.nextDouble() * 2 * Math.PI;
+                        double r = Math.sqrt(1 - z * z) * radius;
+                        Vector3D point = new Vector3D(center.x + r * Math.cos(angle), center.y + r * Math.sin(angle),
+                            center.z + z * radius);
+                        assertFalse(inClipVolume(viewProjection, point), "camera " + c + ", sphere " + i);
+                    }
+                }
+            }
+        }
+        assertTrue(inside > 1000 && outside > 1000, inside + " kept, " + outside + " rejected");
+    }
+    
+    @Test
+    void planesFollowTheCamera() {
+        Camera camera = new Camera(new Vector3D(0, 0, -10), new Vector3D(0, 0, 0));
+        assertTrue(camera.intersectsFrustum(new Vector3D(0, 0, 0), 0.5));
+        assertFalse(camera.intersectsFrustum(new Vector3D(0, 0, -20), 0.5));
+        
+        // Turned around without any explicit update
+        camera.target = new Vector3D(0, 0, -20);
+        assertFalse(camera.intersectsFrustum(new Vector3D(0, 0, 0), 0.5));
+        assertTrue(camera.intersectsFrustum(new Vector3D(0, 0, -20), 0.5));
+        
+        // Far plane pulled in
+        camera.farPlane = 5;
+        assertFalse(camera.intersectsFrustum(-0.5, -0.5, -20.5, 0.5, 0.5, -19.5));
+        assertTrue(camera.intersectsFrustum(-0.5, -0.5, -14.5, 0.5, 0.5, -13.5));
+    }
+    
+    private Camera randomCamera() {
+        Camera camera = new Camera(around(new Vector3D(), 20), around(new Vector3D(), 20));
+        camera.fov = 0.5 + random.nextDouble();
+        camera.aspectRatio = 0.5 + random.nextDouble() * 1.5;
+        camera.nearPlane = 0.1 + random.nextDouble() * 2;
+        camera.farPlane = 20 + random.nextDouble() * 60;
+        return camera;
+    }
+    
+    private Vector3D around(Vector3D center, double range) {
+        return new Vector3D(center.x + (random.nextDouble() * 2 - 1) * range,
+            center.y + (random.nextDouble() * 2 - 1) * range, center.z + (random.nextDouble() * 2 - 1) * range);
+    }
+    
+    private static double lerp(double a, double b, int step) {
+        return a + (b - a) * step / SAMPLES;
+    }
+    
+    // Inside -w <= x, y, z <= w after projection
+    private boolean inClipVolume(Matrix4x4 viewProjection, Vector3D point) {
+        viewProjection.transformHomogeneous(point, clip);
+        double w = clip[3];
+        return Math.abs(clip[0]) <= w && Math.abs(clip[1]) <= w && Math.abs(clip[2]) <= w;
+    }
+    
+    // True if all eight corners fail the same one of the six clip inequalities
+    private boolean cornersOutsideOnePlane(Matrix4x4 viewProjection, double[] min, double[] max) {
+        int[] outside = new int[6];
+        for (int corner = 0; corner < 8; corner++) {
+            Vector3D point = new Vector3D((corner & 1) == 0 ? min[0] : max[0], (corner & 2) == 0 ? min[1] : max[1],
+                (corner & 4) == 0 ? min[2] : max[2]);
+            viewProjection.transformHomogeneous(point, clip);
+            for (int axis = 0; axis < 3; axis++) {
+                if (clip[axis] < -clip[3]) outside[axis * 2]++;
+                if (clip[axis] > clip[3]) outside[axis * 2 + 1]++;
+            }
+        }
+        for (int count : outside) {
+            if (count == 8) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.jordyh297.jrender;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class DepthBufferTest {
+    @Test
+    void keepsTheNearestDepth() {
+        for (DepthBuffer.Precision precision : DepthBuffer.Precision.values()) {
+            DepthBuffer buffer = new DepthBuffer(4, 4, precision);
+            assertEquals(1.0, buffer.getDepth(5), 0.0);
+            assertTrue(buffer.testAndSet(5, 0.5));
+            assertFalse(buffer.testAndSet(5, 0.75));
+            assertFalse(buffer.testAndSet(5, 0.5));
+            assertTrue(buffer.testAndSet(5, 0.25));
+            assertEquals(0.25, buffer.getDepth(1, 1), 1.0 / (1 << 16));
+        }
+    }
+    
+    @Test
+    void clearForgetsEveryDepthAcrossGenerationWraps() {
+        for (DepthBuffer.Precision precision : DepthBuffer.Precision.values()) {
+            DepthBuffer buffer = new DepthBuffer(4, 4, precision);
+            // Enough clears to wrap even the 16-bit tag, which allows 65535 generations
+            int clears = 70000;
+            
+            // Written once, long before the tags wrap: must never come back
+            assertTrue(buffer.testAndSet(0, 0.0));
+            for (int i = 1; i <= clears; i++) {
+                buffer.clear();
+                assertEquals(1.0, buffer.getDepth(0), 0.0, precision + " after clear " + i);
+                
+                // Written after every clear, so the previous frame's value must never block it
+                assertTrue(buffer.testAndSet(1, 0.9), precision + " at clear " + i);
+                assertFalse(buffer.testAndSet(1, 0.95));
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.jordyh297.jrender;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class FramePipelineTest {
+    private static final int FRAMES = 12;
+    
+    @Test
+    @Timeout(60)
+    void pipelinedFramesMatchSerialFrames() throws Exception {
+        Renderer3D serial = renderer();
+        int[][] expected = new int[FRAMES][];
+        for (int f = 0; f < FRAMES; f++) {
+            serial.clear(Color.BLACK);
+            serial.beginFrame();
+            scene(serial, f);
+            serial.endFrame();
+            expected[f] = pixels(serial.getBuffer()).clone();
+        }
+        
+        // Small batches so every frame spans several of them and the ring fills up
+        Renderer3D renderer = renderer();
+        int[][] actual = new int[FRAMES][];
+        FramePipeline pipeline = new FramePipeline(renderer, 3, 64,
+            (frame, image) -> actual[(int) frame - 1] = pixels(image).clone());
+        pipeline.start();
+        for (int f = 0; f < FRAMES; f++) {
+            pipeline.beginFrame(Color.BLACK);
+            scene(renderer, f);
+            pipeline.endFrame();
+        }
+        pipeline.finish();
+        assertEquals(FRAMES, pipeline.getFramesRasterized());
+        pipeline.stop();
+        for (int f = 0; f < FRAMES; f++) {
+            assertArrayEquals(expected[f], actual[f], "frame " + f);
+        }
+        
+        // The renderer draws into its own buffer again once stopped
+        renderer.clear(Color.BLACK);
+        renderer.beginFrame();
+        scene(renderer, 0);
+        renderer.endFrame();
+        assertArrayEquals(expected[0], pixels(renderer.getBuffer()));
+    }
+    
+    @Test
+    @Timeout(60)
+    void finishWaitsOnlyForEndedFrames() throws Exception {
+        Renderer3D renderer = renderer();
+        FramePipeline pipeline = new FramePipeline(renderer, 3, 64, (frame, image) -> { });
+        pipeline.start();
+        pipeline.beginFrame(Color.BLACK);
+        scene(renderer, 0);
+        pipeline.endFrame();
+        
+        // The second frame is open, and spans more batches than the ring holds
+        pipeline.beginFrame(Color.BLACK);
+        scene(renderer, 1);
+        pipeline.finish();
+        assertEquals(1, pipeline.getFramesRasterized());
+        pipeline.endFrame();
+        pipeline.finish();
+        assertEquals(2, pipeline.getFramesRasterized());
+        pipeline.stop();
+    }
+    
+    // Occlusion culling is off: the pipeline skips it, and its nearest-first order can break depth ties differently
+    private static Renderer3D renderer() {
+        Renderer3D renderer = new Renderer3D(160, 120);
+        renderer.setCamera(new Camera(new Vector3D(5, 4, -30), new Vector3D(0, 0, 0)));
+        renderer.addLight(Light.createAmbient(Color.WHITE, 0.3));
+        renderer.addLight(Light.createPoint(new Vector3D(0, 0, 0), new Color(255, 220, 150), 3.0));
+        renderer.setSoftwareRasterizer(true);
+        renderer.setOcclusionCulling(false);
+        return renderer;
+    }
+    
+    private static void scene(Renderer3D renderer, int frame) {
+        for (int x = -2; x <= 2; x++) {
+            for (int y = -2; y <= 2; y++) {
+                for (int z = -2; z <= 2; z++) {
+                    Mesh mesh = (x + y + z) % 2 == 0 ? Mesh.createCube(2.0) : Mesh.createPyramid(2.0);
+                    mesh.position = new Vector3D(x * 3, y * 3, z * 3);
+                    mesh.rotation = new Vector3D(0.1 * x + frame * 0.05, 0.2 * y, 0.3 * z);
+                    renderer.submit(mesh);
+                }
+            }
+        }
+    }
+    
+    private static int[] pixels(BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+}
@@ -0,0 +1,142 @@
+package com.github.jordyh297.jrender;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class LightTest {
+    private final Random random = new Random(17);
+    
+    @Test
+    void packedLightingMatchesColorLighting() {
+        for (int scene = 0; scene < 200; scene++) {
+            Renderer3D renderer = new Renderer3D(16, 16);
+            List<Light> lights = new ArrayList<>();
+            int lightCount = random.nextInt(4);
+            for (int l = 0; l < lightCount; l++) {
+                lights.add(randomLight());
+                renderer.addLight(lights.get(l));
+            }
+            for (int i = 0; i < 200; i++) {
+                Vector3D point = randomVector(15);
+                Vector3D normal = randomVector(1).normalize();
+                int color = randomColor();
+                String where = "scene " + scene + ", sample " + i;
+                assertEquals(referenceLighting(lights, point, normal, new Color(color, true)).getRGB(),
+                    renderer.calculateLighting(point, normal, color), where);
+                
+                // The Color overload of each light agrees too
+                for (Light light : lights) {
+                    assertEquals(referenceContribution(light, point, normal, new Color(color, true)),
+                        light.calculateLighting(point, normal, new Color(color, true)), where);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void edgeCasesMatchColorLighting() {
+        Vector3D point = new Vector3D(1, 2, 3);
+        Vector3D normal = new Vector3D(0, 1, 0);
+        List<Light> lights = Arrays.asList(
+            // Point light at the surface, so no direction
+            Light.createPoint(new Vector3D(1, 2, 3), Color.WHITE, 2.0),
+            // Facing away
+            Light.createDirectional(new Vector3D(0, 1, 0), Color.WHITE),
+            Light.createAmbient(Color.BLACK, 5.0),
+            Light.createAmbient(Color.WHITE, 0.0),
+            // Saturates on its own
+            Light.createAmbient(Color.WHITE, 40.0));
+        Renderer3D renderer = new Renderer3D(16, 16);
+        for (Light light : lights) {
+            renderer.addLight(light);
+        }
+        for (int color : new int[] {0, 0xFFFFFFFF, 0x00FFFFFF, 0x80FF8000, 0xFF010203}) {
+            assertEquals(referenceLighting(lights, point, normal, new Color(color, true)).getRGB(),
+                renderer.calculateLighting(point, normal, color), Integer.toHexString(color));
+        }
+    }
+    
+    private Light randomLight() {
+        Color color = new Color(randomColor());
+        switch (random.nextInt(3)) {
+            case 0:
+                return Light.createAmbient(color, random.nextDouble() * 1.5);
+            case 1:
+                return Light.createDirectional(randomVector(1), color);
+            default:
+                return Light.createPoint(randomVector(10), color, random.nextDouble() * 4);
+        }
+    }
+    
+    private int randomColor() {
+        // Mostly arbitrary, sometimes with channels pinned to the ends of the range
+        int color = random.nextInt();
+        if (random.nextInt(4) == 0) {
+            color |= 0x00FF00FF;
+        }
+        if (random.nextInt(4) == 0) {
+            color &= 0xFFFF00FF;
+        }
+        return color;
+    }
+    
+    private Vector3D randomVector(double range) {
+        return new Vector3D(random.nextDouble() * 2 * range - range, random.nextDouble() * 2 * range - range,
+            random.nextDouble() * 2 * range - range);
+    }
+    
+    // The renderer's sum of light contributions as it was computed with Color objects
+    private static Color referenceLighting(List<Light> lights, Vector3D point, Vector3D normal, Color baseColor) {
+        int r = 0, g = 0, b = 0;
+        for (Light light : lights) {
+            Color contribution = referenceContribution(light, point, normal, baseColor);
+            r += contribution.getRed();
+            g += contribution.getGreen();
+            b += contribution.getBlue();
+        }
+        return new Color(Math.min(255, r), Math.min(255, g), Math.min(255, b));
+    }
+    
+    // One light's contribution as it was computed with Color objects
+    private static Color referenceContribution(Light light, Vector3D point, Vector3D normal, Color surface) {
+        if (light.type == Light.LightType.AMBIENT) {
+            return multiply(surface, light.color, light.intensity);
+        }
+        double lx, ly, lz;
+        double attenuation = 1.0;
+        if (light.type == Light.LightType.DIRECTIONAL) {
+            lx = -light.direction.x;
+            ly = -light.direction.y;
+            lz = -light.direction.z;
+        } else {
+            lx = light.position.x - point.x;
+            ly = light.position.y - point.y;
+            lz = light.position.z - point.z;
+            double distance = Math.sqrt(lx * lx + ly * ly + lz * lz);
+            attenuation = 1.0 / (1.0 + 0.1 * distance + 0.01 * distance * distance);
+        }
+        double length = Math.sqrt(lx * lx + ly * ly + lz * lz);
+        if (length <= 0.0001) {
+            lx = ly = lz = 0;
+        } else {
+            lx /= length;
+            ly /= length;
+            lz /= length;
+        }
+        double diffuse = Math.max(0, normal.x * lx + normal.y * ly + normal.z * lz);
+        return multiply(surface, light.color, light.intensity * diffuse * attenuation);
+    }
+    
+    private static Color multiply(Color c1, Color c2, double intensity) {
+        int r = (int) Math.min(255, c1.getRed() * c2.getRed() / 255.0 * intensity);
+        int g = (int) Math.min(255, c1.getGreen() * c2.getGreen() / 255.0 * intensity);
+        int b = (int) Math.min(255, c1.getBlue() * c2.getBlue() / 255.0 * intensity);
+        return new Color(Math.max(0, r), Math.max(0, g), Math.max(0, b));
+    }
+}
@@ -0,0 +1,246 @@
+package com.github.jordyh297.jrender;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class Matrix4x4Test {
+    private static final double EPSILON = 1e-9;
+    
+    private final Random random = new Random(5);
+    
+    @Test
+    void setTransformMatchesTheProductOfFactories() {
+        for (int i = 0; i < 200; i++) {
+            Vector3D position = randomVector(20);
+            Vector3D rotation = randomVector(7);
+            Vector3D scale = new Vector3D(0.1 + random.nextDouble() * 3, 0.1 + random.nextDouble() * 3,
+                -0.1 - random.nextDouble() * 3);
+            Matrix4x4 expected = Matrix4x4.scaling(scale.x, scale.y, scale.z)
+                .multiply(Matrix4x4.rotationX(rotation.x))
+                .multiply(Matrix4x4.rotationY(rotation.y))
+                .multiply(Matrix4x4.rotationZ(rotation.z))
+                .multiply(Matrix4x4.translation(position.x, position.y, position.z));
+            assertMatrixEquals(expected, new Matrix4x4().setTransform(position, rotation, scale), EPSILON * 100);
+        }
+    }
+    
+    @Test
+    void multiplyIntoAllowsEitherOperandAsDestination() {
+        for (int i = 0; i < 100; i++) {
+            Matrix4x4 a = randomMatrix();
+            Matrix4x4 b = randomMatrix();
+            Matrix4x4 expected = naiveProduct(a, b);
+            assertMatrixEquals(expected, a.multiply(b), EPSILON);
+            
+            Matrix4x4 left = new Matrix4x4(a);
+            assertMatrixEquals(expected, left.multiplyInto(b, left), EPSILON);
+            Matrix4x4 right = new Matrix4x4(b);
+            assertMatrixEquals(expected, a.multiplyInto(right, right), EPSILON);
+            Matrix4x4 square = new Matrix4x4(a);
+            assertMatrixEquals(naiveProduct(a, a), square.multiplyInto(square, square), EPSILON);
+        }
+    }
+    
+    @Test
+    void inverseTimesMatrixIsIdentity() {
+        Matrix4x4 identity = Matrix4x4.identity();
+        for (int i = 0; i < 100; i++) {
+            Matrix4x4 matrix = randomMatrix();
+            assertMatrixEquals(identity, matrix.inverse().multiply(matrix), 1e-8);
+            assertMatrixEquals(identity, matrix.multiply(matrix.inverse()), 1e-8);
+            
+            // In place
+            Matrix4x4 copy = new Matrix4x4(matrix);
+            assertTrue(copy.inverseInto(copy));
+            assertMatrixEquals(identity, copy.multiply(matrix), 1e-8);
+        }
+        
+        // A projection and a view matrix, as the renderer inverts them
+        Matrix4x4 projection = Matrix4x4.perspective(Math.PI / 3, 16.0 / 9, 0.1, 1000);
+        assertMatrixEquals(identity, projection.inverse().multiply(projection), 1e-8);
+        Matrix4x4 view = Matrix4x4.lookAt(new Vector3D(3, 4, -10), new Vector3D(0, 1, 0), new Vector3D(0, 1, 0));
+        assertMatrixEquals(identity, view.inverse().multiply(view), 1e-8);
+    }
+    
+    @Test
+    void singularMatrixLeavesDestinationUntouched() {
+        Matrix4x4 singular = randomMatrix();
+        // Third row a combination of the first two
+        for (int col = 0; col < 4; col++) {
+            singular.set(2, col, singular.get(0, col) * 2 - singular.get(1, col));
+        }
+        Matrix4x4 dst = randomMatrix();
+        Matrix4x4 before = new Matrix4x4(dst);
+        assertFalse(singular.inverseInto(dst));
+        assertMatrixEquals(before, dst, 0.0);
+        assertFalse(Matrix4x4.scaling(1, 0, 1).inverseInto(dst));
+        assertMatrixEquals(before, dst, 0.0);
+    }
+    
+    @Test
+    void batchTransformsMatchTransformInto() {
+        int count = 50;
+        float[] points = new float[count * 3];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = (float) (random.nextDouble() * 20 - 10);
+        }
+        Matrix4x4 model = randomMatrix();
+        Matrix4x4 projection = Matrix4x4.perspective(Math.PI / 3, 1.5, 0.1, 100).multiply(model);
+        for (Matrix4x4 matrix : new Matrix4x4[] {model, projection}) {
+            float[] single = new float[count * 3];
+            double[] wide = new double[count * 3];
+            float[] homogeneous = new float[count * 4];
+            double[] wideHomogeneous = new double[count * 4];
+            matrix.transformArray(points, single, count);
+            matrix.transformArray(points, wide, count);
+            matrix.transformArrayHomogeneous(points, homogeneous, count);
+            matrix.transformArrayHomogeneous(points, wideHomogeneous, count);
+            
+            Vector3D v = new Vector3D();
+            double[] clip = new double[4];
+            for (int i = 0; i < count; i++) {
+                Vector3D point = new Vector3D(points[i * 3], points[i * 3 + 1], points[i * 3 + 2]);
+                matrix.transformInto(point, v);
+                assertEquals(v.x, wide[i * 3], EPSILON);
+                assertEquals(v.y, wide[i * 3 + 1], EPSILON);
+                assertEquals(v.z, wide[i * 3 + 2], EPSILON);
+                assertEquals((float) v.x, single[i * 3]);
+                assertEquals((float) v.y, single[i * 3 + 1]);
+                assertEquals((float) v.z, single[i * 3 + 2]);
+                
+                matrix.transformHomogeneous(point, clip);
+                for (int k = 0; k < 4; k++) {
+                    assertEquals(clip[k], wideHomogeneous[i * 4 + k], EPSILON);
+                    assertEquals((float) clip[k], homogeneous[i * 4 + k]);
+                }
+            }
+        }
+        
+        // In place over the same array
+        float[] inPlace = points.clone();
+        float[] separate = new float[count * 3];
+        model.transformArray(points, separate, count);
+        model.transformArray(inPlace, inPlace, count);
+        assertArrayEquals(separate, inPlace);
+    }
+    
+    @Test
+    void floatMatrixMatchesDoubleMatrix() {
+        Matrix4x4 a = randomMatrix();
+        Matrix4x4 b = randomMatrix();
+        Matrix4x4f af = new Matrix4x4f(a);
+        Matrix4x4f bf = new Matrix4x4f(b);
+        Matrix4x4 product = a.multiply(b);
+        Matrix4x4f productF = af.multiplyInto(bf, new Matrix4x4f());
+        for (int row = 0; row < 4; row++) {
+            for (int col = 0; col < 4; col++) {
+                assertEquals((float) a.get(row, col), af.get(row, col));
+                assertEquals(product.get(row, col), productF.get(row, col), 1e-4 * (1 + Math.abs(product.get(row, col))));
+            }
+        }
+        assertMatrixEqualsF(productF, af.multiplyInto(bf, af));
+        
+        int count = 20;
+        float[] points = new float[count * 3];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = (float) (random.nextDouble() * 20 - 10);
+        }
+        float[] out = new float[count * 3];
+        float[] homogeneous = new float[count * 4];
+        bf.transformArray(points, out, count);
+        bf.transformArrayHomogeneous(points, homogeneous, count);
+        Vector3D v = new Vector3D();
+        double[] clip = new double[4];
+        for (int i = 0; i < count; i++) {
+            Vector3D point = new Vector3D(points[i * 3], points[i * 3 + 1], points[i * 3 + 2]);
+            bf.transformInto(point, v);
+            assertEquals(v.x, out[i * 3], 1e-4 * (1 + Math.abs(v.x)));
+            assertEquals(v.y, out[i * 3 + 1], 1e-4 * (1 + Math.abs(v.y)));
+            assertEquals(v.z, out[i * 3 + 2], 1e-4 * (1 + Math.abs(v.z)));
+            b.transformHomogeneous(point, clip);
+            for (int k = 0; k < 4; k++) {
+                assertEquals(clip[k], homogeneous[i * 4 + k], 1e-4 * (1 + Math.abs(clip[k])));
+            }
+        }
+    }
+    
+    @Test
+    void inPlaceViewAndProjectionOverwriteEveryElement() {
+        Vector3D eye = new Vector3D(3, 4, -10);
+        Vector3D target = new Vector3D(0.5, 1, 2);
+        Vector3D up = new Vector3D(0, 1, 0);
+        Vector3D zAxis = eye.subtract(target).normalize();
+        Vector3D xAxis = up.cross(zAxis).normalize();
+        Vector3D yAxis = zAxis.cross(xAxis);
+        Matrix4x4 expected = Matrix4x4.identity();
+        Vector3D[] axes = {xAxis, yAxis, zAxis};
+        for (int row = 0; row < 3; row++) {
+            expected.set(row, 0, axes[row].x);
+            expected.set(row, 1, axes[row].y);
+            expected.set(row, 2, axes[row].z);
+            expected.set(row, 3, -axes[row].dot(eye));
+        }
+        assertMatrixEquals(expected, randomMatrix().setLookAt(eye, target, up), 0.0);
+        
+        Matrix4x4 projection = Matrix4x4.perspective(1.1, 1.6, 0.5, 200);
+        assertEquals(-1.0, projection.get(3, 2), 0.0);
+        assertMatrixEquals(projection, randomMatrix().setPerspective(1.1, 1.6, 0.5, 200), 0.0);
+    }
+    
+    @Test
+    void rowsRoundTrip() {
+        Matrix4x4 matrix = randomMatrix();
+        double[][] rows = matrix.toRows();
+        assertEquals(matrix.get(2, 1), rows[2][1], 0.0);
+        assertMatrixEquals(matrix, new Matrix4x4(rows), 0.0);
+    }
+    
+    // Well-conditioned random affine transform with a random bottom row perturbation
+    private Matrix4x4 randomMatrix() {
+        Matrix4x4 matrix = new Matrix4x4().setTransform(randomVector(10), randomVector(7),
+            new Vector3D(0.5 + random.nextDouble(), 0.5 + random.nextDouble(), 0.5 + random.nextDouble()));
+        matrix.set(3, 0, random.nextDouble() * 0.2 - 0.1);
+        matrix.set(3, 1, random.nextDouble() * 0.2 - 0.1);
+        return matrix;
+    }
+    
+    private Vector3D randomVector(double range) {
+        return new Vector3D(random.nextDouble() * 2 * range - range, random.nextDouble() * 2 * range - range,
+            random.nextDouble() * 2 * range - range);
+    }
+    
+    private static Matrix4x4 naiveProduct(Matrix4x4 a, Matrix4x4 b) {
+        Matrix4x4 result = new Matrix4x4();
+        for (int row = 0; row < 4; row++) {
+            for (int col = 0; col < 4; col++) {
+                double sum = 0;
+                for (int k = 0; k < 4; k++) {
+                    sum += a.get(row, k) * b.get(k, col);
+                }
+                result.set(row, col, sum);
+            }
+        }
+        return result;
+    }
+    
+    private static void assertMatrixEquals(Matrix4x4 expected, Matrix4x4 actual, double tolerance) {
+        for (int row = 0; row < 4; row++) {
+            for (int col = 0; col < 4; col++) {
+                assertEquals(expected.get(row, col), actual.get(row, col), tolerance, "element " + row + ", " + col);
+            }
+        }
+    }
+    
+    private static void assertMatrixEqualsF(Matrix4x4f expected, Matrix4x4f actual) {
+        for (int row = 0; row < 4; row++) {
+            for (int col = 0; col < 4; col++) {
+                assertEquals(expected.get(row, col), actual.get(row, col), "element " + row + ", " + col);
+            }
+        }
+    }
+}
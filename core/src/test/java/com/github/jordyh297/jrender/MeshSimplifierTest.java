@@ -0,0 +1,168 @@
+package com.github.jordyh297.jrender;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class MeshSimplifierTest {
+    @Test
+    void sphereStaysClosedManifoldAndFacingOutwards() {
+        MeshData sphere = sphere(24, 48);
+        assertClosedManifold(sphere);
+        assertFacingOutwards(sphere);
+        
+        for (int target : new int[] {1000, 400, 100, 40}) {
+            MeshData simplified = MeshSimplifier.simplify(sphere, target);
+            assertTrue(simplified.getTriangleCount() <= target,
+                simplified.getTriangleCount() + " triangles for a target of " + target);
+            assertTrue(simplified.getTriangleCount() > target / 2,
+                "stopped early at " + simplified.getTriangleCount() + " for a target of " + target);
+            assertClosedManifold(simplified);
+            assertFacingOutwards(simplified);
+        }
+    }
+    
+    @Test
+    void sameInputGivesTheSameOutput() {
+        MeshData sphere = sphere(16, 32);
+        MeshData first = MeshSimplifier.simplify(sphere, 200);
+        MeshData second = MeshSimplifier.simplify(sphere, 200);
+        assertArrayEquals(first.positions, second.positions);
+        assertArrayEquals(first.indices, second.indices);
+        assertArrayEquals(first.faceColors, second.faceColors);
+    }
+    
+    @Test
+    void openBordersKeepTheirExtent() {
+        MeshData sheet = sheet(20);
+        MeshData simplified = MeshSimplifier.simplify(sheet, 100);
+        assertTrue(simplified.getTriangleCount() <= 100);
+        BoundingBox before = sheet.getBoundingBox();
+        BoundingBox after = simplified.getBoundingBox();
+        assertEquals(before.min.x, after.min.x, 1e-3);
+        assertEquals(before.min.y, after.min.y, 1e-3);
+        assertEquals(before.max.x, after.max.x, 1e-3);
+        assertEquals(before.max.y, after.max.y, 1e-3);
+    }
+    
+    @Test
+    void levelsShrinkTowardsTheMinimum() {
+        MeshData[] levels = MeshSimplifier.buildLevels(sphere(24, 48), 8, 0.5, 24);
+        assertTrue(levels.length > 3);
+        for (int i = 1; i < levels.length; i++) {
+            assertTrue(levels[i].getTriangleCount() < levels[i - 1].getTriangleCount());
+            assertTrue(levels[i].getTriangleCount() >= 12);
+        }
+    }
+    
+    // Every edge is shared by exactly two faces that use it in opposite directions
+    private static void assertClosedManifold(MeshData mesh) {
+        Map<Long, Integer> directed = new HashMap<>();
+        int[] indices = mesh.indices;
+        for (int t = 0; t < indices.length; t += 3) {
+            for (int k = 0; k < 3; k++) {
+                int a = indices[t + k];
+                int b = indices[t + (k + 1) % 3];
+                assertTrue(a != b, "degenerate face " + t / 3);
+                Integer previous = directed.put(((long) a << 32) | b, t);
+                assertEquals(null, previous, "edge " + a + "-" + b + " used twice in one direction");
+            }
+        }
+        for (long edge : directed.keySet()) {
+            long reverse = (edge << 32) | (edge >>> 32);
+            assertTrue(directed.containsKey(reverse), "open edge " + (edge >>> 32) + "-" + (int) edge);
+        }
+    }
+    
+    // For a shape around the origin, every face normal points away from it
+    private static void assertFacingOutwards(MeshData mesh) {
+        float[] p = mesh.positions;
+        int[] indices = mesh.indices;
+        for (int t = 0; t < indices.length; t += 3) {
+            int a = indices[t] * 3;
+            int b = indices[t + 1] * 3;
+            int c = indices[t + 2] * 3;
+            double e1x = p[b] - p[a], e1y = p[b + 1] - p[a + 1], e1z = p[b + 2] - p[a + 2];
+            double e2x = p[c] - p[a], e2y = p[c + 1] - p[a + 1], e2z = p[c + 2] - p[a + 2];
+            double nx = e1y * e2z - e1z * e2y;
+            double ny = e1z * e2x - e1x * e2z;
+            double nz = e1x * e2y - e1y * e2x;
+            double cx = p[a] + p[b] + p[c];
+            double cy = p[a + 1] + p[b + 1] + p[c + 1];
+            double cz = p[a + 2] + p[b + 2] + p[c + 2];
+            assertTrue(nx * cx + ny * cy + nz * cz > 0, "face " + t / 3 + " is folded over");
+        }
+    }
+    
+    // Unit UV sphere with one vertex per pole
+    private static MeshData sphere(int stacks, int slices) {
+        int vertices = (stacks - 1) * slices + 2;
+        float[] positions = new float[vertices * 3];
+        int top = vertices - 2;
+        int bottom = vertices - 1;
+        for (int s = 1; s < stacks; s++) {
+            double phi = Math.PI * s / stacks;
+            for (int l = 0; l < slices; l++) {
+                double theta = 2 * Math.PI * l / slices;
+                int v = ((s - 1) * slices + l) * 3;
+                positions[v] = (float) (Math.sin(phi) * Math.cos(theta));
+                positions[v + 1] = (float) Math.cos(phi);
+                positions[v + 2] = (float) (Math.sin(phi) * Math.sin(theta));
+            }
+        }
+        positions[top * 3 + 1] = 1;
+        positions[bottom * 3 + 1] = -1;
+        
+        int triangles = 2 * slices * (stacks - 1);
+        int[] indices = new int[triangles * 3];
+        int k = 0;
+        for (int l = 0; l < slices; l++) {
+            int next = (l + 1) % slices;
+            k = put(indices, k, top, next, l);
+            int last = (stacks - 2) * slices;
+            k = put(indices, k, bottom, last + l, last + next);
+            for (int s = 0; s < stacks - 2; s++) {
+                int a = s * slices + l;
+                int b = s * slices + next;
+                int c = (s + 1) * slices + l;
+                int d = (s + 1) * slices + next;
+                k = put(indices, k, a, b, d);
+                k = put(indices, k, a, d, c);
+            }
+        }
+        return new MeshData(positions, new float[vertices * 3], new int[vertices], indices, new int[triangles]);
+    }
+    
+    // Flat n x n sheet in the xy plane
+    private static MeshData sheet(int n) {
+        int vertices = (n + 1) * (n + 1);
+        float[] positions = new float[vertices * 3];
+        for (int j = 0, v = 0; j <= n; j++) {
+            for (int i = 0; i <= n; i++, v += 3) {
+                positions[v] = i;
+                positions[v + 1] = j;
+            }
+        }
+        int[] indices = new int[n * n * 6];
+        int k = 0;
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < n; i++) {
+                int a = j * (n + 1) + i;
+                k = put(indices, k, a, a + 1, a + n + 2);
+                k = put(indices, k, a, a + n + 2, a + n + 1);
+            }
+        }
+        return new MeshData(positions, new float[vertices * 3], new int[vertices], indices, new int[n * n * 2]);
+    }
+    
+    private static int put(int[] indices, int k, int a, int b, int c) {
+        indices[k] = a;
+        indices[k + 1] = b;
+        indices[k + 2] = c;
+        return k + 3;
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.jordyh297.jrender;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.image.DataBufferInt;
+import org.junit.jupiter.api.Test;
+
+class OcclusionCullingTest {
+    private static final int FRAMES = 10;
+    
+    @Test
+    void cullingNeverChangesTheImage() {
+        for (boolean parallel : new boolean[] {false, true}) {
+            Renderer3D culled = renderer(true, parallel);
+            Renderer3D reference = renderer(false, parallel);
+            int occluded = 0;
+            for (int f = 0; f < FRAMES; f++) {
+                int[] expected = draw(reference, f);
+                int[] actual = draw(culled, f);
+                assertArrayEquals(expected, actual, "frame " + f + (parallel ? ", parallel" : ""));
+                occluded += culled.getStats().meshesOccluded;
+            }
+            // Otherwise the comparison proves nothing
+            assertTrue(occluded > FRAMES, "only " + occluded + " meshes occluded");
+        }
+    }
+    
+    // The near plane is pulled out so no two meshes share a stored depth. Where they do, the
+    // nearest-first order of the culling path can pick the other one, which is not a culling error.
+    private static Renderer3D renderer(boolean occlusionCulling, boolean parallel) {
+        Renderer3D renderer = new Renderer3D(320, 240);
+        Camera camera = new Camera(new Vector3D(3, 2, -30), new Vector3D(0, 0, 0));
+        camera.nearPlane = 5.0;
+        camera.farPlane = 80.0;
+        renderer.setCamera(camera);
+        renderer.addLight(Light.createAmbient(Color.WHITE, 0.3));
+        renderer.addLight(Light.createDirectional(new Vector3D(1, -1, 1), Color.WHITE));
+        renderer.setSoftwareRasterizer(true);
+        renderer.setParallelRasterization(parallel);
+        renderer.setOcclusionCulling(occlusionCulling);
+        return renderer;
+    }
+    
+    // A wall of cubes in front, with a field of rotating shapes behind it that shows around its edges
+    private static int[] draw(Renderer3D renderer, int frame) {
+        renderer.clear(Color.BLACK);
+        renderer.beginFrame();
+        for (int x = -6; x <= 6; x++) {
+            for (int y = -5; y <= 5; y++) {
+                for (int z = 0; z < 3; z++) {
+                    Mesh mesh = (x + y + z) % 2 == 0 ? Mesh.createCube(1.2) : Mesh.createPyramid(1.2);
+                    mesh.position = new Vector3D(x * 2.5, y * 2.5, 4 + z * 3);
+                    mesh.rotation = new Vector3D(0.3 * x + frame * 0.1, 0.2 * y - frame * 0.07, 0.4 * z);
+                    renderer.submit(mesh);
+                }
+            }
+        }
+        for (int x = -2; x <= 2; x++) {
+            for (int y = -2; y <= 2; y++) {
+                Mesh block = Mesh.createCube(3.0);
+                block.position = new Vector3D(x * 3 + frame * 0.3, y * 3, -6);
+                renderer.submit(block);
+            }
+        }
+        renderer.endFrame();
+        return ((DataBufferInt) renderer.getBuffer().getRaster().getDataBuffer()).getData().clone();
+    }
+}
@@ -0,0 +1,124 @@
+package com.github.jordyh297.jrender;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class PickerTest {
+    private final Random random = new Random(11);
+    private final Picker picker = new Picker();
+    
+    @Test
+    void nearestHitMatchesBruteForce() {
+        // A bumpy sheet, so the triangle hierarchy has many leaves
+        MeshData sheet = grid(40, random);
+        List<SceneObject> objects = new ArrayList<>();
+        SceneBVH bvh = new SceneBVH();
+        for (int i = 0; i < 60; i++) {
+            SceneObject object = new SceneObject(i % 3 == 0 ? MeshData.cube(2.0) : sheet);
+            object.position = new Vector3D(random.nextDouble() * 40 - 20, random.nextDouble() * 40 - 20,
+                random.nextDouble() * 40);
+            object.rotation = new Vector3D(random.nextDouble() * 6, random.nextDouble() * 6, random.nextDouble() * 6);
+            object.scale = new Vector3D(1 + random.nextDouble(), 1, 1 + random.nextDouble());
+            objects.add(object);
+            bvh.add(object);
+        }
+        
+        int hits = 0;
+        for (int q = 0; q < 500; q++) {
+            Vector3D origin = new Vector3D(random.nextDouble() * 40 - 20, random.nextDouble() * 40 - 20, -30);
+            Vector3D direction = new Vector3D(random.nextDouble() * 0.6 - 0.3, random.nextDouble() * 0.6 - 0.3, 1).normalize();
+            Ray ray = new Ray(origin, direction);
+            
+            double expected = Double.MAX_VALUE;
+            SceneObject expectedObject = null;
+            for (SceneObject object : objects) {
+                double t = bruteForce(ray, object);
+                if (t < expected) {
+                    expected = t;
+                    expectedObject = object;
+                }
+            }
+            
+            RayHit listHit = picker.raycast(ray, objects);
+            RayHit bvhHit = picker.raycast(ray, bvh);
+            if (expectedObject == null) {
+                assertNull(listHit);
+                assertNull(bvhHit);
+                continue;
+            }
+            hits++;
+            assertNotNull(listHit);
+            assertNotNull(bvhHit);
+            assertEquals(expected, listHit.distance, 1e-6);
+            assertEquals(expected, bvhHit.distance, 1e-6);
+            assertSame(expectedObject, listHit.mesh);
+            assertSame(expectedObject, bvhHit.mesh);
+        }
+        // Most rays should actually hit something, or the comparison says little
+        assertTrue(hits > 100, "only " + hits + " rays hit");
+    }
+    
+    // Nearest Moller-Trumbore hit over every world-space triangle of an object
+    private static double bruteForce(Ray ray, SceneObject object) {
+        MeshData data = object.geometry;
+        Matrix4x4 model = object.getTransformMatrix();
+        double best = Double.MAX_VALUE;
+        for (int t = 0; t < data.indices.length; t += 3) {
+            Vector3D a = model.transform(vertex(data, data.indices[t]));
+            Vector3D e1 = model.transform(vertex(data, data.indices[t + 1])).subtract(a);
+            Vector3D e2 = model.transform(vertex(data, data.indices[t + 2])).subtract(a);
+            Vector3D p = ray.direction.cross(e2);
+            double det = e1.dot(p);
+            if (Math.abs(det) < 1e-12) continue;
+            Vector3D s = ray.origin.subtract(a);
+            double u = s.dot(p) / det;
+            if (u < 0 || u > 1) continue;
+            Vector3D qv = s.cross(e1);
+            double v = ray.direction.dot(qv) / det;
+            if (v < 0 || u + v > 1) continue;
+            double distance = e2.dot(qv) / det;
+            if (distance > 0 && distance < best) {
+                best = distance;
+            }
+        }
+        return best;
+    }
+    
+    private static Vector3D vertex(MeshData data, int index) {
+        return new Vector3D(data.positions[index * 3], data.positions[index * 3 + 1], data.positions[index * 3 + 2]);
+    }
+    
+    // An n x n grid in the xy plane with random heights along z
+    private static MeshData grid(int n, Random random) {
+        int vertices = (n + 1) * (n + 1);
+        float[] positions = new float[vertices * 3];
+        for (int j = 0, v = 0; j <= n; j++) {
+            for (int i = 0; i <= n; i++, v += 3) {
+                positions[v] = i * 0.25f - n * 0.125f;
+                positions[v + 1] = j * 0.25f - n * 0.125f;
+                positions[v + 2] = random.nextFloat() * 0.5f;
+            }
+        }
+        int[] indices = new int[n * n * 6];
+        for (int j = 0, k = 0; j < n; j++) {
+            for (int i = 0; i < n; i++, k += 6) {
+                int a = j * (n + 1) + i;
+                indices[k] = a;
+                indices[k + 1] = a + 1;
+                indices[k + 2] = a + n + 2;
+                indices[k + 3] = a;
+                indices[k + 4] = a + n + 2;
+                indices[k + 5] = a + n + 1;
+            }
+        }
+        return new MeshData(positions, new float[vertices * 3], new int[vertices], indices, new int[n * n * 2]);
+    }
+}
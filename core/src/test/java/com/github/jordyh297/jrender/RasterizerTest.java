@@ -0,0 +1,143 @@
+package com.github.jordyh297.jrender;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class RasterizerTest {
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 48;
+    
+    private final int[] pixels = new int[WIDTH * HEIGHT];
+    private final DepthBuffer depthBuffer = new DepthBuffer(WIDTH, HEIGHT);
+    private final Rasterizer rasterizer = new Rasterizer(pixels, depthBuffer);
+    
+    @Test
+    void sharedEdgesCoverEveryPixelExactlyOnce() {
+        // A jittered grid over the whole target, split into two triangles per cell
+        int cells = 8;
+        Random random = new Random(42);
+        double[][] xs = new double[cells + 1][cells + 1];
+        double[][] ys = new double[cells + 1][cells + 1];
+        for (int j = 0; j <= cells; j++) {
+            for (int i = 0; i <= cells; i++) {
+                // Sixteenth-pixel steps put many corners and edges exactly on pixel centers
+                double jitterX = (i == 0 || i == cells) ? 0 : (random.nextInt(49) - 24) / 16.0;
+                double jitterY = (j == 0 || j == cells) ? 0 : (random.nextInt(49) - 24) / 16.0;
+                xs[j][i] = (double) WIDTH * i / cells + jitterX;
+                ys[j][i] = (double) HEIGHT * j / cells + jitterY;
+            }
+        }
+        
+        int[] hits = new int[WIDTH * HEIGHT];
+        for (int j = 0; j < cells; j++) {
+            for (int i = 0; i < cells; i++) {
+                countHits(hits, xs[j][i], ys[j][i], xs[j][i + 1], ys[j][i + 1], xs[j + 1][i + 1], ys[j + 1][i + 1]);
+                countHits(hits, xs[j][i], ys[j][i], xs[j + 1][i + 1], ys[j + 1][i + 1], xs[j + 1][i], ys[j + 1][i]);
+            }
+        }
+        
+        int[] once = new int[WIDTH * HEIGHT];
+        Arrays.fill(once, 1);
+        assertArrayEquals(once, hits);
+    }
+    
+    @Test
+    void fanAroundPixelCenterCoversItOnce() {
+        // Eight triangles meeting exactly at the center of pixel (10, 10)
+        double cx = 10.5;
+        double cy = 10.5;
+        int[] hits = new int[WIDTH * HEIGHT];
+        for (int k = 0; k < 8; k++) {
+            double a0 = Math.PI * 2 * k / 8;
+            double a1 = Math.PI * 2 * (k + 1) / 8;
+            countHits(hits, cx, cy, cx + 6 * Math.cos(a0), cy + 6 * Math.sin(a0),
+                cx + 6 * Math.cos(a1), cy + 6 * Math.sin(a1));
+        }
+        assertEquals(1, hits[10 * WIDTH + 10]);
+        for (int hit : hits) {
+            assertTrue(hit <= 1);
+        }
+    }
+    
+    @Test
+    void windingDoesNotChangeCoverage() {
+        rasterizer.fillTriangle(3.2, 4.7, 0, 40.1, 9.9, 0, 17.5, 39.3, 0, 0xFFFFFFFF);
+        int[] counterClockwise = pixels.clone();
+        
+        Arrays.fill(pixels, 0);
+        depthBuffer.clear();
+        rasterizer.fillTriangle(3.2, 4.7, 0, 17.5, 39.3, 0, 40.1, 9.9, 0, 0xFFFFFFFF);
+        assertArrayEquals(counterClockwise, pixels);
+    }
+    
+    @Test
+    void nearerTriangleWinsInEitherOrder() {
+        int near = 0xFF00FF00;
+        int far = 0xFFFF0000;
+        
+        rasterizer.fillTriangle(0, 0, -0.5, 60, 0, -0.5, 0, 40, -0.5, near);
+        rasterizer.fillTriangle(0, 0, 0.5, 60, 0, 0.5, 0, 40, 0.5, far);
+        int[] nearFirst = pixels.clone();
+        
+        Arrays.fill(pixels, 0);
+        depthBuffer.clear();
+        rasterizer.fillTriangle(0, 0, 0.5, 60, 0, 0.5, 0, 40, 0.5, far);
+        rasterizer.fillTriangle(0, 0, -0.5, 60, 0, -0.5, 0, 40, -0.5, near);
+        
+        assertArrayEquals(nearFirst, pixels);
+        assertEquals(near, pixels[5 * WIDTH + 5]);
+    }
+    
+    @Test
+    void depthOutsideClipRangeIsNotDrawn() {
+        rasterizer.fillTriangle(0, 0, -1.5, 60, 0, -1.5, 0, 40, -1.5, 0xFFFFFFFF);
+        rasterizer.fillTriangle(0, 0, 1.5, 60, 0, 1.5, 0, 40, 1.5, 0xFFFFFFFF);
+        for (int pixel : pixels) {
+            assertEquals(0, pixel);
+        }
+    }
+    
+    @Test
+    void cornersBeyondTheFixedPointRangeAreClippedNotDropped() {
+        rasterizer.fillTriangle(-1e9, -1e9, 0, 3e9, -1e9, 0, -1e9, 3e9, 0, 0xFFFFFFFF);
+        for (int pixel : pixels) {
+            assertEquals(0xFFFFFFFF, pixel);
+        }
+        
+        // One far corner: everything right of x = 10 is covered, as with a near corner
+        Arrays.fill(pixels, 0);
+        depthBuffer.clear();
+        rasterizer.fillTriangle(10, -4, 0, 10, 60, 0, 5e7, -4, 0, 0xFFFFFFFF);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                assertEquals(x >= 10, pixels[y * WIDTH + x] != 0, "pixel " + x + ", " + y);
+            }
+        }
+    }
+    
+    @Test
+    void nonFiniteCornersAreSkipped() {
+        rasterizer.fillTriangle(Double.NaN, 0, 0, 60, 0, 0, 0, 40, 0, 0xFFFFFFFF);
+        rasterizer.fillTriangle(Double.POSITIVE_INFINITY, 0, 0, 60, 0, 0, 0, 40, 0, 0xFFFFFFFF);
+        for (int pixel : pixels) {
+            assertEquals(0, pixel);
+        }
+    }
+    
+    // Draw one triangle on its own and add the pixels it touched to hits
+    private void countHits(int[] hits, double x1, double y1, double x2, double y2, double x3, double y3) {
+        Arrays.fill(pixels, 0);
+        depthBuffer.clear();
+        rasterizer.fillTriangle(x1, y1, 0, x2, y2, 0, x3, y3, 0, 0xFFFFFFFF);
+        for (int i = 0; i < pixels.length; i++) {
+            if (pixels[i] != 0) {
+                hits[i]++;
+            }
+        }
+    }
+}
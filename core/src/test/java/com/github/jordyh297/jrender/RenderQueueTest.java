@@ -0,0 +1,81 @@
+package com.github.jordyh297.jrender;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class RenderQueueTest {
+    private static final double[] SPECIAL = {
+        0.0, -0.0, 1.0, -1.0, Double.MAX_VALUE, -Double.MAX_VALUE, Double.POSITIVE_INFINITY,
+        Double.NEGATIVE_INFINITY, Double.MIN_VALUE, -Double.MIN_VALUE, 1e-40, 0.1, 0.1 + 1e-12
+    };
+    
+    private final Random random = new Random(3);
+    private final RenderQueue queue = new RenderQueue();
+    
+    @Test
+    void matchesStableSortOnFloatDepth() {
+        // Grows past the initial capacity, then is cleared and reused at smaller sizes
+        for (int size : new int[] {0, 1, 2, 255, 256, 257, 5000, 300, 40}) {
+            double[] depths = new double[size];
+            for (int i = 0; i < size; i++) {
+                switch (random.nextInt(4)) {
+                    case 0:
+                        // Few distinct values, so many ties
+                        depths[i] = random.nextInt(8) * 0.25 - 1;
+                        break;
+                    case 1:
+                        depths[i] = SPECIAL[random.nextInt(SPECIAL.length)];
+                        break;
+                    case 2:
+                        depths[i] = random.nextGaussian() * 1000;
+                        break;
+                    default:
+                        depths[i] = random.nextDouble() * 2 - 1;
+                }
+            }
+            assertSortedLikeReference(depths);
+        }
+    }
+    
+    @Test
+    void sortsKeysThatShareTheirHighBytes() {
+        // Depths within a tiny range differ only in the low key bytes, so the upper passes are skipped
+        double[] depths = new double[1000];
+        for (int i = 0; i < depths.length; i++) {
+            depths[i] = 0.5 + random.nextInt(5000) * 1e-7;
+        }
+        assertSortedLikeReference(depths);
+        
+        Arrays.fill(depths, 0.25);
+        assertSortedLikeReference(depths);
+    }
+    
+    // Queue the depths and compare with Arrays.sort, which is stable for objects, farthest float first
+    private void assertSortedLikeReference(double[] depths) {
+        queue.clear();
+        for (int i = 0; i < depths.length; i++) {
+            queue.add(i, i + 1, i + 2, i + 3, i + 4, i + 5, i, depths[i]);
+        }
+        queue.sortBackToFront();
+        
+        Integer[] expected = new Integer[depths.length];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = i;
+        }
+        Arrays.sort(expected, (a, b) -> Float.compare((float) depths[b], (float) depths[a]));
+        
+        assertEquals(depths.length, queue.size());
+        int[] xs = new int[3];
+        int[] ys = new int[3];
+        for (int i = 0; i < expected.length; i++) {
+            int triangle = expected[i];
+            assertEquals(triangle, queue.getColor(i), "position " + i + " of " + depths.length);
+            queue.getPolygon(i, xs, ys);
+            assertEquals(triangle, xs[0]);
+            assertEquals(triangle + 5, ys[2]);
+        }
+    }
+}
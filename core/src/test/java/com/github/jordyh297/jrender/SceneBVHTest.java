@@ -0,0 +1,121 @@
+package com.github.jordyh297.jrender;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SceneBVHTest {
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final Random random = new Random(7);
+    
+    @AfterEach
+    void shutdown() {
+        pool.shutdown();
+    }
+    
+    @Test
+    void queriesMatchBruteForceAfterBuildRefitAndRemove() {
+        List<SceneObject> objects = new ArrayList<>();
+        SceneBVH bvh = new SceneBVH(pool);
+        for (int i = 0; i < 3000; i++) {
+            SceneObject object = new SceneObject(i % 2 == 0 ? MeshData.cube(1.0) : MeshData.pyramid(2.0));
+            place(object);
+            objects.add(object);
+            bvh.add(object);
+        }
+        assertQueriesMatch(bvh, objects);
+        
+        // Move a third of the objects and refit instead of rebuilding
+        for (int i = 0; i < objects.size(); i += 3) {
+            place(objects.get(i));
+            bvh.update(objects.get(i));
+        }
+        assertQueriesMatch(bvh, objects);
+        
+        // Large moves after many refits, then a full rebuild
+        for (SceneObject object : objects) {
+            object.position = object.position.add(new Vector3D(random.nextDouble() * 50, 0, 0));
+            bvh.update(object);
+        }
+        bvh.rebuild();
+        assertQueriesMatch(bvh, objects);
+        
+        for (int i = objects.size() - 1; i >= 0; i -= 4) {
+            bvh.remove(objects.remove(i));
+        }
+        assertEquals(objects.size(), bvh.size());
+        assertQueriesMatch(bvh, objects);
+    }
+    
+    private void place(SceneObject object) {
+        object.position = new Vector3D(random.nextDouble() * 200 - 100, random.nextDouble() * 40 - 20,
+            random.nextDouble() * 200 - 100);
+        object.rotation = new Vector3D(random.nextDouble() * 3, random.nextDouble() * 3, 0);
+        double s = 0.5 + random.nextDouble() * 2;
+        object.scale = new Vector3D(s, s, s);
+    }
+    
+    private void assertQueriesMatch(SceneBVH bvh, List<SceneObject> objects) {
+        double[] bounds = new double[6];
+        for (int q = 0; q < 50; q++) {
+            // Box query
+            Vector3D min = new Vector3D(random.nextDouble() * 200 - 100, random.nextDouble() * 40 - 20,
+                random.nextDouble() * 200 - 100);
+            Vector3D max = min.add(new Vector3D(random.nextDouble() * 40, random.nextDouble() * 40, random.nextDouble() * 40));
+            Set<Renderable> expected = new HashSet<>();
+            for (SceneObject object : objects) {
+                worldBounds(object, bounds);
+                if (bounds[0] <= max.x && bounds[3] >= min.x && bounds[1] <= max.y && bounds[4] >= min.y
+                        && bounds[2] <= max.z && bounds[5] >= min.z) {
+                    expected.add(object);
+                }
+            }
+            List<Renderable> found = new ArrayList<>();
+            bvh.collectIntersecting(new BoundingBox(min, max), found);
+            assertEquals(expected, new HashSet<>(found));
+            assertEquals(expected.size(), found.size());
+            
+            // Ray query
+            Vector3D origin = new Vector3D(random.nextDouble() * 300 - 150, random.nextDouble() * 60 - 30, -150);
+            Vector3D direction = new Vector3D(random.nextDouble() - 0.5, random.nextDouble() * 0.2 - 0.1, 1).normalize();
+            Ray ray = new Ray(origin, direction);
+            expected.clear();
+            for (SceneObject object : objects) {
+                worldBounds(object, bounds);
+                if (rayEnters(ray, bounds)) {
+                    expected.add(object);
+                }
+            }
+            found.clear();
+            bvh.collectAlongRay(ray, Double.MAX_VALUE, found);
+            assertEquals(expected, new HashSet<>(found));
+        }
+    }
+    
+    private static void worldBounds(SceneObject object, double[] out) {
+        object.getBoundingBox().transform(object.getTransformMatrix(), out, 0);
+    }
+    
+    // Slab test of a ray from its origin forwards against a min/max box
+    private static boolean rayEnters(Ray ray, double[] box) {
+        double near = Double.NEGATIVE_INFINITY;
+        double far = Double.POSITIVE_INFINITY;
+        double[] origin = {ray.origin.x, ray.origin.y, ray.origin.z};
+        double[] direction = {ray.direction.x, ray.direction.y, ray.direction.z};
+        for (int axis = 0; axis < 3; axis++) {
+            double inverse = 1.0 / direction[axis];
+            double t1 = (box[axis] - origin[axis]) * inverse;
+            double t2 = (box[axis + 3] - origin[axis]) * inverse;
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+        }
+        return far >= near && far >= 0;
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.jordyh297.jrender;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+class SceneUpdateChannelTest {
+    private static final int UPDATES = 100000;
+    
+    private final MeshData cube = MeshData.cube(1.0);
+    
+    @Test
+    void readerKeepsItsUpdateUntilItAsksAgain() {
+        SceneUpdateChannel channel = new SceneUpdateChannel(4);
+        assertFalse(channel.hasUpdate());
+        assertEquals(0, channel.acquire().getSequence());
+        
+        fill(channel.getWriteBuffer(), 1);
+        channel.publish();
+        assertTrue(channel.hasUpdate());
+        SceneUpdateChannel.Snapshot first = channel.acquire();
+        assertFalse(channel.hasUpdate());
+        assertConsistent(first, 1);
+        
+        // Nothing new: the same update again, untouched by later writes
+        fill(channel.getWriteBuffer(), 2);
+        assertSame(first, channel.acquire());
+        assertConsistent(first, 1);
+        
+        // Two publishes between acquires: only the newest is seen
+        channel.publish();
+        fill(channel.getWriteBuffer(), 3);
+        channel.publish();
+        SceneUpdateChannel.Snapshot third = channel.acquire();
+        assertEquals(3, third.getSequence());
+        assertConsistent(third, 3);
+    }
+    
+    @Test
+    void shrinkingAnUpdateDropsTheRest() {
+        SceneUpdateChannel channel = new SceneUpdateChannel(2);
+        SceneUpdateChannel.Snapshot snapshot = channel.getWriteBuffer();
+        fill(snapshot, 40);
+        assertEquals(objects(40), snapshot.getCount());
+        snapshot.setCount(3);
+        assertEquals(3, snapshot.getCount());
+        assertNull(snapshot.getGeometry(3));
+        assertNull(snapshot.getColor(3));
+    }
+    
+    @Test
+    void concurrentReaderOnlySeesWholeUpdatesInOrder() throws Exception {
+        SceneUpdateChannel channel = new SceneUpdateChannel(4);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            try {
+                for (int n = 1; n <= UPDATES; n++) {
+                    fill(channel.getWriteBuffer(), n);
+                    channel.publish();
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        }, "writer");
+        writer.start();
+        
+        long last = 0;
+        int seen = 0;
+        try {
+            while (last < UPDATES) {
+                SceneUpdateChannel.Snapshot snapshot = channel.acquire();
+                long sequence = snapshot.getSequence();
+                assertTrue(sequence >= last, "went back from " + last + " to " + sequence);
+                if (sequence > last) {
+                    seen++;
+                }
+                last = sequence;
+                if (sequence > 0) {
+                    assertConsistent(snapshot, sequence);
+                }
+                if (failure.get() != null) {
+                    break;
+                }
+            }
+        } finally {
+            writer.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError("writer failed", failure.get());
+        }
+        assertEquals(UPDATES, last);
+        assertTrue(seen > 1, "reader only saw " + seen + " updates");
+    }
+    
+    // Number of objects written for update n, varied so counts shrink as well as grow
+    private static int objects(long n) {
+        return 1 + (int) (n * 7 % 50);
+    }
+    
+    // Every object in update n is placed at (n, i, 0) with a color derived from n
+    private void fill(SceneUpdateChannel.Snapshot snapshot, long n) {
+        int count = objects(n);
+        snapshot.setCount(count);
+        for (int i = 0; i < count; i++) {
+            snapshot.set(i, cube, Matrix4x4.translation(n, i, 0), new Color((int) n & 0xFFFFFF));
+        }
+    }
+    
+    private void assertConsistent(SceneUpdateChannel.Snapshot snapshot, long n) {
+        assertEquals(objects(n), snapshot.getCount(), "count of update " + n);
+        for (int i = 0; i < snapshot.getCount(); i++) {
+            Matrix4x4 transform = snapshot.getTransform(i);
+            assertEquals(n, transform.get(0, 3), 0.0, "object " + i + " of update " + n);
+            assertEquals(i, transform.get(1, 3), 0.0, "object " + i + " of update " + n);
+            assertSame(cube, snapshot.getGeometry(i));
+            assertEquals((int) n & 0xFFFFFF, snapshot.getColor(i).getRGB() & 0xFFFFFF);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.jordyh297.jrender;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class TileRasterizerTest {
+    private static final int WIDTH = 200;
+    private static final int HEIGHT = 150;
+    
+    // Several workers even on a single-core machine, so tiles really run concurrently
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    
+    @AfterEach
+    void shutdown() {
+        pool.shutdown();
+    }
+    
+    @Test
+    void tiledOutputMatchesSerialPixelForPixel() {
+        for (int tileSize : new int[] {16, 37, 64}) {
+            double[] triangles = randomTriangles(new Random(tileSize), 2000);
+            
+            int[] serial = new int[WIDTH * HEIGHT];
+            Rasterizer serialRasterizer = new Rasterizer(serial, new DepthBuffer(WIDTH, HEIGHT));
+            int[] tiled = new int[WIDTH * HEIGHT];
+            TileRasterizer tileRasterizer = new TileRasterizer(
+                new Rasterizer(tiled, new DepthBuffer(WIDTH, HEIGHT)), pool, tileSize);
+            
+            for (int t = 0, c = 0; c < triangles.length; t++, c += 9) {
+                int argb = 0xFF000000 | (t * 7919) & 0xFFFFFF;
+                serialRasterizer.fillTriangle(triangles[c], triangles[c + 1], triangles[c + 2],
+                    triangles[c + 3], triangles[c + 4], triangles[c + 5],
+                    triangles[c + 6], triangles[c + 7], triangles[c + 8], argb);
+                tileRasterizer.add(triangles[c], triangles[c + 1], triangles[c + 2],
+                    triangles[c + 3], triangles[c + 4], triangles[c + 5],
+                    triangles[c + 6], triangles[c + 7], triangles[c + 8], argb);
+            }
+            assertEquals(2000, tileRasterizer.size());
+            tileRasterizer.flush();
+            
+            assertEquals(0, tileRasterizer.size());
+            assertArrayEquals(serial, tiled, "tile size " + tileSize);
+        }
+    }
+    
+    @Test
+    void cornersBeyondTheFixedPointRangeMatchSerial() {
+        Random random = new Random(9);
+        double[] triangles = randomTriangles(random, 500);
+        // Push one corner of every fifth triangle far beyond the fixed-point range
+        for (int c = 0; c < triangles.length; c += 45) {
+            triangles[c] = (random.nextDouble() - 0.5) * 1e8;
+            triangles[c + 4] = (random.nextDouble() - 0.5) * 1e8;
+        }
+        triangles[9] = Double.NaN;
+        
+        int[] serial = new int[WIDTH * HEIGHT];
+        Rasterizer serialRasterizer = new Rasterizer(serial, new DepthBuffer(WIDTH, HEIGHT));
+        int[] tiled = new int[WIDTH * HEIGHT];
+        TileRasterizer tileRasterizer = new TileRasterizer(
+            new Rasterizer(tiled, new DepthBuffer(WIDTH, HEIGHT)), pool, 32);
+        for (int t = 0, c = 0; c < triangles.length; t++, c += 9) {
+            int argb = 0xFF000000 | (t * 7919) & 0xFFFFFF;
+            serialRasterizer.fillTriangle(triangles[c], triangles[c + 1], triangles[c + 2],
+                triangles[c + 3], triangles[c + 4], triangles[c + 5],
+                triangles[c + 6], triangles[c + 7], triangles[c + 8], argb);
+            tileRasterizer.add(triangles[c], triangles[c + 1], triangles[c + 2],
+                triangles[c + 3], triangles[c + 4], triangles[c + 5],
+                triangles[c + 6], triangles[c + 7], triangles[c + 8], argb);
+        }
+        tileRasterizer.flush();
+        assertArrayEquals(serial, tiled);
+    }
+    
+    // Triangles of mixed sizes, some crossing the edges of the target, at random depths
+    private static double[] randomTriangles(Random random, int count) {
+        double[] triangles = new double[count * 9];
+        for (int c = 0; c < triangles.length; c += 9) {
+            double cx = random.nextDouble() * (WIDTH + 40) - 20;
+            double cy = random.nextDouble() * (HEIGHT + 40) - 20;
+            double size = random.nextInt(10) == 0 ? 120 : 15;
+            for (int k = 0; k < 3; k++) {
+                triangles[c + k * 3] = cx + (random.nextDouble() - 0.5) * size;
+                triangles[c + k * 3 + 1] = cy + (random.nextDouble() - 0.5) * size;
+                triangles[c + k * 3 + 2] = random.nextDouble() * 1.8 - 0.9;
+            }
+        }
+        return triangles;
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.jordyh297.jrender;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class TriangleClipperTest {
+    private static final double EPSILON = 1e-9;
+    
+    private final TriangleClipper clipper = new TriangleClipper();
+    
+    @Test
+    void insideTriangleIsUnchanged() {
+        double[] a = {-0.5, -0.5, 0.0, 1.0};
+        double[] b = {0.5, -0.5, 0.0, 1.0};
+        double[] c = {0.0, 0.5, 0.0, 1.0};
+        assertEquals(3, clipper.clip(a, b, c));
+        double[] out = clipper.getVertices();
+        for (int k = 0; k < 4; k++) {
+            assertEquals(a[k], out[k], 0.0);
+            assertEquals(b[k], out[4 + k], 0.0);
+            assertEquals(c[k], out[8 + k], 0.0);
+        }
+    }
+    
+    @Test
+    void triangleBehindTheNearPlaneIsRemoved() {
+        double[] a = {0.0, 0.0, -2.0, 1.0};
+        double[] b = {0.5, 0.0, -3.0, 1.0};
+        double[] c = {0.0, 0.5, -2.5, 1.0};
+        assertEquals(0, clipper.clip(a, b, c));
+    }
+    
+    @Test
+    void oneCornerBeyondTheNearPlaneGivesAQuad() {
+        double[] a = {0.0, 0.0, -2.0, 1.0};
+        double[] b = {0.5, 0.0, 0.5, 1.0};
+        double[] c = {0.0, 0.5, 0.5, 1.0};
+        assertClippedInside(4, clipper.clip(a, b, c));
+    }
+    
+    @Test
+    void twoCornersBeyondTheNearPlaneGiveATriangle() {
+        double[] a = {0.0, 0.0, -2.0, 1.0};
+        double[] b = {0.5, 0.0, -2.0, 1.0};
+        double[] c = {0.0, 0.5, 0.5, 1.0};
+        assertClippedInside(3, clipper.clip(a, b, c));
+    }
+    
+    @Test
+    void sidesAreOnlyClippedAtTheGuardBand() {
+        // Crosses the right edge of the viewport but stays inside the guard band
+        double[] a = {0.0, 0.0, 0.0, 1.0};
+        double[] b = {1.5, 0.0, 0.0, 1.0};
+        double[] c = {0.0, 0.5, 0.0, 1.0};
+        assertEquals(3, clipper.clip(a, b, c));
+        
+        // Crosses the guard band on the right
+        b[0] = 3.0;
+        assertClippedInside(4, clipper.clip(a, b, c));
+        
+        // Without the guard band only near and far planes clip
+        clipper.setGuardBandClipping(false);
+        assertEquals(3, clipper.clip(a, b, c));
+    }
+    
+    @Test
+    void cornerBeyondFourPlanesGivesAtMostNineVertices() {
+        double[] a = {0.0, 0.0, 0.0, 1.0};
+        double[] b = {5.0, 5.0, -3.0, 1.0};
+        double[] c = {-5.0, 5.0, 3.0, 1.0};
+        int count = clipper.clip(a, b, c);
+        assertTrue(count >= 3 && count <= TriangleClipper.MAX_VERTICES, "vertex count " + count);
+        assertClippedInside(count, count);
+    }
+    
+    @Test
+    void outcodesMatchIsOutside() {
+        double[] a = {2.0, 0.0, 0.0, 1.0};
+        double[] b = {3.0, 0.5, 0.0, 1.0};
+        double[] c = {1.5, -0.5, 0.0, 1.0};
+        assertTrue(TriangleClipper.isOutside(a, b, c));
+        int shared = TriangleClipper.frustumOutcode(a[0], a[1], a[2], a[3])
+            & TriangleClipper.frustumOutcode(b[0], b[1], b[2], b[3])
+            & TriangleClipper.frustumOutcode(c[0], c[1], c[2], c[3]);
+        assertEquals(2, shared);
+    }
+    
+    // Check the count and that every output vertex lies within the near, far and guard band planes
+    private void assertClippedInside(int expected, int count) {
+        assertEquals(expected, count);
+        double[] out = clipper.getVertices();
+        double band = clipper.isGuardBandClipping() ? TriangleClipper.GUARD_BAND : Double.POSITIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            double x = out[i * 4];
+            double y = out[i * 4 + 1];
+            double z = out[i * 4 + 2];
+            double w = out[i * 4 + 3];
+            assertTrue(z >= -w - EPSILON && z <= w + EPSILON, "z outside at vertex " + i);
+            assertTrue(Math.abs(x) <= band * w + EPSILON, "x outside guard band at vertex " + i);
+            assertTrue(Math.abs(y) <= band * w + EPSILON, "y outside guard band at vertex " + i);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.jordyh297.jrender;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class TriangleRingTest {
+    private static final int BATCHES = 20000;
+    
+    @Test
+    void rejectsRingsTooSmallToShare() {
+        assertThrows(IllegalArgumentException.class, () -> new TriangleRing(1, 16));
+        assertThrows(IllegalArgumentException.class, () -> new TriangleRing(4, 0));
+    }
+    
+    @Test
+    void claimedBatchesStartEmpty() {
+        TriangleRing ring = new TriangleRing(2, 2);
+        TriangleRing.Batch batch = ring.claim();
+        batch.add(0, 0, 0, 1, 0, 0, 0, 1, 0, 7);
+        batch.add(0, 0, 0, 1, 0, 0, 0, 1, 0, 7);
+        batch.frameStart = true;
+        batch.frameEnd = true;
+        assertTrue(batch.isFull());
+        ring.publish();
+        assertSame(batch, ring.take());
+        ring.release();
+        
+        // Around the ring and back to the same batch
+        ring.claim();
+        ring.publish();
+        ring.take();
+        ring.release();
+        TriangleRing.Batch again = ring.claim();
+        assertSame(batch, again);
+        assertEquals(0, again.count);
+        assertFalse(again.frameStart);
+        assertFalse(again.frameEnd);
+        assertFalse(again.shutdown);
+    }
+    
+    @Test
+    @Timeout(60)
+    void consumerSeesEveryBatchInOrderWhenProducerWaits() throws Exception {
+        // The consumer stalls now and then, so the producer fills the ring and parks
+        exchange(2, 3, 0, 997);
+    }
+    
+    @Test
+    @Timeout(60)
+    void consumerSeesEveryBatchInOrderWhenConsumerWaits() throws Exception {
+        // The producer stalls now and then, so the consumer drains the ring and parks
+        exchange(3, 5, 997, 0);
+    }
+    
+    // Pass BATCHES batches across two threads, each side pausing every stall batches, and check what arrives
+    private static void exchange(int batchCount, int perBatch, int producerStall, int consumerStall) throws Exception {
+        TriangleRing ring = new TriangleRing(batchCount, perBatch);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread producer = new Thread(() -> {
+            try {
+                for (int n = 0; n < BATCHES; n++) {
+                    TriangleRing.Batch batch = ring.claim();
+                    int count = 1 + n % perBatch;
+                    for (int t = 0; t < count; t++) {
+                        double v = n * 16 + t;
+                        batch.add(v, v + 1, v + 2, v + 3, v + 4, v + 5, v + 6, v + 7, v + 8, n ^ t);
+                    }
+                    batch.frame = n;
+                    batch.frameStart = n % 3 == 0;
+                    batch.frameEnd = n % 3 == 2;
+                    ring.publish();
+                    pause(n, producerStall);
+                }
+                ring.claim().shutdown = true;
+                ring.publish();
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        }, "producer");
+        producer.start();
+        
+        int received = 0;
+        try {
+            while (true) {
+                TriangleRing.Batch batch = ring.take();
+                if (batch.shutdown) {
+                    assertEquals(0, batch.count);
+                    ring.release();
+                    break;
+                }
+                int n = received++;
+                assertEquals(n, batch.frame);
+                assertEquals(1 + n % perBatch, batch.count);
+                assertEquals(n % 3 == 0, batch.frameStart);
+                assertEquals(n % 3 == 2, batch.frameEnd);
+                for (int t = 0; t < batch.count; t++) {
+                    for (int k = 0; k < 9; k++) {
+                        assertEquals(n * 16 + t + k, batch.vertices[t * 9 + k], 0.0);
+                    }
+                    assertEquals(n ^ t, batch.colors[t]);
+                }
+                ring.release();
+                pause(n, consumerStall);
+            }
+        } finally {
+            producer.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError("producer failed", failure.get());
+        }
+        assertEquals(BATCHES, received);
+    }
+    
+    // Sleep briefly every stall calls, long enough for the other side to reach its park
+    private static void pause(int n, int stall) throws InterruptedException {
+        if (stall > 0 && n % stall == stall - 1) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -114,9 +114,11 @@ public class AdvancedExample extends JFrame {
     private void render(Graphics g) {
         renderer.clear(new Color(10, 10, 20));
         
+        renderer.beginFrame();
         for (Mesh mesh : meshes) {
-            renderer.render(mesh);
+            renderer.submit(mesh);
         }
+        renderer.endFrame();
         
         g.drawImage(renderer.getBuffer(), 0, 0, null);
         
@@ -16,12 +16,13 @@ import java.util.List;
  * - Wireframe toggle
  * - Real-time rendering
  */
-public class Demo3D extends JPanel implements Runnable {
+public class Demo3D extends JPanel {
     private Renderer3D renderer;
     private Camera camera;
     private List<Mesh> meshes;
-    private Thread renderThread;
-    private boolean running = false;
+    
+    // Renders on its own thread; input reaches the scene through it
+    private final FramePresenter presenter;
     
     // Interaction state
     private Point lastMousePos;
@@ -71,6 +72,10 @@ public class Demo3D extends JPanel implements Runnable {
         smallCube.position = new Vector3D(0, 3, 2);
         meshes.add(smallCube);
         
+        // Double buffered: rendering waits only while the EDT still shows the other frame
+        presenter = new FramePresenter(renderer, this, 2, this::renderFrame);
+        presenter.setTargetFrameRate(60);
+        
         // Setup mouse controls
         setupMouseControls();
         
@@ -81,11 +86,7 @@ public class Demo3D extends JPanel implements Runnable {
         addComponentListener(new ComponentAdapter() {
             @Override
             public void componentResized(ComponentEvent e) {
-                int w = getWidth();
-                int h = getHeight();
-                if (w > 0 && h > 0) {
-                    renderer.resize(w, h);
-                }
+                presenter.resize(getWidth(), getHeight());
             }
         });
     }
@@ -94,37 +95,43 @@ public class Demo3D extends JPanel implements Runnable {
         addMouseListener(new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
-                lastMousePos = e.getPoint();
-                isDragging = true;
-                autoRotate = false;
+                Point point = e.getPoint();
+                presenter.invokeLater(() -> {
+                    lastMousePos = point;
+                    isDragging = true;
+                    autoRotate = false;
+                });
             }
             
             @Override
             public void mouseReleased(MouseEvent e) {
-                isDragging = false;
+                presenter.invokeLater(() -> isDragging = false);
             }
         });
         
         addMouseMotionListener(new MouseMotionAdapter() {
             @Override
             public void mouseDragged(MouseEvent e) {
-                if (isDragging && lastMousePos != null) {
-                    int dx = e.getX() - lastMousePos.x;
-                    int dy = e.getY() - lastMousePos.y;
-                    
-                    rotationX -= dy * 0.01;
-                    rotationY += dx * 0.01;
-                    
-                    camera.orbit(dy * 0.01, dx * 0.01);
-                    lastMousePos = e.getPoint();
-                }
+                Point point = e.getPoint();
+                presenter.invokeLater(() -> {
+                    if (isDragging && lastMousePos != null) {
+                        int dx = point.x - lastMousePos.x;
+                        int dy = point.y - lastMousePos.y;
+                        
+                        rotationX -= dy * 0.01;
+                        rotationY += dx * 0.01;
+                        
+                        camera.orbit(dy * 0.01, dx * 0.01);
+                        lastMousePos = point;
+                    }
+                });
             }
         });
         
         // Mouse wheel for zoom
         addMouseWheelListener(e -> {
             double zoom = e.getPreciseWheelRotation();
-            camera.moveForward(-zoom * 0.5);
+            presenter.invokeLater(() -> camera.moveForward(-zoom * 0.5));
         });
     }
     
@@ -132,87 +139,64 @@ public class Demo3D extends JPanel implements Runnable {
         addKeyListener(new KeyAdapter() {
             @Override
             public void keyPressed(KeyEvent e) {
-                double moveSpeed = 0.2;
-                
-                switch (e.getKeyCode()) {
-                    case KeyEvent.VK_W:
-                        camera.moveForward(moveSpeed);
-                        break;
-                    case KeyEvent.VK_S:
-                        camera.moveForward(-moveSpeed);
-                        break;
-                    case KeyEvent.VK_A:
-                        camera.strafe(-moveSpeed);
-                        break;
-                    case KeyEvent.VK_D:
-                        camera.strafe(moveSpeed);
-                        break;
-                    case KeyEvent.VK_SPACE:
-                        camera.moveVertical(moveSpeed);
-                        break;
-                    case KeyEvent.VK_SHIFT:
-                        camera.moveVertical(-moveSpeed);
-                        break;
-                    case KeyEvent.VK_F:
-                        wireframeMode = !wireframeMode;
-                        renderer.setWireframeMode(wireframeMode);
-                        break;
-                    case KeyEvent.VK_R:
-                        autoRotate = !autoRotate;
-                        break;
-                    case KeyEvent.VK_L:
-                        renderer.setUseLighting(!renderer.lights.isEmpty());
-                        if (!renderer.lights.isEmpty()) {
-                            renderer.clearLights();
-                        } else {
-                            renderer.addLight(Light.createAmbient(Color.WHITE, 0.3));
-                            renderer.addLight(Light.createDirectional(
-                                new Vector3D(-1, -1, -1), Color.WHITE));
-                        }
-                        break;
-                    case KeyEvent.VK_ESCAPE:
-                        System.exit(0);
-                        break;
+                int code = e.getKeyCode();
+                if (code == KeyEvent.VK_ESCAPE) {
+                    System.exit(0);
                 }
+                presenter.invokeLater(() -> handleKey(code));
             }
         });
     }
     
-    public void start() {
-        if (!running) {
-            running = true;
-            renderThread = new Thread(this);
-            renderThread.start();
+    // Keys move the camera and change settings, so they run on the render thread
+    private void handleKey(int code) {
+        double moveSpeed = 0.2;
+        
+        switch (code) {
+            case KeyEvent.VK_W:
+                camera.moveForward(moveSpeed);
+                break;
+            case KeyEvent.VK_S:
+                camera.moveForward(-moveSpeed);
+                break;
+            case KeyEvent.VK_A:
+                camera.strafe(-moveSpeed);
+                break;
+            case KeyEvent.VK_D:
+                camera.strafe(moveSpeed);
+                break;
+            case KeyEvent.VK_SPACE:
+                camera.moveVertical(moveSpeed);
+                break;
+            case KeyEvent.VK_SHIFT:
+                camera.moveVertical(-moveSpeed);
+                break;
+            case KeyEvent.VK_F:
+                wireframeMode = !wireframeMode;
+                renderer.setWireframeMode(wireframeMode);
+                break;
+            case KeyEvent.VK_R:
+                autoRotate = !autoRotate;
+                break;
+            case KeyEvent.VK_L:
+                renderer.setUseLighting(!renderer.lights.isEmpty());
+                if (!renderer.lights.isEmpty()) {
+                    renderer.clearLights();
+                } else {
+                    renderer.addLight(Light.createAmbient(Color.WHITE, 0.3));
+                    renderer.addLight(Light.createDirectional(
+                        new Vector3D(-1, -1, -1), Color.WHITE));
+                }
+                break;
         }
     }
     
-    public void stop() {
-        running = false;
+    public void start() {
+        presenter.start();
     }
     
-    @Override
-    public void run() {
-        long lastTime = System.nanoTime();
-        double nsPerFrame = 1_000_000_000.0 / 60.0; // 60 FPS
-        double delta = 0;
-        
-        while (running) {
-            long now = System.nanoTime();
-            delta += (now - lastTime) / nsPerFrame;
-            lastTime = now;
-            
-            if (delta >= 1) {
-                update(delta * (1.0 / 60.0));
-                repaint();
-                delta--;
-            }
-            
-            try {
-                Thread.sleep(1);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
+    public void stop() {
+        presenter.stop();
     }
     
     private void update(double deltaTime) {
@@ -237,19 +221,25 @@ public class Demo3D extends JPanel implements Runnable {
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
+        presenter.paint(g);
+    }
+    
+    // Update, render and overlay one frame on the render thread
+    private void renderFrame(Renderer3D renderer, double deltaTime) {
+        // Fixed 60 Hz animation steps, however fast frames are drawn
+        presenter.getScheduler().update(this::update);
         
         // Clear and render scene
         renderer.clear(new Color(20, 20, 30));
         
-        for (Mesh mesh : meshes) {
-            renderer.render(mesh);
-        }
-        
-        // Draw buffer to screen
-        g.drawImage(renderer.getBuffer(), 0, 0, null);
+        renderer.beginFrame();
+        renderer.submitAll(meshes);
+        renderer.endFrame();
         
-        // Draw UI overlay
+        // Draw UI overlay into the frame
+        Graphics g = renderer.getBuffer().createGraphics();
         drawUI(g);
+        g.dispose();
     }
     
     private void drawUI(Graphics g) {
@@ -4,6 +4,7 @@ import com.github.jordyh297.jrender.*;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -18,13 +19,20 @@ import java.util.Random;
  * - Post-processing effects
  * - Performance metrics
  */
-public class ShowcaseDemo extends JPanel implements Runnable {
+public class ShowcaseDemo extends JPanel {
     private Renderer3D renderer;
     private Camera camera;
     private List<CelestialBody> bodies;
     private List<Particle> particles;
-    private Thread renderThread;
-    private boolean running = false;
+    
+    // Particles share one cube and are drawn as instances of it
+    private final MeshData particleGeometry = MeshData.cube(0.4);
+    private Matrix4x4[] particleTransforms = new Matrix4x4[0];
+    private Color[] particleColors = new Color[0];
+    
+    // Renders and updates the scene on its own thread; the EDT only shows frames
+    private final FramePresenter presenter;
+    private BufferedImage glowSource;
     
     private double time = 0;
     private int frameCount = 0;
@@ -44,8 +52,6 @@ public class ShowcaseDemo extends JPanel implements Runnable {
     private double manualCameraAngle = 0;
     private double manualCameraHeight = 15;
     
-    private int culledObjects = 0;
-    
     private List<TrailPoint> trails = new ArrayList<>();
     private static final int MAX_TRAIL_POINTS = 200;
     
@@ -78,6 +84,10 @@ public class ShowcaseDemo extends JPanel implements Runnable {
         trails = new ArrayList<>();
         createSolarSystem();
         
+        // Triple buffered, so the render thread never waits for the EDT
+        presenter = new FramePresenter(renderer, this, 3, this::renderFrame);
+        presenter.setTargetFrameRate(60);
+        
         // Setup controls
         setupControls();
         
@@ -85,11 +95,7 @@ public class ShowcaseDemo extends JPanel implements Runnable {
         addComponentListener(new ComponentAdapter() {
             @Override
             public void componentResized(ComponentEvent e) {
-                int w = getWidth();
-                int h = getHeight();
-                if (w > 0 && h > 0) {
-                    renderer.resize(w, h);
-                }
+                presenter.resize(getWidth(), getHeight());
             }
         });
     }
@@ -111,7 +117,7 @@ public class ShowcaseDemo extends JPanel implements Runnable {
         
         // Sun (center)
         CelestialBody sun = new CelestialBody(
-            Mesh.createCube(3.0), 
+            MeshData.cube(3.0), 
             new Vector3D(0, 0, 0),
             new Color(255, 200, 50),
             0, 0, 0.2
@@ -120,27 +126,27 @@ public class ShowcaseDemo extends JPanel implements Runnable {
         
         // Planets with different orbits
         bodies.add(new CelestialBody(
-            Mesh.createCube(1.2), new Vector3D(0, 0, 0),
+            MeshData.cube(1.2), new Vector3D(0, 0, 0),
             new Color(100, 100, 255), 6, 1.0, 0.5
         ));
         
         bodies.add(new CelestialBody(
-            Mesh.createPyramid(1.5), new Vector3D(0, 0, 0),
+            MeshData.pyramid(1.5), new Vector3D(0, 0, 0),
             new Color(255, 100, 100), 10, 0.7, 0.3
         ));
         
         bodies.add(new CelestialBody(
-            Mesh.createCube(0.8), new Vector3D(0, 0, 0),
+            MeshData.cube(0.8), new Vector3D(0, 0, 0),
             new Color(100, 255, 100), 14, 0.5, 0.8
         ));
         
         bodies.add(new CelestialBody(
-            Mesh.createPyramid(2.0), new Vector3D(0, 0, 0),
+            MeshData.pyramid(2.0), new Vector3D(0, 0, 0),
             new Color(255, 150, 255), 18, 0.4, 0.4
         ));
         
         bodies.add(new CelestialBody(
-            Mesh.createCube(1.0), new Vector3D(0, 0, 0),
+            MeshData.cube(1.0), new Vector3D(0, 0, 0),
             new Color(255, 255, 100), 22, 0.3, 0.6
         ));
     }
@@ -154,7 +160,6 @@ public class ShowcaseDemo extends JPanel implements Runnable {
         for (int i = 0; i < 80; i++) {
             double angle = (i / 80.0) * Math.PI * 4;
             double radius = (i / 80.0) * 15;
-            Mesh particle = Mesh.createCube(0.4);
             Vector3D pos = new Vector3D(
                 Math.cos(angle) * radius,
                 (i / 80.0) * 15 - 7.5,
@@ -165,7 +170,7 @@ public class ShowcaseDemo extends JPanel implements Runnable {
                 150,
                 255 - (int)((i / 80.0) * 155)
             );
-            particles.add(new Particle(particle, pos, color));
+            particles.add(new Particle(pos, color));
         }
     }
     
@@ -176,7 +181,7 @@ public class ShowcaseDemo extends JPanel implements Runnable {
         // Create a wave pattern of cubes
         for (int x = -5; x <= 5; x++) {
             for (int z = -5; z <= 5; z++) {
-                Mesh cube = Mesh.createCube(0.6);
+                MeshData cube = MeshData.cube(0.6);
                 Color color = new Color(
                     Math.abs(x) * 20 + 50,
                     Math.abs(z) * 20 + 50,
@@ -197,7 +202,7 @@ public class ShowcaseDemo extends JPanel implements Runnable {
         
         // Central star
         CelestialBody center = new CelestialBody(
-            Mesh.createCube(2.5), 
+            MeshData.cube(2.5), 
             new Vector3D(0, 0, 0),
             new Color(255, 220, 100),
             0, 0, 0.3
@@ -211,7 +216,8 @@ public class ShowcaseDemo extends JPanel implements Runnable {
                 double dist = 5 + i * 1.2;
                 double angle = armAngle + (i * 0.3);
                 
-                Mesh star = Mesh.createCube(0.5 + rand.nextDouble() * 0.3);
+                // One shared unit of geometry, sized per star by scale
+                double size = 0.5 + rand.nextDouble() * 0.3;
                 Vector3D pos = new Vector3D(
                     Math.cos(angle) * dist,
                     (rand.nextDouble() - 0.5) * 2,
@@ -222,7 +228,9 @@ public class ShowcaseDemo extends JPanel implements Runnable {
                     150 + rand.nextInt(105),
                     100 + rand.nextInt(55)
                 );
-                bodies.add(new CelestialBody(star, pos, color, 0, 0, 0.5 + rand.nextDouble()));
+                CelestialBody star = new CelestialBody(MeshData.cube(1.0), pos, color, 0, 0, 0.5 + rand.nextDouble());
+                star.object.scale = new Vector3D(size, size, size);
+                bodies.add(star);
             }
         }
     }
@@ -238,7 +246,7 @@ public class ShowcaseDemo extends JPanel implements Runnable {
                     // Skip some cubes for interesting pattern
                     if ((x + y + z) % 2 == 0) continue;
                     
-                    Mesh cube = Mesh.createCube(0.5);
+                    MeshData cube = MeshData.cube(0.5);
                     Color color = new Color(
                         Math.abs(x) * 30 + 50,
                         Math.abs(y) * 30 + 50,
@@ -258,65 +266,11 @@ public class ShowcaseDemo extends JPanel implements Runnable {
         addKeyListener(new KeyAdapter() {
             @Override
             public void keyPressed(KeyEvent e) {
-                switch (e.getKeyCode()) {
-                    case KeyEvent.VK_1:
-                        currentMode = SceneMode.SOLAR_SYSTEM;
-                        time = 0;
-                        createSolarSystem();
-                        break;
-                    case KeyEvent.VK_2:
-                        currentMode = SceneMode.PARTICLE_VORTEX;
-                        time = 0;
-                        createParticleStorm();
-                        break;
-                    case KeyEvent.VK_3:
-                        currentMode = SceneMode.GEOMETRIC_WAVE;
-                        time = 0;
-                        createGeometricDance();
-                        break;
-                    case KeyEvent.VK_4:
-                        currentMode = SceneMode.SPINNING_GALAXY;
-                        time = 0;
-                        createSpinningGalaxy();
-                        break;
-                    case KeyEvent.VK_5:
-                        currentMode = SceneMode.CUBE_MATRIX;
-                        time = 0;
-                        createCubeMatrix();
-                        break;
-                    case KeyEvent.VK_F:
-                        renderer.setWireframeMode(!renderer.wireframeMode);
-                        break;
-                    case KeyEvent.VK_G:
-                        glowEffect = !glowEffect;
-                        break;
-                    case KeyEvent.VK_UP:
-                        cameraHeight += 2;
-                        break;
-                    case KeyEvent.VK_DOWN:
-                        cameraHeight -= 2;
-                        break;
-                    case KeyEvent.VK_LEFT:
-                        cameraDistance += 2;
-                        break;
-                    case KeyEvent.VK_RIGHT:
-                        cameraDistance -= 2;
-                        break;
-                    case KeyEvent.VK_SPACE:
-                        isPaused = !isPaused;
-                        break;
-                    case KeyEvent.VK_R:
-                        time = 0;
-                        trails.clear();
-                        break;
-                    case KeyEvent.VK_T:
-                        trailEffect = !trailEffect;
-                        if (!trailEffect) trails.clear();
-                        break;
-                    case KeyEvent.VK_ESCAPE:
-                        System.exit(0);
-                        break;
+                int code = e.getKeyCode();
+                if (code == KeyEvent.VK_ESCAPE) {
+                    System.exit(0);
                 }
+                presenter.invokeLater(() -> handleKey(code));
             }
         });
         
@@ -324,20 +278,24 @@ public class ShowcaseDemo extends JPanel implements Runnable {
         addMouseListener(new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
-                mouseDragging = true;
-                lastMouseX = e.getX();
-                lastMouseY = e.getY();
+                int x = e.getX();
+                int y = e.getY();
+                presenter.invokeLater(() -> {
+                    mouseDragging = true;
+                    lastMouseX = x;
+                    lastMouseY = y;
+                });
             }
             
             @Override
             public void mouseReleased(MouseEvent e) {
-                mouseDragging = false;
+                presenter.invokeLater(() -> mouseDragging = false);
             }
             
             @Override
             public void mouseClicked(MouseEvent e) {
                 if (e.getButton() == MouseEvent.BUTTON1) {
-                    isPaused = !isPaused;
+                    presenter.invokeLater(() -> isPaused = !isPaused);
                 }
             }
         });
@@ -345,78 +303,116 @@ public class ShowcaseDemo extends JPanel implements Runnable {
         addMouseMotionListener(new MouseMotionAdapter() {
             @Override
             public void mouseDragged(MouseEvent e) {
-                if (mouseDragging) {
-                    int dx = e.getX() - lastMouseX;
-                    int dy = e.getY() - lastMouseY;
-                    
-                    manualCameraAngle += dx * 0.01;
-                    manualCameraHeight -= dy * 0.1;
-                    manualCameraHeight = Math.max(-50, Math.min(50, manualCameraHeight));
-                    
-                    lastMouseX = e.getX();
-                    lastMouseY = e.getY();
-                }
+                int x = e.getX();
+                int y = e.getY();
+                presenter.invokeLater(() -> {
+                    if (mouseDragging) {
+                        int dx = x - lastMouseX;
+                        int dy = y - lastMouseY;
+                        
+                        manualCameraAngle += dx * 0.01;
+                        manualCameraHeight -= dy * 0.1;
+                        manualCameraHeight = Math.max(-50, Math.min(50, manualCameraHeight));
+                        
+                        lastMouseX = x;
+                        lastMouseY = y;
+                    }
+                });
             }
             
             @Override
             public void mouseMoved(MouseEvent e) {
-                if (!mouseDragging) {
-                    double centerX = getWidth() / 2.0;
-                    cameraAngle = (e.getX() - centerX) / centerX * Math.PI / 4;
-                }
+                double centerX = getWidth() / 2.0;
+                double angle = (e.getX() - centerX) / centerX * Math.PI / 4;
+                presenter.invokeLater(() -> {
+                    if (!mouseDragging) {
+                        cameraAngle = angle;
+                    }
+                });
             }
         });
         
         // Mouse wheel for zoom
         addMouseWheelListener(e -> {
-            cameraDistance += e.getWheelRotation() * 2;
-            cameraDistance = Math.max(5, Math.min(100, cameraDistance));
+            int rotation = e.getWheelRotation();
+            presenter.invokeLater(() -> {
+                cameraDistance += rotation * 2;
+                cameraDistance = Math.max(5, Math.min(100, cameraDistance));
+            });
         });
     }
     
-    public void start() {
-        if (!running) {
-            running = true;
-            renderThread = new Thread(this);
-            renderThread.start();
+    // Keys act on the scene, so they run on the render thread
+    private void handleKey(int code) {
+        switch (code) {
+            case KeyEvent.VK_1:
+                currentMode = SceneMode.SOLAR_SYSTEM;
+                time = 0;
+                createSolarSystem();
+                break;
+            case KeyEvent.VK_2:
+                currentMode = SceneMode.PARTICLE_VORTEX;
+                time = 0;
+                createParticleStorm();
+                break;
+            case KeyEvent.VK_3:
+                currentMode = SceneMode.GEOMETRIC_WAVE;
+                time = 0;
+                createGeometricDance();
+                break;
+            case KeyEvent.VK_4:
+                currentMode = SceneMode.SPINNING_GALAXY;
+                time = 0;
+                createSpinningGalaxy();
+                break;
+            case KeyEvent.VK_5:
+                currentMode = SceneMode.CUBE_MATRIX;
+                time = 0;
+                createCubeMatrix();
+                break;
+            case KeyEvent.VK_F:
+                renderer.setWireframeMode(!renderer.wireframeMode);
+                break;
+            case KeyEvent.VK_G:
+                glowEffect = !glowEffect;
+                break;
+            case KeyEvent.VK_P:
+                boolean software = !renderer.isSoftwareRasterizer();
+                renderer.setSoftwareRasterizer(software);
+                renderer.setParallelRasterization(software);
+                break;
+            case KeyEvent.VK_UP:
+                cameraHeight += 2;
+                break;
+            case KeyEvent.VK_DOWN:
+                cameraHeight -= 2;
+                break;
+            case KeyEvent.VK_LEFT:
+                cameraDistance += 2;
+                break;
+            case KeyEvent.VK_RIGHT:
+                cameraDistance -= 2;
+                break;
+            case KeyEvent.VK_SPACE:
+                isPaused = !isPaused;
+                break;
+            case KeyEvent.VK_R:
+                time = 0;
+                trails.clear();
+                break;
+            case KeyEvent.VK_T:
+                trailEffect = !trailEffect;
+                if (!trailEffect) trails.clear();
+                break;
         }
     }
     
-    public void stop() {
-        running = false;
+    public void start() {
+        presenter.start();
     }
     
-    @Override
-    public void run() {
-        long lastTime = System.nanoTime();
-        double nsPerFrame = 1_000_000_000.0 / 60.0;
-        double delta = 0;
-        
-        while (running) {
-            long now = System.nanoTime();
-            delta += (now - lastTime) / nsPerFrame;
-            lastTime = now;
-            
-            if (delta >= 1) {
-                update(delta * (1.0 / 60.0));
-                repaint();
-                delta--;
-                
-                // FPS calculation
-                frameCount++;
-                if (System.currentTimeMillis() - lastFpsTime >= 1000) {
-                    fps = frameCount;
-                    frameCount = 0;
-                    lastFpsTime = System.currentTimeMillis();
-                }
-            }
-            
-            try {
-                Thread.sleep(1);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
+    public void stop() {
+        presenter.stop();
     }
     
     private void update(double deltaTime) {
@@ -480,10 +476,10 @@ public class ShowcaseDemo extends JPanel implements Runnable {
             body.update(time);
             // Create wave effect
             double dist = Math.sqrt(
-                body.mesh.position.x * body.mesh.position.x + 
-                body.mesh.position.z * body.mesh.position.z
+                body.object.position.x * body.object.position.x + 
+                body.object.position.z * body.object.position.z
             );
-            body.mesh.position.y = Math.sin(time * 2 + dist * 0.3) * 3;
+            body.object.position.y = Math.sin(time * 2 + dist * 0.3) * 3;
         }
     }
     
@@ -492,8 +488,8 @@ public class ShowcaseDemo extends JPanel implements Runnable {
             CelestialBody body = bodies.get(i);
             if (i == 0) {
                 // Central star just rotates
-                body.mesh.rotation.y = time * 0.3;
-                body.mesh.rotation.x = time * 0.2;
+                body.object.rotation.y = time * 0.3;
+                body.object.rotation.x = time * 0.2;
             } else {
                 // Spiral arms rotate around center
                 double currentAngle = Math.atan2(body.basePosition.z, body.basePosition.x);
@@ -502,12 +498,12 @@ public class ShowcaseDemo extends JPanel implements Runnable {
                     body.basePosition.z * body.basePosition.z
                 );
                 double newAngle = currentAngle + time * 0.2;
-                body.mesh.position = new Vector3D(
+                body.object.position = new Vector3D(
                     Math.cos(newAngle) * radius,
                     body.basePosition.y + Math.sin(time * 3 + radius * 0.5) * 0.5,
                     Math.sin(newAngle) * radius
                 );
-                body.mesh.rotation.y = time * body.rotationSpeed;
+                body.object.rotation.y = time * body.rotationSpeed;
             }
         }
     }
@@ -517,13 +513,13 @@ public class ShowcaseDemo extends JPanel implements Runnable {
             CelestialBody body = bodies.get(i);
             // Pulsing effect
             double pulse = Math.sin(time * 2 + i * 0.1);
-            body.mesh.scale = new Vector3D(
+            body.object.scale = new Vector3D(
                 1.0 + pulse * 0.3,
                 1.0 + pulse * 0.3,
                 1.0 + pulse * 0.3
             );
-            body.mesh.rotation.y = time * body.rotationSpeed;
-            body.mesh.rotation.x = time * body.rotationSpeed * 0.7;
+            body.object.rotation.y = time * body.rotationSpeed;
+            body.object.rotation.x = time * body.rotationSpeed * 0.7;
         }
     }
     
@@ -533,7 +529,7 @@ public class ShowcaseDemo extends JPanel implements Runnable {
             for (int i = 1; i < Math.min(bodies.size(), 4); i++) {
                 CelestialBody body = bodies.get(i);
                 trails.add(new TrailPoint(
-                    new Vector3D(body.mesh.position.x, body.mesh.position.y, body.mesh.position.z),
+                    new Vector3D(body.object.position.x, body.object.position.y, body.object.position.z),
                     body.color,
                     1.0f
                 ));
@@ -542,7 +538,7 @@ public class ShowcaseDemo extends JPanel implements Runnable {
             for (int i = 0; i < Math.min(particles.size(), 10); i += 2) {
                 Particle p = particles.get(i);
                 trails.add(new TrailPoint(
-                    new Vector3D(p.mesh.position.x, p.mesh.position.y, p.mesh.position.z),
+                    new Vector3D(p.position.x, p.position.y, p.position.z),
                     p.color,
                     1.0f
                 ));
@@ -562,49 +558,60 @@ public class ShowcaseDemo extends JPanel implements Runnable {
         }
     }
     
-    private boolean isInFrustum(Vector3D position) {
-        // Simple frustum culling - check if object is roughly in view
-        Vector3D toObject = position.subtract(camera.position);
-        Vector3D cameraForward = camera.target.subtract(camera.position).normalize();
-        
-        double dot = toObject.normalize().dot(cameraForward);
-        double distance = toObject.magnitude();
-        
-        // Cull if behind camera or too far
-        return dot > -0.5 && distance < 150;
-    }
-    
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        Graphics2D g2d = (Graphics2D) g;
+        presenter.paint(g);
+    }
+    
+    // Update and draw one frame, overlays included, on the render thread
+    private void renderFrame(Renderer3D renderer, double deltaTime) {
+        // Fixed 60 Hz simulation steps, however fast frames are drawn
+        presenter.getScheduler().update(this::update);
+        
+        // FPS calculation
+        frameCount++;
+        if (System.currentTimeMillis() - lastFpsTime >= 1000) {
+            fps = frameCount;
+            frameCount = 0;
+            lastFpsTime = System.currentTimeMillis();
+        }
         
         // Render scene
         renderer.clear(new Color(5, 5, 15));
         
-        // Reset culling counter
-        culledObjects = 0;
+        // Submit the whole scene as one batch
+        renderer.beginFrame();
         
-        // Render bodies with frustum culling
+        // Render bodies; the renderer culls those outside the view frustum
         for (CelestialBody body : bodies) {
-            if (isInFrustum(body.mesh.position)) {
-                renderer.render(body.mesh);
-            } else {
-                culledObjects++;
-            }
+            renderer.submit(body.object);
         }
         
-        // Render particles with frustum culling
-        for (Particle p : particles) {
-            if (isInFrustum(p.mesh.position)) {
-                renderer.render(p.mesh);
-            } else {
-                culledObjects++;
-            }
+        // Render particles as instances of one cube
+        if (particleTransforms.length < particles.size()) {
+            particleTransforms = new Matrix4x4[particles.size()];
+            particleColors = new Color[particles.size()];
+        }
+        for (int i = 0; i < particles.size(); i++) {
+            Particle p = particles.get(i);
+            particleTransforms[i] = p.getTransformMatrix();
+            particleColors[i] = p.color;
         }
+        renderer.renderInstanced(particleGeometry, particleTransforms, particleColors, particles.size());
         
-        // Draw buffer
-        g2d.drawImage(renderer.getBuffer(), 0, 0, null);
+        renderer.endFrame();
+        
+        // Overlays go straight into the frame; the glow needs the scene before them
+        BufferedImage frame = renderer.getBuffer();
+        if (glowEffect) {
+            if (glowSource == null || glowSource.getWidth() != frame.getWidth()
+                    || glowSource.getHeight() != frame.getHeight()) {
+                glowSource = new BufferedImage(frame.getWidth(), frame.getHeight(), BufferedImage.TYPE_INT_ARGB);
+            }
+            frame.copyData(glowSource.getRaster());
+        }
+        Graphics2D g2d = frame.createGraphics();
         
         // Draw particle trails
         if (trailEffect && !trails.isEmpty()) {
@@ -614,13 +621,14 @@ public class ShowcaseDemo extends JPanel implements Runnable {
         // Apply glow effect
         if (glowEffect) {
             g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.1f));
-            g2d.drawImage(renderer.getBuffer(), 2, 2, null);
-            g2d.drawImage(renderer.getBuffer(), -2, -2, null);
+            g2d.drawImage(glowSource, 2, 2, null);
+            g2d.drawImage(glowSource, -2, -2, null);
             g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1.0f));
         }
         
         // Draw stunning UI
         drawUI(g2d);
+        g2d.dispose();
     }
     
     private void drawTrails(Graphics2D g2d) {
@@ -663,10 +671,11 @@ public class ShowcaseDemo extends JPanel implements Runnable {
         
         // Perspective projection
         double fov = Math.PI / 3;
-        double scale = (getHeight() / 2.0) / Math.tan(fov / 2);
+        BufferedImage frame = renderer.getBuffer();
+        double scale = (frame.getHeight() / 2.0) / Math.tan(fov / 2);
         
-        double x = getWidth() / 2.0 + (relative.x / distance) * scale;
-        double y = getHeight() / 2.0 - (relative.y / distance) * scale;
+        double x = frame.getWidth() / 2.0 + (relative.x / distance) * scale;
+        double y = frame.getHeight() / 2.0 - (relative.y / distance) * scale;
         
         return new Vector3D(x, y, distance);
     }
@@ -730,17 +739,17 @@ public class ShowcaseDemo extends JPanel implements Runnable {
         g2d.drawString("60 FPS Real-time", 380, 96);
         
         // Stats panel
-        int statsX = getWidth() - 300;
+        int statsX = renderer.getBuffer().getWidth() - 300;
         int statsY = 20;
         
         // Semi-transparent background with gradient effect
         g2d.setColor(new Color(0, 0, 0, 200));
-        g2d.fillRoundRect(statsX - 15, statsY - 10, 290, 450, 20, 20);
+        g2d.fillRoundRect(statsX - 15, statsY - 10, 290, 560, 20, 20);
         
         // Stylish border
         g2d.setColor(new Color(100, 150, 255, 150));
         g2d.setStroke(new BasicStroke(2));
-        g2d.drawRoundRect(statsX - 15, statsY - 10, 290, 450, 20, 20);
+        g2d.drawRoundRect(statsX - 15, statsY - 10, 290, 560, 20, 20);
         
         // Stats
         Font statsFont = new Font("Monospaced", Font.BOLD, 15);
@@ -764,14 +773,27 @@ public class ShowcaseDemo extends JPanel implements Runnable {
         g2d.fillRect(statsX + 80, y - 10, Math.min(barWidth, 150), 12);
         y += lineHeight;
         
+        FrameScheduler scheduler = presenter.getScheduler();
+        g2d.setColor(new Color(220, 220, 220));
+        g2d.drawString(String.format("Frame p50/p99: %.1f/%.1f ms",
+            scheduler.getFrameTimePercentile(50), scheduler.getFrameTimePercentile(99)), statsX, y);
+        y += lineHeight;
+        g2d.drawString(String.format("Dropped: %d", scheduler.getFramesDropped()), statsX, y);
+        y += lineHeight;
+        
         g2d.setColor(new Color(220, 220, 220));
         g2d.drawString(String.format("Objects: %d", bodies.size() + particles.size()), statsX, y);
         y += lineHeight;
         
         g2d.setColor(new Color(100, 255, 150));
-        g2d.drawString(String.format("Culled: %d", culledObjects), statsX, y);
+        g2d.drawString(String.format("Culled: %d", renderer.getStats().meshesFrustumCulled), statsX, y);
         y += lineHeight;
         
+        if (renderer.isSoftwareRasterizer()) {
+            g2d.drawString(String.format("Occluded: %d", renderer.getStats().meshesOccluded), statsX, y);
+            y += lineHeight;
+        }
+        
         g2d.setColor(new Color(220, 220, 220));
         g2d.drawString(String.format("Triangles: %d", 
             (bodies.size() + particles.size()) * 12), statsX, y);
@@ -784,7 +806,8 @@ public class ShowcaseDemo extends JPanel implements Runnable {
         }
         
         g2d.setColor(new Color(180, 180, 180));
-        g2d.drawString(String.format("Resolution: %dx%d", getWidth(), getHeight()), statsX, y);
+        g2d.drawString(String.format("Resolution: %dx%d", renderer.getBuffer().getWidth(),
+            renderer.getBuffer().getHeight()), statsX, y);
         y += lineHeight + 10;
         
         // Paused indicator
@@ -824,6 +847,7 @@ public class ShowcaseDemo extends JPanel implements Runnable {
             {"Arrows", "Camera adjust"},
             {"F", "Wireframe"},
             {"G", "Glow effect"},
+            {"P", "Parallel rasterizer"},
             {"T", "Trails"},
             {"R", "Reset time"},
             {"ESC", "Exit"}
@@ -851,7 +875,7 @@ public class ShowcaseDemo extends JPanel implements Runnable {
     }
     
     private void drawFeatureBadges(Graphics2D g2d) {
-        int badgeY = getHeight() - 55;
+        int badgeY = renderer.getBuffer().getHeight() - 55;
         int badgeX = 30;
         
         // Define features with their colors
@@ -904,69 +928,69 @@ public class ShowcaseDemo extends JPanel implements Runnable {
     
     // Helper classes
     private static class CelestialBody {
-        Mesh mesh;
+        SceneObject object;
         Vector3D basePosition;
         Color color;
         double orbitRadius;
         double orbitSpeed;
         double rotationSpeed;
         
-        CelestialBody(Mesh mesh, Vector3D pos, Color color, 
+        CelestialBody(MeshData geometry, Vector3D pos, Color color, 
                      double radius, double orbitSpeed, double rotSpeed) {
-            this.mesh = mesh;
+            // Shared geometry; the color is this body's material
+            this.object = new SceneObject(geometry, color);
             this.basePosition = pos;
             this.color = color;
             this.orbitRadius = radius;
             this.orbitSpeed = orbitSpeed;
             this.rotationSpeed = rotSpeed;
-            
-            // Apply color to mesh
-            for (Triangle tri : mesh.triangles) {
-                tri.color = color;
-            }
         }
         
         void update(double time) {
             if (orbitRadius > 0) {
-                mesh.position = new Vector3D(
+                object.position = new Vector3D(
                     basePosition.x + Math.cos(time * orbitSpeed) * orbitRadius,
                     basePosition.y + Math.sin(time * orbitSpeed * 0.5) * 2,
                     basePosition.z + Math.sin(time * orbitSpeed) * orbitRadius
                 );
             } else {
-                mesh.position = basePosition;
+                object.position = basePosition;
             }
             
-            mesh.rotation.y = time * rotationSpeed;
-            mesh.rotation.x = time * rotationSpeed * 0.7;
+            object.rotation.y = time * rotationSpeed;
+            object.rotation.x = time * rotationSpeed * 0.7;
         }
     }
     
     private static class Particle {
-        Mesh mesh;
+        private static final Vector3D UNIT_SCALE = new Vector3D(1, 1, 1);
+        
+        Vector3D position;
+        Vector3D rotation = new Vector3D(0, 0, 0);
         Vector3D basePosition;
         Color color;
         double phase;
+        final Transform transform = new Transform();
         
-        Particle(Mesh mesh, Vector3D pos, Color color) {
-            this.mesh = mesh;
+        Particle(Vector3D pos, Color color) {
+            this.position = pos;
             this.basePosition = pos;
             this.color = color;
             this.phase = Math.random() * Math.PI * 2;
-            
-            for (Triangle tri : mesh.triangles) {
-                tri.color = color;
-            }
         }
         
         void update(double time) {
-            mesh.position = new Vector3D(
+            position = new Vector3D(
                 basePosition.x + Math.sin(time + phase) * 5,
                 basePosition.y + Math.cos(time * 0.7 + phase) * 5,
                 basePosition.z + Math.sin(time * 1.3 + phase) * 5
             );
-            mesh.rotation.y = time * 2;
-            mesh.rotation.x = time * 1.5;
+            rotation.y = time * 2;
+            rotation.x = time * 1.5;
+        }
+        
+        Matrix4x4 getTransformMatrix() {
+            return transform.getMatrix(position, rotation, UNIT_SCALE);
         }
     }
     